@@ -0,0 +1,63 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.CompressedTextConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-audit persistence and response costs: Jackson serialization of
+ * AuditedCommit, the history summary preview, and gzip column conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuditSerializationBenchmark {
+
+	@Param({ "2000", "20000", "200000" })
+	public int analysisChars;
+
+	// Controllers render entities through Spring Boot's Jackson 3 mapper, not the services' ObjectMapper
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+	private final CompressedTextConverter converter = new CompressedTextConverter();
+	private AuditedCommit commit;
+	private byte[] compressed;
+
+	@Setup
+	public void setUp() {
+		commit = new AuditedCommit("3e04e8c1f0a9b7d6c5e4f3a2b1c0d9e8f7a6b5c4", "https://github.com/owner/repo",
+				BenchmarkFixtures.analysisJson(analysisChars), "feature");
+		commit.setCreatedAt(LocalDateTime.of(2026, 10, 18, 7, 48));
+		compressed = converter.convertToDatabaseColumn(commit.getAnalysisJson());
+	}
+
+	@Benchmark
+	public String serializeAuditedCommit() {
+		return jsonMapper.writeValueAsString(commit);
+	}
+
+	@Benchmark
+	public String summaryPreview() {
+		return AuditedCommit.previewOf(commit.getAnalysisJson());
+	}
+
+	@Benchmark
+	public byte[] compressAnalysis() {
+		return converter.convertToDatabaseColumn(commit.getAnalysisJson());
+	}
+
+	@Benchmark
+	public String decompressAnalysis() {
+		return converter.convertToEntityAttribute(compressed);
+	}
+}
@@ -0,0 +1,153 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Random;
+
+/**
+ * Deterministic, realistically shaped payloads for the benchmarks: GitHub
+ * commit and commit-list responses, Gemini responses and developer chat logs.
+ */
+final class BenchmarkFixtures {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final String[] CODE_LINES = {
+			"    public List<CommitInfo> fetchCommitList(String repoUrl, int page) {",
+			"        Matcher matcher = REPO_URL_PATTERN.matcher(repoUrl);",
+			"        if (commit == null || commit.getAnalysisJson() == null) {",
+			"            throw new IllegalArgumentException(\"Invalid GitHub URL: \" + url);",
+			"  this.apiService.getHistory().subscribe({ next: (page) => this.items.push(...page.items) });",
+			"        return ResponseEntity.ok(Map.of(\"status\", \"ok\", \"count\", saved.size()));",
+			"    }",
+			"" };
+
+	private BenchmarkFixtures() {}
+
+	/**
+	 * Commit sizes used as the {@code size} parameter: a typical small change,
+	 * a medium feature branch merge and a multi-megabyte vendored/generated drop.
+	 */
+	static int fileCount(String size) {
+		return switch (size) {
+			case "small" -> 3;
+			case "medium" -> 40;
+			case "large" -> 400;
+			default -> throw new IllegalArgumentException("Unknown fixture size: " + size);
+		};
+	}
+
+	static int patchChars(String size) {
+		return switch (size) {
+			case "small" -> 1_500;
+			case "medium" -> 5_000;
+			case "large" -> 8_000;
+			default -> throw new IllegalArgumentException("Unknown fixture size: " + size);
+		};
+	}
+
+	/**
+	 * A GitHub "get a commit" response with the given number of files.
+	 */
+	static String commitJson(String size) {
+		Random random = new Random(42);
+		ObjectNode commit = MAPPER.createObjectNode();
+		commit.put("sha", "3e04e8c1f0a9b7d6c5e4f3a2b1c0d9e8f7a6b5c4");
+		commit.putObject("commit").put("message", "Paginate history with keyset seeks over a summary projection");
+		ArrayNode files = commit.putArray("files");
+		for (int i = 0; i < fileCount(size); i++) {
+			ObjectNode file = files.addObject();
+			file.put("filename", "backend/src/main/java/com/inctrl/backend/service/Generated" + i + ".java");
+			file.put("status", i % 5 == 0 ? "added" : "modified");
+			file.put("additions", 20 + random.nextInt(200));
+			file.put("deletions", random.nextInt(80));
+			file.put("patch", patch(random, patchChars(size)));
+		}
+		return commit.toString();
+	}
+
+	/**
+	 * A GitHub "list commits" page with {@code count} entries.
+	 */
+	static String commitListJson(int count) {
+		ArrayNode list = MAPPER.createArrayNode();
+		for (int i = 0; i < count; i++) {
+			ObjectNode node = list.addObject();
+			node.put("sha", String.format("%040x", i * 7919L + 1));
+			node.put("url", "https://api.github.com/repos/owner/repo/commits/" + i);
+			ObjectNode commit = node.putObject("commit");
+			commit.put("message", "Commit number " + i + "\n\nLonger body explaining the change in detail.");
+			ObjectNode author = commit.putObject("author");
+			author.put("name", "Developer " + (i % 7));
+			author.put("email", "dev" + (i % 7) + "@example.com");
+			author.put("date", "2026-10-18T07:48:40Z");
+			node.putObject("author").put("login", "dev" + (i % 7));
+		}
+		return list.toString();
+	}
+
+	/**
+	 * A generateContent response whose candidate text is an analysis JSON of
+	 * roughly {@code textChars} characters, with usage metadata.
+	 */
+	static String geminiResponseJson(int textChars) {
+		ObjectNode response = MAPPER.createObjectNode();
+		ObjectNode candidate = response.putArray("candidates").addObject();
+		candidate.putObject("content").put("role", "model").putArray("parts").addObject()
+				.put("text", analysisJson(textChars));
+		candidate.put("finishReason", "STOP");
+		ObjectNode usage = response.putObject("usageMetadata");
+		usage.put("promptTokenCount", 12_000);
+		usage.put("candidatesTokenCount", textChars / 4);
+		usage.put("totalTokenCount", 12_000 + textChars / 4);
+		return response.toString();
+	}
+
+	static String analysisJson(int approxChars) {
+		ObjectNode analysis = MAPPER.createObjectNode();
+		analysis.put("summary", "Adds keyset pagination to the history endpoint and a summary projection.");
+		analysis.putArray("technologies").add("Spring Data JPA").add("H2").add("Angular").add("RxJS");
+		ArrayNode faults = analysis.putArray("faults");
+		ArrayNode files = analysis.putArray("files");
+		int i = 0;
+		while (analysis.toString().length() < approxChars) {
+			faults.addObject().put("point", "Cursor decoding #" + i)
+					.put("risk", "A malformed cursor could surface as a 500 instead of a 400 response.");
+			files.addObject().put("filename", "src/File" + i + ".java")
+					.put("summary", "Reads history rows through a constructor-expression projection.")
+					.putArray("technologies").add("JPA");
+			i++;
+		}
+		return analysis.toString();
+	}
+
+	/**
+	 * A pasted AI chat transcript of about {@code chars} characters.
+	 */
+	static String chatLog(int chars) {
+		StringBuilder log = new StringBuilder(chars + 200);
+		int turn = 0;
+		while (log.length() < chars) {
+			log.append(turn % 2 == 0 ? "User: " : "Assistant: ")
+					.append("Can we paginate the history list without OFFSET? Turn ").append(turn)
+					.append(". Use a keyset on (created_at, commit_sha) and a projection without the CLOB.\n");
+			turn++;
+		}
+		return log.toString();
+	}
+
+	private static String patch(Random random, int chars) {
+		StringBuilder patch = new StringBuilder(chars + 100);
+		patch.append("@@ -1,20 +1,24 @@\n");
+		while (patch.length() < chars) {
+			char marker = switch (random.nextInt(4)) {
+				case 0 -> '+';
+				case 1 -> '-';
+				default -> ' ';
+			};
+			patch.append(marker).append(CODE_LINES[random.nextInt(CODE_LINES.length)]).append('\n');
+		}
+		return patch.toString();
+	}
+}
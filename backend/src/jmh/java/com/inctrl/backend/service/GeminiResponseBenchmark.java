@@ -0,0 +1,46 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracting the candidate text from a generateContent response, read as a
+ * JSON tree, and re-reading that text as the analysis tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeminiResponseBenchmark {
+
+	@Param({ "2000", "20000", "200000" })
+	public int textChars;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private String responseJson;
+	private String analysisJson;
+
+	@Setup
+	public void setUp() {
+		responseJson = BenchmarkFixtures.geminiResponseJson(textChars);
+		analysisJson = BenchmarkFixtures.analysisJson(textChars);
+	}
+
+	@Benchmark
+	public String extractText() throws Exception {
+		return GeminiService.extractText(objectMapper.readTree(responseJson));
+	}
+
+	@Benchmark
+	public Object readAnalysisTree() throws Exception {
+		return objectMapper.readTree(analysisJson);
+	}
+}
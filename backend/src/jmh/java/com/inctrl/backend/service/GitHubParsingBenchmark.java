@@ -0,0 +1,87 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.CommitInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GitHub response handling: URL matching, the commit-list JsonNode walk,
+ * streaming versus tree parsing of a commit, compact rendering, and grouping
+ * files for the map-reduce analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GitHubParsingBenchmark {
+
+	@Param({ "small", "medium", "large" })
+	public String size;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private GitHubService gitHubService;
+	private ExecutorService mapExecutor;
+	private CommitAnalysisEngine analysisEngine;
+	private String commitJson;
+	private String commitListJson;
+
+	@Setup
+	public void setUp() {
+		gitHubService = new GitHubService(null, null, null, "", 10, Duration.ZERO, new SimpleMeterRegistry());
+		mapExecutor = Executors.newSingleThreadExecutor();
+		analysisEngine = new CommitAnalysisEngine(null, null, null, mapExecutor, 60_000, 30_000);
+		commitJson = BenchmarkFixtures.commitJson(size);
+		commitListJson = BenchmarkFixtures.commitListJson(100);
+	}
+
+	@TearDown
+	public void tearDown() {
+		mapExecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public String resolveCommitKey() {
+		return gitHubService.resolveCommitKey("https://github.com/owner/repo.git/commit/3e04e8c1f0a9b7d6c5e4f3a2b1c0d9e8f7a6b5c4");
+	}
+
+	@Benchmark
+	public List<CommitInfo> parseCommitList() throws Exception {
+		return gitHubService.parseCommitList(commitListJson);
+	}
+
+	@Benchmark
+	public CommitDiff streamParseCommit() {
+		return CommitDiffJson.read(commitJson);
+	}
+
+	@Benchmark
+	public JsonNode treeParseCommit() throws Exception {
+		return objectMapper.readTree(commitJson);
+	}
+
+	@Benchmark
+	public String compactCommitJson() {
+		return CommitDiffJson.write(CommitDiffJson.read(commitJson));
+	}
+
+	@Benchmark
+	public int parseAndGroupCommit() {
+		return analysisEngine.groupFiles(CommitDiffJson.read(commitJson).getFiles()).size();
+	}
+}
@@ -0,0 +1,50 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt assembly for chat and analysis requests: String.format over the diff
+ * and chat log, then serializing the Gemini request body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromptBuildingBenchmark {
+
+	@Param({ "small", "medium", "large" })
+	public String size;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private GeminiService geminiService;
+	private String diffJson;
+	private String chatLog;
+
+	@Setup
+	public void setUp() {
+		geminiService = new GeminiService(null, null, new SimpleMeterRegistry());
+		diffJson = BenchmarkFixtures.commitJson(size);
+		chatLog = BenchmarkFixtures.chatLog(50_000);
+	}
+
+	@Benchmark
+	public String chatPrompt() {
+		return GeminiService.buildChatPrompt(diffJson, chatLog, "Why was the OFFSET query replaced?");
+	}
+
+	@Benchmark
+	public String chatRequestBody() throws Exception {
+		String prompt = GeminiService.buildChatPrompt(diffJson, chatLog, "Why was the OFFSET query replaced?");
+		return objectMapper.writeValueAsString(geminiService.buildRequestBody("system prompt", prompt, false));
+	}
+}
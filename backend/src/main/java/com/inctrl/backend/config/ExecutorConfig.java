@@ -0,0 +1,125 @@
+package com.inctrl.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for work that must not hold a servlet request thread.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Runs streaming chat responses. Each task holds one upstream Gemini stream open
+     * for the length of a generation, so the pool is bounded and rejects when full.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService chatStreamExecutor(@Value("${inctrl.chat.stream-threads:16}") int threads) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 4), namedDaemonThreads("chat-stream-"));
+    }
+
+    /**
+     * Runs asynchronous ingest jobs. Thread count bounds concurrent GitHub + Gemini
+     * work; the queue is bounded too and rejects when full, so a burst of pushes
+     * cannot pile up work faster than Gemini can take it.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ingestJobExecutor(@Value("${inctrl.ingest.job-threads:4}") int threads,
+            @Value("${inctrl.ingest.queue-capacity:500}") int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), namedDaemonThreads("ingest-job-"));
+    }
+
+    /**
+     * Coordinates bulk back-fill runs one at a time; further runs wait in the queue.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService backfillExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedDaemonThreads("backfill-"));
+    }
+
+    /**
+     * Per-commit fetch + analyze work of a back-fill. Kept small so an overnight run
+     * leaves GitHub and Gemini capacity for interactive users.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService backfillWorkerExecutor(@Value("${inctrl.backfill.parallelism:2}") int threads) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedDaemonThreads("backfill-worker-"));
+    }
+
+    /**
+     * Speculative prefetches of commit pages and diffs. Low-priority threads and a
+     * bounded queue that rejects when full; a rejected prefetch is simply not done.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService prefetchExecutor(@Value("${inctrl.prefetch.threads:2}") int threads,
+            @Value("${inctrl.prefetch.queue-capacity:200}") int queueCapacity) {
+        ThreadFactory daemons = namedDaemonThreads("prefetch-");
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = daemons.newThread(r);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+    }
+
+    /**
+     * File-group calls of a large commit's map step. Bounds how many groups of one
+     * or more commits are in flight at once; the rest wait in the queue.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analysisMapExecutor(@Value("${inctrl.analysis.parallelism:4}") int threads) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedDaemonThreads("analysis-map-"));
+    }
+
+    /**
+     * Unary Gemini calls, so a slow call can be hedged with a second one while the
+     * caller waits on whichever answers first. Sized like the per-host HTTP limit.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService geminiCallExecutor(@Value("${inctrl.gemini.call-threads:32}") int threads) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedDaemonThreads("gemini-call-"));
+    }
+
+    /**
+     * Writes buffered note edits once their write-behind delay has passed. Anything
+     * still pending at shutdown is written by the buffer itself.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService noteFlushScheduler() {
+        return new ScheduledThreadPoolExecutor(1, namedDaemonThreads("note-flush-"));
+    }
+
+    /**
+     * Commits the search index on a timer, so index writes on request threads
+     * only refresh the near-real-time reader and never wait for an fsync.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService searchCommitScheduler() {
+        return new ScheduledThreadPoolExecutor(1, namedDaemonThreads("search-commit-"));
+    }
+
+    static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.inctrl.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Shared outbound HTTP layer for GitHub and Gemini calls.
+ * One JDK HttpClient keeps connections alive across requests and negotiates
+ * HTTP/2 where the server supports it, so bursts of calls to the same host
+ * are multiplexed over an existing connection instead of paying a new TLS handshake.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient outboundHttpClient(
+            @Value("${inctrl.http.connect-timeout:5s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public OutboundHttpStats outboundHttpStats(
+            @Value("${inctrl.http.max-concurrent-per-host:32}") int maxConcurrentPerHost,
+            @Value("${inctrl.http.acquire-timeout:30s}") Duration acquireTimeout) {
+        return new OutboundHttpStats(maxConcurrentPerHost, acquireTimeout);
+    }
+
+    @Bean
+    public RestTemplate outboundRestTemplate(HttpClient outboundHttpClient, OutboundHttpStats outboundHttpStats,
+            @Value("${inctrl.http.read-timeout:120s}") Duration readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(outboundHttpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        // Sends Accept-Encoding: gzip and transparently inflates the response body
+        requestFactory.enableCompression(true);
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(outboundHttpStats);
+        return restTemplate;
+    }
+}
@@ -0,0 +1,129 @@
+package com.inctrl.backend.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Interceptor on the shared RestTemplate that caps concurrent requests per host
+ * and keeps per-host counters. A permit is held until the response is closed,
+ * so streamed bodies count as in flight for as long as they are being read.
+ */
+public class OutboundHttpStats implements ClientHttpRequestInterceptor {
+
+    private final int maxConcurrentPerHost;
+    private final Duration acquireTimeout;
+    private final Map<String, HostStats> hosts = new ConcurrentHashMap<>();
+
+    public OutboundHttpStats(int maxConcurrentPerHost, Duration acquireTimeout) {
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = request.getURI().getHost();
+        HostStats stats = hosts.computeIfAbsent(host, h -> new HostStats(maxConcurrentPerHost));
+
+        try {
+            if (!stats.permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                stats.rejected.incrementAndGet();
+                throw new IOException("Too many concurrent requests to " + host);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection slot to " + host, e);
+        }
+
+        stats.requests.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            stats.totalHeaderLatencyNanos.addAndGet(System.nanoTime() - start);
+            if (response.getStatusCode().isError()) {
+                stats.errors.incrementAndGet();
+            }
+            return new PermitReleasingResponse(response, stats.permits);
+        } catch (IOException | RuntimeException e) {
+            stats.errors.incrementAndGet();
+            stats.permits.release();
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new TreeMap<>();
+        hosts.forEach((host, stats) -> {
+            long requests = stats.requests.get();
+            result.put(host, Map.of(
+                    "requests", requests,
+                    "inFlight", maxConcurrentPerHost - stats.permits.availablePermits(),
+                    "errors", stats.errors.get(),
+                    "rejected", stats.rejected.get(),
+                    "avgTimeToHeadersMs", requests == 0 ? 0
+                            : stats.totalHeaderLatencyNanos.get() / requests / 1_000_000));
+        });
+        return result;
+    }
+
+    private static final class HostStats {
+        final Semaphore permits;
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong totalHeaderLatencyNanos = new AtomicLong();
+
+        HostStats(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent);
+        }
+    }
+
+    private static final class PermitReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingResponse(ClientHttpResponse delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException { return delegate.getStatusCode(); }
+
+        @Override
+        public String getStatusText() throws IOException { return delegate.getStatusText(); }
+
+        @Override
+        public HttpHeaders getHeaders() { return delegate.getHeaders(); }
+
+        @Override
+        public InputStream getBody() throws IOException { return delegate.getBody(); }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
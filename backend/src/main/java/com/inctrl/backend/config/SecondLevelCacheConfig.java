@@ -0,0 +1,70 @@
+package com.inctrl.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache. Every region is a bounded Caffeine cache behind
+ * JCache, created here so Hibernate refuses to start with a region nobody sized.
+ * Entity regions are read-write, so saves through JPA update or invalidate them
+ * when the transaction commits; cached query results are invalidated through the
+ * update-timestamps region whenever a table they read from is written.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String AUDITED_COMMITS = "audited-commits";
+    public static final String NOTES = "notes";
+    public static final String NOTE_QUERIES = "note-queries";
+
+    // Hibernate's built-in query cache regions
+    private static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${inctrl.cache.l2.audited-commits.max-entries:500}") long auditedCommitEntries,
+            @Value("${inctrl.cache.l2.notes.max-entries:10000}") long noteEntries,
+            @Value("${inctrl.cache.l2.note-queries.max-entries:10000}") long noteQueryEntries,
+            @Value("${inctrl.cache.l2.expire-after-write:1h}") Duration expireAfterWrite) {
+        // A manager of our own rather than the provider's shared default, which outlives this context
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("inctrl:hibernate-l2:" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(AUDITED_COMMITS, region(auditedCommitEntries, expireAfterWrite));
+        cacheManager.createCache(NOTES, region(noteEntries, expireAfterWrite));
+        cacheManager.createCache(NOTE_QUERIES, region(noteQueryEntries, expireAfterWrite));
+        cacheManager.createCache(DEFAULT_QUERY_RESULTS, region(1000, expireAfterWrite));
+        // One entry per table; evicting one would let stale query results through, so it is never bounded
+        cacheManager.createCache(UPDATE_TIMESTAMPS, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(expireAfterWrite.toMillis())));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -1,56 +1,136 @@
 package com.inctrl.backend.controller;
 
+import com.inctrl.backend.dto.BackfillProgress;
+import com.inctrl.backend.dto.BackfillRequest;
 import com.inctrl.backend.dto.CommitInfo;
 import com.inctrl.backend.dto.IngestRequest;
 import com.inctrl.backend.dto.ChatRequest;
 import com.inctrl.backend.dto.ChatResponse;
-import com.inctrl.backend.service.GitHubService;
+import com.inctrl.backend.model.IngestJob;
+import com.inctrl.backend.service.BackfillService;
+import com.inctrl.backend.service.ChatSession;
+import com.inctrl.backend.service.ChatSessionService;
+import com.inctrl.backend.service.CommitAnalysisService;
+import com.inctrl.backend.service.CommitPrefetcher;
+import com.inctrl.backend.service.IngestJobService;
+import com.inctrl.backend.service.CommitSources;
 import com.inctrl.backend.service.GeminiService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/audit")
 @CrossOrigin(origins = "*")
 public class AuditController {
 
-    private final GitHubService gitHubService;
+    private static final long CHAT_STREAM_TIMEOUT_MS = 5 * 60 * 1000L;
+    private static final int MAX_COMMIT_PAGE_SIZE = 100;
+
+    private final CommitSources commitSources;
     private final GeminiService geminiService;
+    private final CommitAnalysisService commitAnalysisService;
+    private final IngestJobService ingestJobService;
+    private final BackfillService backfillService;
+    private final ChatSessionService chatSessionService;
+    private final ExecutorService chatStreamExecutor;
+    private final CommitPrefetcher commitPrefetcher;
+    private final int commitPageSize;
+    private final CacheControl commitListCacheControl;
 
-    public AuditController(GitHubService gitHubService, GeminiService geminiService) {
-        this.gitHubService = gitHubService;
+    public AuditController(CommitSources commitSources, GeminiService geminiService,
+            CommitAnalysisService commitAnalysisService, IngestJobService ingestJobService,
+            BackfillService backfillService, ChatSessionService chatSessionService,
+            @Qualifier("chatStreamExecutor") ExecutorService chatStreamExecutor,
+            CommitPrefetcher commitPrefetcher,
+            @Value("${inctrl.commits.page-size:30}") int commitPageSize,
+            @Value("${inctrl.github.list-fresh-for:60s}") Duration commitListFreshFor) {
+        this.commitSources = commitSources;
         this.geminiService = geminiService;
+        this.commitAnalysisService = commitAnalysisService;
+        this.ingestJobService = ingestJobService;
+        this.backfillService = backfillService;
+        this.chatSessionService = chatSessionService;
+        this.chatStreamExecutor = chatStreamExecutor;
+        this.commitPrefetcher = commitPrefetcher;
+        this.commitPageSize = Math.max(1, Math.min(commitPageSize, MAX_COMMIT_PAGE_SIZE));
+        // Browsers may reuse a page as long as the server-side list cache would
+        this.commitListCacheControl = CacheControl.maxAge(commitListFreshFor).mustRevalidate();
     }
 
     /**
-     * Fetches the latest commits from a GitHub repository.
+     * Fetches the latest commits from a GitHub repository. Once the page is served,
+     * the listed diffs and the next page are prefetched in the background.
+     * The page is tagged by its commits, so a repeat request answers 304 until new
+     * commits arrive. The tag is computed from the fetched list, which comes from the
+     * server-side list cache while fresh; a 304 saves the response body, not the
+     * GitHub call.
      */
     @GetMapping("/commits")
     public ResponseEntity<List<CommitInfo>> getCommits(
             @RequestParam String repoUrl,
-            @RequestParam(defaultValue = "1") int page) {
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) Integer perPage) {
         try {
-            List<CommitInfo> commits = gitHubService.fetchCommitList(repoUrl, page);
-            return ResponseEntity.ok(commits);
+            int pageSize = perPage != null ? Math.max(1, Math.min(perPage, MAX_COMMIT_PAGE_SIZE)) : commitPageSize;
+            List<CommitInfo> commits = commitSources.fetchCommitList(repoUrl, page, pageSize);
+            commitPrefetcher.afterPageServed(repoUrl, page, pageSize, commits);
+            return ResponseEntity.ok()
+                    .eTag(commitListETag(commits))
+                    .cacheControl(commitListCacheControl)
+                    .body(commits);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Analyzes a commit. With {@code async=true} the work is queued and a job ID is
+     * returned immediately (202); poll {@code /jobs/{jobId}} for the result.
+     */
     @PostMapping("/ingest")
-    public ResponseEntity<Map<String, Object>> ingestCommitContext(@RequestBody IngestRequest request) {
+    public ResponseEntity<Map<String, Object>> ingestCommitContext(@RequestBody IngestRequest request,
+            @RequestParam(defaultValue = "false") boolean async) {
         Map<String, Object> response = new HashMap<>();
 
-        try {
-            // Step 1: Fetch the raw commit diff from GitHub
-            String githubData = gitHubService.fetchCommitDetails(request.getGithubUrl());
+        if (async) {
+            try {
+                IngestJob job = ingestJobService.submit(request.getGithubUrl(), request.getAiChatLog());
+                response.put("status", "queued");
+                response.put("jobId", job.getJobId());
+                return ResponseEntity.accepted().body(response);
+            } catch (RejectedExecutionException e) {
+                response.put("status", "error");
+                response.put("message", "Ingest queue is full, try again later");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body(response);
+            } catch (Exception e) {
+                response.put("status", "error");
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+        }
 
-            // Step 2: Send the diff + chat context to Gemini for analysis
-            String aiAnalysisJsonString = geminiService.analyzeCommit(githubData, request.getAiChatLog());
+        try {
+            // Fetch the diff and analyze it with Gemini, reusing a cached analysis when one exists
+            String aiAnalysisJsonString = commitAnalysisService.analyze(request.getGithubUrl(), request.getAiChatLog());
 
             response.put("status", "success");
             response.put("message", "Commit analyzed successfully");
@@ -66,6 +146,53 @@ public class AuditController {
         }
     }
 
+    /**
+     * Returns the state of an asynchronous ingest job. Once it has succeeded the
+     * body has the same shape as a synchronous ingest response.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getIngestJob(@PathVariable String jobId) {
+        return ingestJobService.find(jobId)
+                .map(job -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("jobId", job.getJobId());
+                    switch (job.getStatus()) {
+                        case SUCCEEDED -> {
+                            response.put("status", "success");
+                            response.put("message", "Commit analyzed successfully");
+                            response.put("analysis", job.getAnalysisJson());
+                        }
+                        case FAILED -> {
+                            response.put("status", "error");
+                            response.put("message", job.getErrorMessage());
+                        }
+                        default -> response.put("status", job.getStatus().name().toLowerCase());
+                    }
+                    return ResponseEntity.ok(response);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Starts a bulk audit of every commit in a branch, SHA range or date window.
+     * Runs in the background; poll {@code /backfill/{backfillId}} for progress.
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<?> startBackfill(@RequestBody BackfillRequest request) {
+        try {
+            return ResponseEntity.accepted().body(backfillService.start(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/backfill/{backfillId}")
+    public ResponseEntity<BackfillProgress> getBackfill(@PathVariable String backfillId) {
+        return backfillService.find(backfillId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Handles a user's Q&A question about a specific commit.
      * Fetches the diff from GitHub and sends it to Gemini with the question.
@@ -74,7 +201,7 @@ public class AuditController {
     public ResponseEntity<?> chatAboutCommit(@RequestBody ChatRequest request) {
         try {
             // Re-fetch the GitHub diff to give Gemini full context
-            String githubDiff = gitHubService.fetchCommitDetails(request.getGithubUrl());
+            String githubDiff = commitSources.fetchCommitDetails(request.getGithubUrl());
 
             // Send to Gemini for a markdown-formatted answer with code references
             String answer = geminiService.chatWithCommit(githubDiff, request.getAiChatLog(), request.getQuestion());
@@ -87,4 +214,62 @@ public class AuditController {
             return ResponseEntity.ok(new ChatResponse("⚠️ " + msg));
         }
     }
+
+    /**
+     * Streaming, multi-turn variant of /chat. Answer fragments are pushed to the
+     * browser as Server-Sent Events while Gemini is still generating: a "session"
+     * event with {"sessionId": ...} comes first, then "chunk" events carrying
+     * {"text": ...}, followed by one "done" or "error" event. Passing the sessionId
+     * back on the next question continues the same conversation.
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChatAboutCommit(@RequestBody ChatRequest request) {
+        SseEmitter emitter = new SseEmitter(CHAT_STREAM_TIMEOUT_MS);
+
+        try {
+            chatStreamExecutor.execute(() -> {
+                try {
+                    ChatSession session = chatSessionService.open(request.getSessionId(), request.getGithubUrl(),
+                            request.getAiChatLog());
+                    sendEvent(emitter, "session", Map.of("sessionId", session.getId()));
+                    chatSessionService.ask(session, request.getQuestion(),
+                            chunk -> sendEvent(emitter, "chunk", Map.of("text", chunk)));
+                    sendEvent(emitter, "done", Map.of());
+                    emitter.complete();
+                } catch (Exception e) {
+                    String msg = e.getMessage() != null ? e.getMessage() : "Unknown error";
+                    try {
+                        emitter.send(SseEmitter.event().name("error").data(Map.of("message", "⚠️ " + msg)));
+                        emitter.complete();
+                    } catch (Exception sendFailure) {
+                        // The client already went away; nothing left to report to
+                        emitter.completeWithError(sendFailure);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private static void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            // Aborts the upstream read so we stop paying for tokens nobody will see
+            throw new UncheckedIOException("Chat stream client disconnected", e);
+        }
+    }
+
+    private static String commitListETag(List<CommitInfo> commits) {
+        List<Object> parts = new ArrayList<>();
+        for (CommitInfo commit : commits) {
+            parts.add(commit.getSha());
+            parts.add(commit.getMessage());
+            parts.add(commit.getAuthorName());
+            parts.add(commit.getDate());
+        }
+        return ETags.of(parts.toArray());
+    }
 }
@@ -0,0 +1,33 @@
+package com.inctrl.backend.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Strong entity tags for JSON responses, computed from the fields that make up the
+ * representation rather than from the serialized body, so a 304 costs no
+ * serialization. Returning a ResponseEntity with the tag lets Spring answer
+ * If-None-Match itself.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    static String of(Object... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Object part : parts) {
+            byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+            // Length-prefixed so ("ab", "c") and ("a", "bc") differ
+            digest.update((bytes.length + ":").getBytes(StandardCharsets.US_ASCII));
+            digest.update(bytes);
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+}
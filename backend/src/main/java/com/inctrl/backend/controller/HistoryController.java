@@ -1,13 +1,30 @@
 package com.inctrl.backend.controller;
 
+import com.inctrl.backend.dto.HistoryItem;
+import com.inctrl.backend.dto.HistoryPage;
 import com.inctrl.backend.model.AuditedCommit;
 import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.service.ReportExportService;
+import com.inctrl.backend.service.SearchIndexService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/history")
@@ -15,21 +32,112 @@ import java.util.Optional;
         RequestMethod.DELETE })
 public class HistoryController {
 
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final AuditedCommitRepository repository;
+    private final SearchIndexService searchIndexService;
+    private final ReportExportService reportExportService;
 
-    public HistoryController(AuditedCommitRepository repository) {
+    public HistoryController(AuditedCommitRepository repository, SearchIndexService searchIndexService,
+            ReportExportService reportExportService) {
         this.repository = repository;
+        this.searchIndexService = searchIndexService;
+        this.reportExportService = reportExportService;
     }
 
+    /**
+     * Lists audits newest first, one page at a time, without their analysis JSON.
+     * Pass the returned nextCursor back as {@code cursor} to get the following page;
+     * fetch the full analysis through {@code /{commitSha}}.
+     */
     @GetMapping
-    public ResponseEntity<List<AuditedCommit>> getHistory() {
-        return ResponseEntity.ok(repository.findAllByOrderByCreatedAtDesc());
+    public ResponseEntity<HistoryPage> getHistory(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Ask for one extra row to learn whether another page exists
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<HistoryItem> items;
+        if (cursor == null || cursor.isBlank()) {
+            items = repository.findHistoryFirstPage(page);
+        } else {
+            String[] position;
+            try {
+                position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                items = repository.findHistoryPageAfter(LocalDateTime.parse(position[0]), position[1], page);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            HistoryItem last = items.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreatedAt() + "|" + last.getCommitSha()).getBytes(StandardCharsets.UTF_8));
+        }
+        return ResponseEntity.ok(new HistoryPage(items, nextCursor));
     }
 
+    /**
+     * Downloads the Knowledge Ownership Report for every audit of a repository as
+     * Markdown or JSON Lines, optionally gzipped. The body is written while the
+     * audits are read, so large repositories export in constant memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportReport(@RequestParam String repoUrl,
+            @RequestParam(defaultValue = "markdown") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ReportExportService.Format reportFormat;
+        try {
+            reportFormat = ReportExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!repository.existsByRepoUrl(repoUrl)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String repoName = repoUrl.replaceAll("/+$", "").replaceAll("\\.git$", "");
+        repoName = repoName.substring(repoName.lastIndexOf('/') + 1);
+        String filename = repoName + "-ownership-report" + (reportFormat == ReportExportService.Format.JSONL ? ".jsonl" : ".md");
+        MediaType contentType = reportFormat == ReportExportService.Format.JSONL
+                ? MediaType.parseMediaType("application/x-ndjson")
+                : MediaType.parseMediaType("text/markdown;charset=UTF-8");
+        if (gzip) {
+            filename += ".gz";
+            contentType = MediaType.parseMediaType("application/gzip");
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                reportExportService.export(repoUrl, reportFormat, gzipOut);
+                gzipOut.finish();
+            } else {
+                reportExportService.export(repoUrl, reportFormat, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Fetches one saved audit. A re-save or a tag change alters it, so browsers keep
+     * it but revalidate on every use; an unchanged audit answers 304 without a body.
+     */
     @GetMapping("/{commitSha}")
     public ResponseEntity<AuditedCommit> getHistoryBySha(@PathVariable String commitSha) {
         Optional<AuditedCommit> commit = repository.findById(commitSha);
-        return commit.map(ResponseEntity::ok)
+        return commit.map(c -> ResponseEntity.ok()
+                        .eTag(ETags.of(c.getCommitSha(), c.getRepoUrl(), c.getAnalysisJson(), c.getTag(),
+                                c.getCreatedAt(), c.isPrecomputed()))
+                        .cacheControl(CacheControl.noCache())
+                        .body(c))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -48,11 +156,13 @@ public class HistoryController {
                 .orElse(new AuditedCommit(commitSha, repoUrl, analysisJson, tag));
 
         auditedCommit.setAnalysisJson(analysisJson);
+        auditedCommit.setPrecomputed(false);
         if (tag != null) {
             auditedCommit.setTag(tag);
         }
 
         AuditedCommit saved = repository.save(auditedCommit);
+        searchIndexService.indexCommits(List.of(saved));
 
         return ResponseEntity.ok(saved);
     }
@@ -71,7 +181,9 @@ public class HistoryController {
         if (existing.isPresent()) {
             AuditedCommit commit = existing.get();
             commit.setTag(tag);
-            return ResponseEntity.ok(repository.save(commit));
+            AuditedCommit saved = repository.save(commit);
+            searchIndexService.indexCommits(List.of(saved));
+            return ResponseEntity.ok(saved);
         }
         return ResponseEntity.notFound().build();
     }
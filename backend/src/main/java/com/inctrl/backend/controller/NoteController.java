@@ -1,10 +1,14 @@
 package com.inctrl.backend.controller;
 
+import com.inctrl.backend.dto.NoteEdit;
 import com.inctrl.backend.model.Note;
-import com.inctrl.backend.repository.NoteRepository;
+import com.inctrl.backend.service.NoteConflictException;
+import com.inctrl.backend.service.NoteWriteBuffer;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -13,10 +17,10 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class NoteController {
 
-    private final NoteRepository noteRepository;
+    private final NoteWriteBuffer noteWriteBuffer;
 
-    public NoteController(NoteRepository noteRepository) {
-        this.noteRepository = noteRepository;
+    public NoteController(NoteWriteBuffer noteWriteBuffer) {
+        this.noteWriteBuffer = noteWriteBuffer;
     }
 
     /**
@@ -26,31 +30,63 @@ public class NoteController {
     @GetMapping("/{commitSha}")
     public ResponseEntity<Note> getNoteByCommitShaAndSection(@PathVariable String commitSha,
             @RequestParam String section) {
-        Optional<Note> note = noteRepository.findByCommitShaAndSection(commitSha, section);
+        Optional<Note> note = noteWriteBuffer.read(commitSha, section);
         return note.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Fetches every section's note for a commit in one call, keyed by section.
+     */
+    @GetMapping("/{commitSha}/sections")
+    public ResponseEntity<Map<String, Note>> getNotesByCommitSha(@PathVariable String commitSha) {
+        return ResponseEntity.ok(noteWriteBuffer.readAll(commitSha));
+    }
+
     /**
      * Creates or updates the developer note for a given commit SHA.
-     * If a note already exists for the SHA, it is overwritten.
+     * The write is buffered briefly so rapid saves of the same note coalesce.
+     * With a version, an edit based on an older note is rejected with 409.
      */
     @PostMapping
-    public ResponseEntity<Note> saveNote(@RequestBody Map<String, String> payload) {
-        String commitSha = payload.get("commitSha");
-        String section = payload.get("section");
-        String content = payload.get("content");
+    public ResponseEntity<?> saveNote(@RequestBody Map<String, Object> payload) {
+        String commitSha = (String) payload.get("commitSha");
+        String section = (String) payload.get("section");
+        String content = (String) payload.get("content");
+        Long version = payload.get("version") instanceof Number n ? n.longValue() : null;
 
         if (commitSha == null || commitSha.isBlank() || section == null || section.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
 
-        // Upsert: update if exists, create if not
-        Note note = noteRepository.findByCommitShaAndSection(commitSha, section)
-                .orElse(new Note(commitSha, section, ""));
+        try {
+            return ResponseEntity.ok(noteWriteBuffer.submit(commitSha, new NoteEdit(section, content, version)));
+        } catch (NoteConflictException e) {
+            return conflict(e);
+        }
+    }
+
+    /**
+     * Creates or updates several sections of a commit's notes in one transaction.
+     * Either every edit is written or, on a version conflict, none is.
+     */
+    @PutMapping("/{commitSha}")
+    public ResponseEntity<?> saveNotes(@PathVariable String commitSha, @RequestBody List<NoteEdit> edits) {
+        if (edits.stream().anyMatch(edit -> edit.getSection() == null || edit.getSection().isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(noteWriteBuffer.writeAll(commitSha, edits));
+        } catch (NoteConflictException e) {
+            return conflict(e);
+        }
+    }
 
-        note.setContent(content != null ? content : "");
-        Note saved = noteRepository.save(note);
-        return ResponseEntity.ok(saved);
+    // Hands back the current notes so the client can merge and retry
+    private ResponseEntity<?> conflict(NoteConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage(),
+                        "sections", e.getSections(),
+                        "notes", noteWriteBuffer.readAll(e.getCommitSha())));
     }
 }
@@ -0,0 +1,42 @@
+package com.inctrl.backend.controller;
+
+import com.inctrl.backend.dto.SearchResponse;
+import com.inctrl.backend.service.SearchIndexService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    private final SearchIndexService searchIndexService;
+
+    public SearchController(SearchIndexService searchIndexService) {
+        this.searchIndexService = searchIndexService;
+    }
+
+    /**
+     * Full-text search over audits and notes, ranked by relevance, with counts
+     * for the tag, repo and technology facets. Facet parameters narrow the results.
+     */
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam(required = false) String q,
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) String repo,
+            @RequestParam(required = false) String technology,
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        try {
+            SearchResponse response = searchIndexService.search(q, tag, repo, technology,
+                    Math.max(1, Math.min(limit, MAX_LIMIT)));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.inctrl.backend.controller;
+
+import com.inctrl.backend.config.OutboundHttpStats;
+import com.inctrl.backend.service.ChatSessionService;
+import com.inctrl.backend.service.CommitDiffCache;
+import com.inctrl.backend.service.CommitPrefetcher;
+import com.inctrl.backend.service.GeminiModelRouter;
+import com.inctrl.backend.service.GitHubRateLimiter;
+import com.inctrl.backend.service.GitHubService;
+import com.inctrl.backend.service.StorageMigrationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Operational snapshot of upstream budgets and caches.
+ */
+@RestController
+@RequestMapping("/api/status")
+@CrossOrigin(origins = "*")
+public class StatusController {
+
+    private final GitHubRateLimiter rateLimiter;
+    private final GitHubService gitHubService;
+    private final CommitDiffCache diffCache;
+    private final OutboundHttpStats outboundHttpStats;
+    private final StorageMigrationService storageMigrationService;
+    private final ChatSessionService chatSessionService;
+    private final CommitPrefetcher commitPrefetcher;
+    private final GeminiModelRouter geminiModelRouter;
+
+    public StatusController(GitHubRateLimiter rateLimiter, GitHubService gitHubService, CommitDiffCache diffCache,
+            OutboundHttpStats outboundHttpStats, StorageMigrationService storageMigrationService,
+            ChatSessionService chatSessionService, CommitPrefetcher commitPrefetcher,
+            GeminiModelRouter geminiModelRouter) {
+        this.rateLimiter = rateLimiter;
+        this.gitHubService = gitHubService;
+        this.diffCache = diffCache;
+        this.outboundHttpStats = outboundHttpStats;
+        this.storageMigrationService = storageMigrationService;
+        this.chatSessionService = chatSessionService;
+        this.commitPrefetcher = commitPrefetcher;
+        this.geminiModelRouter = geminiModelRouter;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("githubRateLimit", rateLimiter.getStatus());
+        status.put("githubConditionalRequests", gitHubService.getConditionalStats());
+        status.put("commitDiffCache", diffCache.getStats());
+        status.put("outboundHttp", outboundHttpStats.getStats());
+        status.put("storageCompression", storageMigrationService.getCompressionStats());
+        status.put("chatSessions", chatSessionService.getStats());
+        status.put("prefetch", commitPrefetcher.getStats());
+        status.put("geminiModels", geminiModelRouter.getScoreboard());
+        return ResponseEntity.ok(status);
+    }
+}
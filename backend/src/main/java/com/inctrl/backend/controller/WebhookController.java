@@ -0,0 +1,54 @@
+package com.inctrl.backend.controller;
+
+import com.inctrl.backend.service.PushWebhookService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Receives GitHub webhook deliveries. Configure the repository webhook with
+ * content type application/json, the shared secret from inctrl.webhook.secret
+ * and the "push" event.
+ */
+@RestController
+@RequestMapping("/api/webhooks")
+public class WebhookController {
+
+    private final PushWebhookService pushWebhookService;
+
+    public WebhookController(PushWebhookService pushWebhookService) {
+        this.pushWebhookService = pushWebhookService;
+    }
+
+    /**
+     * Verifies the delivery signature against the raw body, then queues the pushed
+     * commits for background analysis. Answers quickly, as GitHub expects.
+     */
+    @PostMapping("/github")
+    public ResponseEntity<?> receive(@RequestHeader(value = "X-GitHub-Event", required = false) String event,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestBody byte[] body) {
+        if (!pushWebhookService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("status", "error", "message", "Webhook secret is not configured"));
+        }
+        if (!pushWebhookService.verifySignature(body, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("status", "error", "message", "Invalid signature"));
+        }
+
+        if ("ping".equals(event)) {
+            return ResponseEntity.ok(Map.of("status", "pong"));
+        }
+        if (!"push".equals(event)) {
+            return ResponseEntity.accepted().body(Map.of("status", "ignored", "event", String.valueOf(event)));
+        }
+        try {
+            return ResponseEntity.accepted().body(pushWebhookService.handlePush(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.inctrl.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live progress of a bulk back-fill run. Updated from worker threads, so all
+ * counters are atomic and the error list is guarded by "this".
+ */
+public class BackfillProgress {
+
+    private static final int MAX_ERRORS = 20;
+    private static final Set<String> FINAL_STATUSES = Set.of("done", "failed", "cancelled");
+
+    private final String backfillId;
+    private final String repoUrl;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile String status = "queued";
+    private volatile LocalDateTime finishedAt;
+    private volatile int total;
+    private final AtomicInteger analyzed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final List<String> errors = new ArrayList<>();
+
+    public BackfillProgress(String backfillId, String repoUrl) {
+        this.backfillId = backfillId;
+        this.repoUrl = repoUrl;
+    }
+
+    public String getBackfillId() { return backfillId; }
+
+    public String getRepoUrl() { return repoUrl; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) {
+        if (FINAL_STATUSES.contains(status)) {
+            this.finishedAt = LocalDateTime.now();
+        }
+        this.status = status;
+    }
+
+    /** When the run reached done, failed or cancelled; null while it is still going. */
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getAnalyzed() { return analyzed.get(); }
+    public void incrementAnalyzed() { analyzed.incrementAndGet(); }
+
+    public int getSkipped() { return skipped.get(); }
+    public void incrementSkipped() { skipped.incrementAndGet(); }
+
+    public int getFailed() { return failed.get(); }
+
+    public synchronized void recordFailure(String sha, String message) {
+        failed.incrementAndGet();
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(sha + ": " + message);
+        }
+    }
+
+    public synchronized List<String> getErrors() { return new ArrayList<>(errors); }
+}
@@ -0,0 +1,38 @@
+package com.inctrl.backend.dto;
+
+public class BackfillRequest {
+    private String repoUrl;
+    // Branch to list from when no explicit head SHA is given; null means the default branch
+    private String branch;
+    // Oldest commit of the range, exclusive; listing stops once it is reached
+    private String fromSha;
+    // Newest commit of the range, inclusive
+    private String toSha;
+    // ISO-8601 date window, e.g. 2025-01-01T00:00:00Z
+    private String since;
+    private String until;
+    private String aiChatLog;
+
+    public BackfillRequest() {}
+
+    public String getRepoUrl() { return repoUrl; }
+    public void setRepoUrl(String repoUrl) { this.repoUrl = repoUrl; }
+
+    public String getBranch() { return branch; }
+    public void setBranch(String branch) { this.branch = branch; }
+
+    public String getFromSha() { return fromSha; }
+    public void setFromSha(String fromSha) { this.fromSha = fromSha; }
+
+    public String getToSha() { return toSha; }
+    public void setToSha(String toSha) { this.toSha = toSha; }
+
+    public String getSince() { return since; }
+    public void setSince(String since) { this.since = since; }
+
+    public String getUntil() { return until; }
+    public void setUntil(String until) { this.until = until; }
+
+    public String getAiChatLog() { return aiChatLog; }
+    public void setAiChatLog(String aiChatLog) { this.aiChatLog = aiChatLog; }
+}
@@ -5,6 +5,8 @@ public class ChatRequest {
     private String commitSha;
     private String question;
     private String aiChatLog;
+    // Returned by /chat/stream in its "session" event; send it back to continue the conversation
+    private String sessionId;
 
     public ChatRequest() {}
 
@@ -19,4 +21,7 @@ public class ChatRequest {
 
     public String getAiChatLog() { return aiChatLog; }
     public void setAiChatLog(String aiChatLog) { this.aiChatLog = aiChatLog; }
+
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
 }
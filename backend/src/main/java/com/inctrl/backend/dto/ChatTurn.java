@@ -0,0 +1,22 @@
+package com.inctrl.backend.dto;
+
+/**
+ * One message of a chat session; role is "user" or "model" as in the Gemini API.
+ */
+public class ChatTurn {
+    private String role;
+    private String text;
+
+    public ChatTurn() {}
+
+    public ChatTurn(String role, String text) {
+        this.role = role;
+        this.text = text;
+    }
+
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+}
@@ -0,0 +1,41 @@
+package com.inctrl.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a GitHub commit the analysis actually uses: identity, message,
+ * author and the changed files with their patches.
+ */
+public class CommitDiff {
+    private String sha;
+    private String message;
+    private String authorName;
+    private String date;
+    private List<FileChange> files = new ArrayList<>();
+
+    public CommitDiff() {}
+
+    public String getSha() { return sha; }
+    public void setSha(String sha) { this.sha = sha; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getAuthorName() { return authorName; }
+    public void setAuthorName(String authorName) { this.authorName = authorName; }
+
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+
+    public List<FileChange> getFiles() { return files; }
+    public void setFiles(List<FileChange> files) { this.files = files; }
+
+    public long getPatchChars() {
+        long total = 0;
+        for (FileChange file : files) {
+            total += file.getPatch() != null ? file.getPatch().length() : 0;
+        }
+        return total;
+    }
+}
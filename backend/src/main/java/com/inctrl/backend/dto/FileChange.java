@@ -0,0 +1,39 @@
+package com.inctrl.backend.dto;
+
+public class FileChange {
+    private String filename;
+    // Set only for renames
+    private String previousFilename;
+    private String status;
+    private int additions;
+    private int deletions;
+    private String patch;
+
+    public FileChange() {}
+
+    public FileChange(String filename, String status, int additions, int deletions, String patch) {
+        this.filename = filename;
+        this.status = status;
+        this.additions = additions;
+        this.deletions = deletions;
+        this.patch = patch;
+    }
+
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+
+    public String getPreviousFilename() { return previousFilename; }
+    public void setPreviousFilename(String previousFilename) { this.previousFilename = previousFilename; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getAdditions() { return additions; }
+    public void setAdditions(int additions) { this.additions = additions; }
+
+    public int getDeletions() { return deletions; }
+    public void setDeletions(int deletions) { this.deletions = deletions; }
+
+    public String getPatch() { return patch; }
+    public void setPatch(String patch) { this.patch = patch; }
+}
@@ -0,0 +1,39 @@
+package com.inctrl.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight history row: everything the history list shows, without the analysis JSON.
+ */
+public class HistoryItem {
+    private String commitSha;
+    private String repoUrl;
+    private String tag;
+    private LocalDateTime createdAt;
+    private String summary;
+
+    public HistoryItem() {}
+
+    public HistoryItem(String commitSha, String repoUrl, String tag, LocalDateTime createdAt, String summary) {
+        this.commitSha = commitSha;
+        this.repoUrl = repoUrl;
+        this.tag = tag;
+        this.createdAt = createdAt;
+        this.summary = summary;
+    }
+
+    public String getCommitSha() { return commitSha; }
+    public void setCommitSha(String commitSha) { this.commitSha = commitSha; }
+
+    public String getRepoUrl() { return repoUrl; }
+    public void setRepoUrl(String repoUrl) { this.repoUrl = repoUrl; }
+
+    public String getTag() { return tag; }
+    public void setTag(String tag) { this.tag = tag; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+}
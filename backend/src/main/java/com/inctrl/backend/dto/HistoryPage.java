@@ -0,0 +1,22 @@
+package com.inctrl.backend.dto;
+
+import java.util.List;
+
+public class HistoryPage {
+    private List<HistoryItem> items;
+    // Opaque cursor for the next page; null when this is the last page
+    private String nextCursor;
+
+    public HistoryPage() {}
+
+    public HistoryPage(List<HistoryItem> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<HistoryItem> getItems() { return items; }
+    public void setItems(List<HistoryItem> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,28 @@
+package com.inctrl.backend.dto;
+
+/**
+ * One section's new note content. version is the note version the edit was based
+ * on; when it is set and the note has moved on since, the edit is rejected.
+ */
+public class NoteEdit {
+    private String section;
+    private String content;
+    private Long version;
+
+    public NoteEdit() {}
+
+    public NoteEdit(String section, String content, Long version) {
+        this.section = section;
+        this.content = content;
+        this.version = version;
+    }
+
+    public String getSection() { return section; }
+    public void setSection(String section) { this.section = section; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
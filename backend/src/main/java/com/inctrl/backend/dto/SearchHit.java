@@ -0,0 +1,47 @@
+package com.inctrl.backend.dto;
+
+import java.util.List;
+
+public class SearchHit {
+    private String commitSha;
+    private String repoUrl;
+    private String tag;
+    private String summary;
+    private List<String> technologies;
+    private String createdAt;
+    private float score;
+
+    public SearchHit() {}
+
+    public SearchHit(String commitSha, String repoUrl, String tag, String summary, List<String> technologies,
+            String createdAt, float score) {
+        this.commitSha = commitSha;
+        this.repoUrl = repoUrl;
+        this.tag = tag;
+        this.summary = summary;
+        this.technologies = technologies;
+        this.createdAt = createdAt;
+        this.score = score;
+    }
+
+    public String getCommitSha() { return commitSha; }
+    public void setCommitSha(String commitSha) { this.commitSha = commitSha; }
+
+    public String getRepoUrl() { return repoUrl; }
+    public void setRepoUrl(String repoUrl) { this.repoUrl = repoUrl; }
+
+    public String getTag() { return tag; }
+    public void setTag(String tag) { this.tag = tag; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+
+    public List<String> getTechnologies() { return technologies; }
+    public void setTechnologies(List<String> technologies) { this.technologies = technologies; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public float getScore() { return score; }
+    public void setScore(float score) { this.score = score; }
+}
@@ -0,0 +1,33 @@
+package com.inctrl.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class SearchResponse {
+    private long total;
+    private long tookMs;
+    private List<SearchHit> hits;
+    // Dimension (tag, repo, technology) -> label -> matching commit count
+    private Map<String, Map<String, Integer>> facets;
+
+    public SearchResponse() {}
+
+    public SearchResponse(long total, long tookMs, List<SearchHit> hits, Map<String, Map<String, Integer>> facets) {
+        this.total = total;
+        this.tookMs = tookMs;
+        this.hits = hits;
+        this.facets = facets;
+    }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public long getTookMs() { return tookMs; }
+    public void setTookMs(long tookMs) { this.tookMs = tookMs; }
+
+    public List<SearchHit> getHits() { return hits; }
+    public void setHits(List<SearchHit> hits) { this.hits = hits; }
+
+    public Map<String, Map<String, Integer>> getFacets() { return facets; }
+    public void setFacets(Map<String, Map<String, Integer>> facets) { this.facets = facets; }
+}
@@ -1,12 +1,22 @@
 package com.inctrl.backend.model;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "audited_commits")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.AUDITED_COMMITS)
+@Table(name = "audited_commits", indexes = @Index(name = "idx_audited_commits_created_sha", columnList = "created_at, commit_sha"))
 public class AuditedCommit {
 
+    public static final int SUMMARY_PREVIEW_LENGTH = 280;
+
+    private static final ObjectMapper SUMMARY_READER = new ObjectMapper();
+
     @Id
     @Column(name = "commit_sha", nullable = false, unique = true)
     private String commitSha;
@@ -14,8 +24,8 @@ public class AuditedCommit {
     @Column(name = "repo_url", nullable = false)
     private String repoUrl;
 
-    @Lob
-    @Column(name = "analysis_json", columnDefinition = "CLOB", nullable = false)
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "analysis_json_gz", columnDefinition = "BLOB")
     private String analysisJson;
 
     @Column(name = "commit_tag")
@@ -24,6 +34,14 @@ public class AuditedCommit {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Short copy of the analysis summary so history listings never read the CLOB
+    @Column(name = "summary", length = SUMMARY_PREVIEW_LENGTH + 3)
+    private String summary;
+
+    // Written by the push webhook before anyone opened the commit; cleared once a user saves it
+    @Column(name = "precomputed", columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private Boolean precomputed;
+
     public AuditedCommit() {}
 
     public AuditedCommit(String commitSha, String repoUrl, String analysisJson, String tag) {
@@ -48,4 +66,35 @@ public class AuditedCommit {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+
+    public boolean isPrecomputed() { return Boolean.TRUE.equals(precomputed); }
+    public void setPrecomputed(boolean precomputed) { this.precomputed = precomputed; }
+
+    /**
+     * Keeps the summary preview in step with analysisJson on every write path.
+     */
+    @PrePersist
+    @PreUpdate
+    void refreshSummary() {
+        this.summary = previewOf(analysisJson);
+    }
+
+    /**
+     * The summary preview of an analysis. Empty rather than null when there is none,
+     * so a row without a usable summary still counts as having its preview filled.
+     */
+    public static String previewOf(String analysisJson) {
+        if (analysisJson == null) {
+            return "";
+        }
+        try {
+            String text = SUMMARY_READER.readTree(analysisJson).path("summary").asText("");
+            return text.length() > SUMMARY_PREVIEW_LENGTH ? text.substring(0, SUMMARY_PREVIEW_LENGTH) + "..." : text;
+        } catch (Exception e) {
+            return "";
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package com.inctrl.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A Gemini analysis result keyed by commit, developer context and prompt version.
+ * Bumping the prompt version naturally invalidates every older entry.
+ */
+@Entity
+@Table(name = "analysis_cache")
+public class CachedAnalysis {
+
+    @Id
+    @Column(name = "cache_key", nullable = false, unique = true)
+    private String cacheKey;
+
+    @Column(name = "commit_key", nullable = false)
+    private String commitKey;
+
+    @Column(name = "prompt_version", nullable = false)
+    private String promptVersion;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "analysis_json_gz", columnDefinition = "BLOB")
+    private String analysisJson;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public CachedAnalysis() {}
+
+    public CachedAnalysis(String cacheKey, String commitKey, String promptVersion, String analysisJson) {
+        this.cacheKey = cacheKey;
+        this.commitKey = commitKey;
+        this.promptVersion = promptVersion;
+        this.analysisJson = analysisJson;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public String getCommitKey() { return commitKey; }
+    public void setCommitKey(String commitKey) { this.commitKey = commitKey; }
+
+    public String getPromptVersion() { return promptVersion; }
+    public void setPromptVersion(String promptVersion) { this.promptVersion = promptVersion; }
+
+    public String getAnalysisJson() { return analysisJson; }
+    public void setAnalysisJson(String analysisJson) { this.analysisJson = analysisJson; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,49 @@
+package com.inctrl.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Disk tier of the commit diff cache. Holds the compact {@code CommitDiffJson}
+ * form of a commit; a commit SHA is immutable, so it never goes stale. The size
+ * in chars is kept beside the gzipped body so eviction never has to inflate it.
+ */
+@Entity
+@Table(name = "commit_diff_cache")
+public class CachedCommitDiff {
+
+    @Id
+    @Column(name = "cache_key", nullable = false, unique = true)
+    private String cacheKey;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "body_gz", columnDefinition = "BLOB")
+    private String body;
+
+    @Column(name = "size_chars")
+    private long sizeChars;
+
+    @Column(name = "fetched_at")
+    private LocalDateTime fetchedAt;
+
+    public CachedCommitDiff() {}
+
+    public CachedCommitDiff(String cacheKey, String body) {
+        this.cacheKey = cacheKey;
+        this.body = body;
+        this.sizeChars = body.length();
+        this.fetchedAt = LocalDateTime.now();
+    }
+
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+
+    public long getSizeChars() { return sizeChars; }
+    public void setSizeChars(long sizeChars) { this.sizeChars = sizeChars; }
+
+    public LocalDateTime getFetchedAt() { return fetchedAt; }
+    public void setFetchedAt(LocalDateTime fetchedAt) { this.fetchedAt = fetchedAt; }
+}
@@ -0,0 +1,49 @@
+package com.inctrl.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Per-file analysis keyed by a normalized hash of the file's patch. The same change
+ * arriving under another SHA (cherry-pick, rebase, merge) reuses it instead of
+ * being sent to Gemini again.
+ */
+@Entity
+@Table(name = "file_insight_cache")
+public class CachedFileInsight {
+
+    @Id
+    @Column(name = "patch_hash", nullable = false, unique = true)
+    private String patchHash;
+
+    @Column(name = "prompt_version", nullable = false)
+    private String promptVersion;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "insight_json_gz", columnDefinition = "BLOB")
+    private String insightJson;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public CachedFileInsight() {}
+
+    public CachedFileInsight(String patchHash, String promptVersion, String insightJson) {
+        this.patchHash = patchHash;
+        this.promptVersion = promptVersion;
+        this.insightJson = insightJson;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getPatchHash() { return patchHash; }
+    public void setPatchHash(String patchHash) { this.patchHash = patchHash; }
+
+    public String getPromptVersion() { return promptVersion; }
+    public void setPromptVersion(String promptVersion) { this.promptVersion = promptVersion; }
+
+    public String getInsightJson() { return insightJson; }
+    public void setInsightJson(String insightJson) { this.insightJson = insightJson; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
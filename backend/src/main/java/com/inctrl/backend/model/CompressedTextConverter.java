@@ -0,0 +1,73 @@
+package com.inctrl.backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores large text columns (LLM JSON, diffs, notes) gzip-compressed. This text is
+ * highly repetitive, so it typically shrinks several times over, and the column
+ * is only inflated when an entity is actually loaded, never by projection queries.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    private static final AtomicLong rawBytesWritten = new AtomicLong();
+    private static final AtomicLong storedBytesWritten = new AtomicLong();
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        byte[] compressed = compress(attribute);
+        rawBytesWritten.addAndGet(attribute.getBytes(StandardCharsets.UTF_8).length);
+        storedBytesWritten.addAndGet(compressed.length);
+        return compressed;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return dbData != null ? decompress(dbData) : null;
+    }
+
+    public static byte[] compress(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress column value", e);
+        }
+        return out.toByteArray();
+    }
+
+    public static String decompress(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress column value", e);
+        }
+    }
+
+    /**
+     * Bytes written through the converter since startup and the resulting ratio.
+     */
+    public static Map<String, Object> getStats() {
+        long raw = rawBytesWritten.get();
+        long stored = storedBytesWritten.get();
+        return Map.of(
+                "rawBytesWritten", raw,
+                "storedBytesWritten", stored,
+                "compressionRatio", stored == 0 ? 0.0 : Math.round(raw * 100.0 / stored) / 100.0);
+    }
+}
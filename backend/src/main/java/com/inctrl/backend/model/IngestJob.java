@@ -0,0 +1,85 @@
+package com.inctrl.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A queued or finished asynchronous ingest. Jobs are persisted so work that was
+ * queued or running when the server stopped is picked up again on restart.
+ */
+@Entity
+@Table(name = "ingest_jobs")
+public class IngestJob {
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    @Id
+    @Column(name = "job_id", nullable = false, unique = true)
+    private String jobId;
+
+    @Column(name = "github_url", nullable = false)
+    private String githubUrl;
+
+    @Lob
+    @Column(name = "ai_chat_log", columnDefinition = "CLOB")
+    private String aiChatLog;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "analysis_json_gz", columnDefinition = "BLOB")
+    private String analysisJson;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+
+    // Queued by the push webhook; on success the analysis is stored as a pre-computed audit
+    @Column(name = "precompute", columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private Boolean precompute;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public IngestJob() {}
+
+    public IngestJob(String jobId, String githubUrl, String aiChatLog) {
+        this.jobId = jobId;
+        this.githubUrl = githubUrl;
+        this.aiChatLog = aiChatLog;
+        this.status = Status.QUEUED;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getGithubUrl() { return githubUrl; }
+    public void setGithubUrl(String githubUrl) { this.githubUrl = githubUrl; }
+
+    public String getAiChatLog() { return aiChatLog; }
+    public void setAiChatLog(String aiChatLog) { this.aiChatLog = aiChatLog; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getAnalysisJson() { return analysisJson; }
+    public void setAnalysisJson(String analysisJson) { this.analysisJson = analysisJson; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public boolean isPrecompute() { return Boolean.TRUE.equals(precompute); }
+    public void setPrecompute(boolean precompute) { this.precompute = precompute; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,8 +1,13 @@
 package com.inctrl.backend.model;
 
+import com.inctrl.backend.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.NOTES)
 @Table(name = "notes", uniqueConstraints = @UniqueConstraint(columnNames={"commit_sha", "section"}))
 public class Note {
 
@@ -16,10 +21,15 @@ public class Note {
     @Column(name = "section", nullable = false)
     private String section;
 
-    @Lob
-    @Column(name = "content", columnDefinition = "CLOB")
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_gz", columnDefinition = "BLOB")
     private String content;
 
+    // Optimistic lock: a save based on an older version fails instead of overwriting a concurrent edit
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
+
     public Note() {}
 
     public Note(String commitSha, String section, String content) {
@@ -39,4 +49,7 @@ public class Note {
 
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
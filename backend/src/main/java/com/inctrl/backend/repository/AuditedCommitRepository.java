@@ -1,12 +1,54 @@
 package com.inctrl.backend.repository;
 
+import com.inctrl.backend.dto.HistoryItem;
 import com.inctrl.backend.model.AuditedCommit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AuditedCommitRepository extends JpaRepository<AuditedCommit, String> {
-    List<AuditedCommit> findAllByOrderByCreatedAtDesc();
+
+    @Query("select new com.inctrl.backend.dto.HistoryItem(c.commitSha, c.repoUrl, c.tag, c.createdAt, c.summary) "
+            + "from AuditedCommit c order by c.createdAt desc, c.commitSha desc")
+    List<HistoryItem> findHistoryFirstPage(Pageable pageable);
+
+    /**
+     * Seek pagination: continues strictly after the (createdAt, commitSha) of the last row
+     * already returned, so the cost of a page does not grow with its depth.
+     */
+    @Query("select new com.inctrl.backend.dto.HistoryItem(c.commitSha, c.repoUrl, c.tag, c.createdAt, c.summary) "
+            + "from AuditedCommit c "
+            + "where c.createdAt < :createdAt or (c.createdAt = :createdAt and c.commitSha < :commitSha) "
+            + "order by c.createdAt desc, c.commitSha desc")
+    List<HistoryItem> findHistoryPageAfter(@Param("createdAt") LocalDateTime createdAt,
+            @Param("commitSha") String commitSha, Pageable pageable);
+
+    @Query("select c.commitSha from AuditedCommit c where c.summary is null")
+    List<String> findShasWithoutSummary();
+
+    boolean existsByRepoUrl(String repoUrl);
+
+    /**
+     * One row per (audit, note) pair of a repository, oldest audit first, with a null
+     * note for audits that have none. Rows for the same audit are adjacent. Must be
+     * consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            // A whole-repository export must not flush the second-level cache of recently viewed audits
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE") })
+    @Query("select c, n from AuditedCommit c left join Note n on n.commitSha = c.commitSha "
+            + "where c.repoUrl = :repoUrl order by c.createdAt, c.commitSha, n.section")
+    Stream<Object[]> streamReportRows(@Param("repoUrl") String repoUrl);
 }
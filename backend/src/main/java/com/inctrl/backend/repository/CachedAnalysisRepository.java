@@ -0,0 +1,9 @@
+package com.inctrl.backend.repository;
+
+import com.inctrl.backend.model.CachedAnalysis;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CachedAnalysisRepository extends JpaRepository<CachedAnalysis, String> {
+}
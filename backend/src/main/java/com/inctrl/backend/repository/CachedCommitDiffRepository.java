@@ -0,0 +1,33 @@
+package com.inctrl.backend.repository;
+
+import com.inctrl.backend.model.CachedCommitDiff;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CachedCommitDiffRepository extends JpaRepository<CachedCommitDiff, String> {
+
+    @Query("select coalesce(sum(c.sizeChars), 0) from CachedCommitDiff c")
+    long sumSizeChars();
+
+    /**
+     * Returns only the keys and sizes of the oldest entries, as (cacheKey, sizeChars)
+     * pairs, so eviction never loads the diff bodies.
+     */
+    @Query("select c.cacheKey, c.sizeChars from CachedCommitDiff c order by c.fetchedAt asc, c.cacheKey asc")
+    List<Object[]> findOldestKeysAndSizes(Pageable pageable);
+
+    // Bulk delete, so evicted bodies are never read and inflated just to be removed
+    @Transactional
+    @Modifying
+    @Query("delete from CachedCommitDiff c where c.cacheKey in :keys")
+    int deleteByCacheKeys(@Param("keys") Collection<String> keys);
+}
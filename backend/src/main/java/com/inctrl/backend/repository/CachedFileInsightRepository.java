@@ -0,0 +1,26 @@
+package com.inctrl.backend.repository;
+
+import com.inctrl.backend.model.CachedFileInsight;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CachedFileInsightRepository extends JpaRepository<CachedFileInsight, String> {
+
+    // Keys only, so eviction never inflates the insights it is about to drop
+    @Query("select c.patchHash from CachedFileInsight c order by c.createdAt asc, c.patchHash asc")
+    List<String> findOldestHashes(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CachedFileInsight c where c.patchHash in :hashes")
+    int deleteByPatchHashes(@Param("hashes") Collection<String> hashes);
+}
@@ -0,0 +1,25 @@
+package com.inctrl.backend.repository;
+
+import com.inctrl.backend.model.IngestJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IngestJobRepository extends JpaRepository<IngestJob, String> {
+    List<IngestJob> findByStatusInOrderByCreatedAtAsc(Collection<IngestJob.Status> statuses);
+
+    // Bulk delete, so the CLOBs of old jobs are never loaded just to be removed
+    @Transactional
+    @Modifying
+    @Query("delete from IngestJob j where j.status in :statuses and j.updatedAt < :cutoff")
+    int deleteFinishedBefore(@Param("statuses") Collection<IngestJob.Status> statuses,
+            @Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,13 +1,27 @@
 package com.inctrl.backend.repository;
 
+import com.inctrl.backend.config.SecondLevelCacheConfig;
 import com.inctrl.backend.model.Note;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
     Optional<Note> findByCommitSha(String commitSha);
-    Optional<Note> findByCommitShaAndSection(String commitSha, String section);
+
+    /**
+     * Cached: the analysis view and every note write read all sections of the same
+     * few commits over and over. Results are dropped whenever the notes table is
+     * written through JPA.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.NOTE_QUERIES) })
+    List<Note> findAllByCommitSha(String commitSha);
 }
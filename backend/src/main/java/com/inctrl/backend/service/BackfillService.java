@@ -0,0 +1,249 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.BackfillProgress;
+import com.inctrl.backend.dto.BackfillRequest;
+import com.inctrl.backend.dto.CommitInfo;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Audits every commit in a range (branch, SHA range or date window) in the
+ * background. Diff fetches and Gemini calls run with bounded concurrency, pause
+ * when the GitHub budget runs low, back off on Gemini 429/503 responses, and
+ * results are written to the history table in batches. Progress of a finished
+ * run is kept for {@code inctrl.backfill.run-retention}, then dropped.
+ */
+@Service
+public class BackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackfillService.class);
+    private static final int PAGE_SIZE = 100;
+
+    private final CommitSources commitSources;
+    private final CommitAnalysisService commitAnalysisService;
+    private final AuditedCommitRepository auditedCommitRepository;
+    private final GitHubRateLimiter rateLimiter;
+    private final SearchIndexService searchIndexService;
+    private final Counter retries;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+
+    private final int batchSize;
+    private final int maxCommits;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final Duration runRetention;
+
+    private final Map<String, BackfillProgress> runs = new ConcurrentHashMap<>();
+
+    public BackfillService(CommitSources commitSources, CommitAnalysisService commitAnalysisService,
+            AuditedCommitRepository auditedCommitRepository, GitHubRateLimiter rateLimiter,
+            SearchIndexService searchIndexService, MeterRegistry meterRegistry,
+            @Qualifier("backfillExecutor") ExecutorService coordinator,
+            @Qualifier("backfillWorkerExecutor") ExecutorService workers,
+            @Value("${inctrl.backfill.batch-size:20}") int batchSize,
+            @Value("${inctrl.backfill.max-commits:5000}") int maxCommits,
+            @Value("${inctrl.backfill.max-attempts:5}") int maxAttempts,
+            @Value("${inctrl.backfill.base-backoff-ms:2000}") long baseBackoffMs,
+            @Value("${inctrl.backfill.run-retention:1d}") Duration runRetention) {
+        this.commitSources = commitSources;
+        this.commitAnalysisService = commitAnalysisService;
+        this.auditedCommitRepository = auditedCommitRepository;
+        this.rateLimiter = rateLimiter;
+        this.searchIndexService = searchIndexService;
+        this.retries = Counter.builder("inctrl.backfill.retries").register(meterRegistry);
+        this.coordinator = coordinator;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxCommits = maxCommits;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.runRetention = runRetention;
+    }
+
+    public BackfillProgress start(BackfillRequest request) {
+        if (request.getRepoUrl() == null || !commitSources.supports(request.getRepoUrl())) {
+            throw new IllegalArgumentException(
+                    "Invalid GitHub Repository URL. Please provide a URL like: https://github.com/owner/repo");
+        }
+        purgeFinishedRuns();
+        BackfillProgress progress = new BackfillProgress(UUID.randomUUID().toString(), request.getRepoUrl());
+        runs.put(progress.getBackfillId(), progress);
+        coordinator.execute(() -> run(request, progress));
+        return progress;
+    }
+
+    public Optional<BackfillProgress> find(String backfillId) {
+        return Optional.ofNullable(runs.get(backfillId));
+    }
+
+    /**
+     * Drops the progress of runs that finished before the retention window. Runs
+     * are few, so this piggy-backs on each new start.
+     */
+    private void purgeFinishedRuns() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(runRetention);
+        runs.values().removeIf(run -> run.getFinishedAt() != null && !run.getFinishedAt().isAfter(cutoff));
+    }
+
+    private void run(BackfillRequest request, BackfillProgress progress) {
+        try {
+            progress.setStatus("listing");
+            List<String> shas = listRange(request, progress);
+            progress.setTotal(shas.size());
+            progress.setStatus("running");
+
+            String repoBase = request.getRepoUrl().replaceAll("/+$", "").replaceAll("\\.git$", "");
+            ExecutorCompletionService<AuditedCommit> completion = new ExecutorCompletionService<>(workers);
+            for (String sha : shas) {
+                completion.submit(() -> {
+                    try {
+                        // Opened and saved by a user since the range was listed
+                        if (auditedCommitRepository.existsById(sha)) {
+                            progress.incrementSkipped();
+                            return null;
+                        }
+                        String analysis = analyzeWithBackoff(repoBase + "/commit/" + sha, request.getAiChatLog());
+                        return new AuditedCommit(sha, repoBase, analysis, null);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        progress.recordFailure(sha, "Interrupted");
+                        return null;
+                    } catch (RuntimeException e) {
+                        progress.recordFailure(sha, String.valueOf(e.getMessage()));
+                        return null;
+                    }
+                });
+            }
+
+            List<AuditedCommit> batch = new ArrayList<>(batchSize);
+            for (String ignored : shas) {
+                AuditedCommit audited = completion.take().get();
+                // A user's save during the analysis wins; saveAll would overwrite their tag
+                if (audited != null && auditedCommitRepository.existsById(audited.getCommitSha())) {
+                    progress.incrementSkipped();
+                } else if (audited != null) {
+                    batch.add(audited);
+                    progress.incrementAnalyzed();
+                }
+                if (batch.size() >= batchSize) {
+                    searchIndexService.indexCommits(auditedCommitRepository.saveAll(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                searchIndexService.indexCommits(auditedCommitRepository.saveAll(batch));
+            }
+            progress.setStatus("done");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.setStatus("cancelled");
+        } catch (Exception e) {
+            log.warn("Back-fill {} failed: {}", progress.getBackfillId(), e.getMessage());
+            progress.recordFailure("range", String.valueOf(e.getMessage()));
+            progress.setStatus("failed");
+        }
+    }
+
+    /**
+     * Pages through the commit list newest-first and collects SHAs that have not
+     * been audited yet, stopping at fromSha (exclusive) or the configured cap.
+     */
+    private List<String> listRange(BackfillRequest request, BackfillProgress progress) throws InterruptedException {
+        String ref = request.getToSha() != null ? request.getToSha() : request.getBranch();
+        String fromSha = request.getFromSha();
+        boolean local = commitSources.isLocal(request.getRepoUrl());
+        List<String> shas = new ArrayList<>();
+
+        for (int page = 1; shas.size() < maxCommits; page++) {
+            if (!local) {
+                rateLimiter.acquireBackground();
+            }
+            List<CommitInfo> commits = commitSources.fetchCommitList(request.getRepoUrl(), page, PAGE_SIZE,
+                    ref, request.getSince(), request.getUntil());
+
+            for (CommitInfo commit : commits) {
+                if (fromSha != null && commit.getSha().startsWith(fromSha)) {
+                    return shas;
+                }
+                if (auditedCommitRepository.existsById(commit.getSha())) {
+                    progress.incrementSkipped();
+                } else if (shas.size() < maxCommits) {
+                    shas.add(commit.getSha());
+                }
+            }
+            if (commits.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        return shas;
+    }
+
+    private String analyzeWithBackoff(String commitUrl, String aiChatLog) throws InterruptedException {
+        // Commits read from a local clone spend no GitHub budget
+        boolean local = commitSources.isLocal(commitUrl);
+        for (int attempt = 1;; attempt++) {
+            if (!local) {
+                rateLimiter.acquireBackground();
+            }
+            try {
+                return commitAnalysisService.analyze(commitUrl, aiChatLog);
+            } catch (RuntimeException e) {
+                long delay = backoffDelay(e, attempt);
+                if (delay < 0 || attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.info("Upstream throttled on {}, retrying in {} ms (attempt {})", commitUrl, delay, attempt);
+                retries.increment();
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Returns how long to wait before retrying, or -1 if the failure is not a
+     * throttling response. Honors Retry-After, otherwise backs off exponentially with jitter.
+     * While Gemini's circuit is open, waits until it lets a trial call through.
+     */
+    private long backoffDelay(Throwable error, int attempt) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof UpstreamUnavailableException unavailable) {
+                return Math.max(unavailable.getRetryAfterMillis(), baseBackoffMs);
+            }
+            if (t instanceof HttpStatusCodeException statusError
+                    && (statusError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                            || statusError.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE))) {
+                String retryAfter = statusError.getResponseHeaders() != null
+                        ? statusError.getResponseHeaders().getFirst("Retry-After")
+                        : null;
+                if (retryAfter != null && retryAfter.matches("\\d+")) {
+                    return Long.parseLong(retryAfter) * 1000;
+                }
+                long exponential = baseBackoffMs << Math.min(attempt - 1, 10);
+                return exponential + ThreadLocalRandom.current().nextLong(baseBackoffMs);
+            }
+        }
+        return -1;
+    }
+}
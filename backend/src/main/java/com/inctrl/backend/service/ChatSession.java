@@ -0,0 +1,54 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.ChatTurn;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-side state of one commit conversation. Guarded by its own monitor;
+ * {@link ChatSessionService} runs one turn at a time per session.
+ */
+public class ChatSession {
+
+    private final String id;
+    private final String commitKey;
+    private final String githubUrl;
+    private final String aiChatLog;
+    private final List<ChatTurn> history = new ArrayList<>();
+
+    private String cachedContentName;
+    private Instant cacheExpiresAt;
+    // Set once caching has been tried and failed, so we do not retry it every turn
+    private boolean cacheUnavailable;
+    private volatile Instant lastUsed = Instant.now();
+
+    ChatSession(String id, String commitKey, String githubUrl, String aiChatLog) {
+        this.id = id;
+        this.commitKey = commitKey;
+        this.githubUrl = githubUrl;
+        this.aiChatLog = aiChatLog;
+    }
+
+    public String getId() { return id; }
+    public String getCommitKey() { return commitKey; }
+
+    String getGithubUrl() { return githubUrl; }
+    String getAiChatLog() { return aiChatLog; }
+    List<ChatTurn> getHistory() { return history; }
+
+    String getCachedContentName() { return cachedContentName; }
+    Instant getCacheExpiresAt() { return cacheExpiresAt; }
+
+    void setCachedContent(String name, Instant expiresAt) {
+        this.cachedContentName = name;
+        this.cacheExpiresAt = expiresAt;
+    }
+
+    boolean isCacheUnavailable() { return cacheUnavailable; }
+    void setCacheUnavailable(boolean cacheUnavailable) { this.cacheUnavailable = cacheUnavailable; }
+
+    Instant getLastUsed() { return lastUsed; }
+    void touch() { lastUsed = Instant.now(); }
+}
@@ -0,0 +1,236 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.ChatTurn;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Multi-turn chat about a commit. Each session keeps its recent turns and, for
+ * diffs large enough to be worth it, uploads the diff and developer context once
+ * as a Gemini cached content; later turns then send only the history and the new
+ * question. Sessions are bounded in number and length and dropped when idle.
+ */
+@Service
+public class ChatSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatSessionService.class);
+    // Recreate the cache a little before Gemini expires it rather than failing mid-turn
+    private static final Duration CACHE_REFRESH_MARGIN = Duration.ofSeconds(30);
+
+    private final CommitSources commitSources;
+    private final GeminiService geminiService;
+    private final Executor cleanupExecutor;
+    private final int maxSessions;
+    private final int maxTurns;
+    private final Duration idleTimeout;
+    private final int cacheMinChars;
+
+    private final Map<String, ChatSession> sessions = new ConcurrentHashMap<>();
+
+    public ChatSessionService(CommitSources commitSources, GeminiService geminiService,
+            @Qualifier("chatStreamExecutor") Executor cleanupExecutor, MeterRegistry meterRegistry,
+            @Value("${inctrl.chat.max-sessions:200}") int maxSessions,
+            @Value("${inctrl.chat.max-turns:20}") int maxTurns,
+            @Value("${inctrl.chat.idle-timeout:30m}") Duration idleTimeout,
+            @Value("${inctrl.chat.cache-min-chars:8000}") int cacheMinChars) {
+        this.commitSources = commitSources;
+        this.geminiService = geminiService;
+        this.cleanupExecutor = cleanupExecutor;
+        this.maxSessions = maxSessions;
+        this.maxTurns = maxTurns;
+        this.idleTimeout = idleTimeout;
+        this.cacheMinChars = cacheMinChars;
+        Gauge.builder("inctrl.chat.sessions", sessions, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the caller's session when it exists and belongs to the same commit,
+     * otherwise starts a new one.
+     */
+    public ChatSession open(String sessionId, String githubUrl, String aiChatLog) {
+        String commitKey = commitSources.resolveCommitKey(githubUrl);
+        evictIdle();
+
+        if (sessionId != null) {
+            ChatSession existing = sessions.get(sessionId);
+            if (existing != null && existing.getCommitKey().equals(commitKey)) {
+                existing.touch();
+                return existing;
+            }
+        }
+
+        ChatSession session = new ChatSession(UUID.randomUUID().toString(), commitKey, githubUrl, aiChatLog);
+        sessions.put(session.getId(), session);
+        evictOverflow();
+        return session;
+    }
+
+    /**
+     * Answers the next question in the session, streaming fragments to {@code onChunk}.
+     */
+    public String ask(ChatSession session, String question, Consumer<String> onChunk) {
+        synchronized (session) {
+            session.touch();
+            String cachedContent = ensureCache(session);
+
+            String answer;
+            AtomicBoolean streamed = new AtomicBoolean();
+            Consumer<String> tracking = chunk -> {
+                streamed.set(true);
+                onChunk.accept(chunk);
+            };
+            try {
+                answer = cachedContent != null
+                        ? geminiService.streamChatTurn(cachedContent, null, session.getHistory(), question, tracking)
+                        : streamInline(session, question, tracking);
+            } catch (RuntimeException e) {
+                if (cachedContent == null || streamed.get() || !isMissingCache(e)) {
+                    throw e;
+                }
+                // The cache expired or was deleted upstream; answer this turn inline and recreate it next turn
+                log.info("Cached content {} is gone, falling back to inline context", cachedContent);
+                session.setCachedContent(null, null);
+                answer = streamInline(session, question, tracking);
+            }
+
+            List<ChatTurn> history = session.getHistory();
+            history.add(new ChatTurn("user", question));
+            history.add(new ChatTurn("model", answer));
+            while (history.size() > maxTurns * 2) {
+                // Drop the oldest question/answer pair
+                history.remove(0);
+                history.remove(0);
+            }
+            session.touch();
+            return answer;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long cached = sessions.values().stream().filter(s -> s.getCachedContentName() != null).count();
+        return Map.of("sessions", sessions.size(), "withCachedContent", cached);
+    }
+
+    private String streamInline(ChatSession session, String question, Consumer<String> onChunk) {
+        String diff = commitSources.fetchCommitDetails(session.getGithubUrl());
+        String context = GeminiService.buildChatContext(diff, session.getAiChatLog());
+        return geminiService.streamChatTurn(null, context, session.getHistory(), question, onChunk);
+    }
+
+    /**
+     * Returns a live cached content for the session, creating or refreshing it as
+     * needed, or null when the context is sent inline instead.
+     */
+    private String ensureCache(ChatSession session) {
+        if (session.isCacheUnavailable()) {
+            return null;
+        }
+        Instant now = Instant.now();
+        if (session.getCachedContentName() != null
+                && now.isBefore(session.getCacheExpiresAt().minus(CACHE_REFRESH_MARGIN))) {
+            return session.getCachedContentName();
+        }
+        String stale = session.getCachedContentName();
+        session.setCachedContent(null, null);
+        if (stale != null) {
+            deleteQuietly(stale);
+        }
+
+        String diff = commitSources.fetchCommitDetails(session.getGithubUrl());
+        if (diff.length() < cacheMinChars) {
+            // Gemini rejects caches below its minimum token count, and small prompts gain little
+            session.setCacheUnavailable(true);
+            return null;
+        }
+        try {
+            String name = geminiService.createChatCache(diff, session.getAiChatLog(), idleTimeout);
+            session.setCachedContent(name, now.plus(idleTimeout));
+            return name;
+        } catch (RuntimeException e) {
+            log.info("Chat context caching unavailable for {}, sending it inline: {}", session.getCommitKey(),
+                    e.getMessage());
+            session.setCacheUnavailable(true);
+            return null;
+        }
+    }
+
+    private static boolean isMissingCache(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpStatusCodeException statusError) {
+                return statusError.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)
+                        || statusError.getStatusCode().isSameCodeAs(HttpStatus.BAD_REQUEST)
+                        || statusError.getStatusCode().isSameCodeAs(HttpStatus.FORBIDDEN);
+            }
+        }
+        return false;
+    }
+
+    private void evictIdle() {
+        Instant cutoff = Instant.now().minus(idleTimeout);
+        sessions.values().removeIf(session -> {
+            if (session.getLastUsed().isBefore(cutoff)) {
+                release(session);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void evictOverflow() {
+        int overflow = sessions.size() - maxSessions;
+        if (overflow <= 0) {
+            return;
+        }
+        List<ChatSession> oldest = new ArrayList<>(sessions.values());
+        oldest.sort(Comparator.comparing(ChatSession::getLastUsed));
+        for (ChatSession session : oldest.subList(0, Math.min(overflow, oldest.size()))) {
+            if (sessions.remove(session.getId(), session)) {
+                release(session);
+            }
+        }
+    }
+
+    private void release(ChatSession session) {
+        String name = session.getCachedContentName();
+        if (name != null) {
+            deleteQuietly(name);
+        }
+    }
+
+    /**
+     * Deletes a cached content in the background; if that fails, its TTL removes it anyway.
+     */
+    private void deleteQuietly(String cachedContentName) {
+        try {
+            cleanupExecutor.execute(() -> {
+                try {
+                    geminiService.deleteChatCache(cachedContentName);
+                } catch (Exception e) {
+                    log.debug("Failed to delete {}: {}", cachedContentName, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Skipped deleting {}; it will expire on its own", cachedContentName);
+        }
+    }
+}
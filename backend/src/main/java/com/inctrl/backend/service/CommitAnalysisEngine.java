@@ -0,0 +1,228 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.FileChange;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Decides how a commit is sent to Gemini. Small commits go out in a single prompt.
+ * Large commits are split into groups of files that are analyzed concurrently
+ * (map) and then merged into the usual analysis shape (reduce), so latency grows
+ * with the largest group rather than with the whole diff.
+ * <p>
+ * Per-file insights are kept in {@link FileInsightStore}. When some files of a
+ * commit were already analyzed, under any SHA, only the others are mapped and the
+ * stored insights go straight into the reduce step. A new developer context on an
+ * already analyzed commit therefore costs a single reduce call.
+ * <p>
+ * Files still to be sent pass through {@link DiffBudgeter} first. The files it did
+ * not send whole are listed under "prunedFiles" in the result.
+ */
+@Service
+public class CommitAnalysisEngine {
+
+    private final GeminiService geminiService;
+    private final FileInsightStore fileInsightStore;
+    private final DiffBudgeter diffBudgeter;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final int singlePassMaxChars;
+    private final int groupMaxChars;
+
+    public CommitAnalysisEngine(GeminiService geminiService, FileInsightStore fileInsightStore,
+            DiffBudgeter diffBudgeter, @Qualifier("analysisMapExecutor") ExecutorService executor,
+            @Value("${inctrl.analysis.single-pass-max-chars:60000}") int singlePassMaxChars,
+            @Value("${inctrl.analysis.group-max-chars:30000}") int groupMaxChars) {
+        this.geminiService = geminiService;
+        this.fileInsightStore = fileInsightStore;
+        this.diffBudgeter = diffBudgeter;
+        this.objectMapper = new ObjectMapper();
+        this.executor = executor;
+        this.singlePassMaxChars = singlePassMaxChars;
+        this.groupMaxChars = groupMaxChars;
+    }
+
+    /**
+     * Analyzes a commit and returns the analysis JSON string.
+     */
+    public String analyze(CommitDiff commit, String developerContext) {
+        List<FileChange> files = commit.getFiles();
+        Map<Integer, ObjectNode> known = fileInsightStore.lookup(files);
+        ArrayNode fileInsights = objectMapper.createArrayNode();
+        List<FileChange> unseen = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            if (known.containsKey(i)) {
+                fileInsights.add(known.get(i));
+            } else {
+                unseen.add(files.get(i));
+            }
+        }
+
+        // Trim what goes into the prompt; only insights from whole files are worth keeping
+        DiffBudgeter.Budgeted budgeted = diffBudgeter.apply(unseen);
+        Set<String> prunedNames = new HashSet<>();
+        budgeted.pruned().forEach(p -> prunedNames.add(p.filename()));
+        List<FileChange> storable = unseen.stream().filter(f -> !prunedNames.contains(f.getFilename())).toList();
+
+        if (known.isEmpty() && (files.size() <= 1 || patchChars(budgeted.files()) <= singlePassMaxChars)) {
+            String analysis = geminiService.analyzeCommit(CommitDiffJson.write(withFiles(commit, budgeted.files())),
+                    developerContext);
+            // The developer context colours the per-file entries, so only context-free ones are reused
+            if (developerContext == null || developerContext.isBlank()) {
+                storeFileInsights(storable, analysis);
+            }
+            return withPrunedFiles(analysis, budgeted.pruned());
+        }
+
+        String message = commit.getMessage() != null ? commit.getMessage() : "";
+        List<ArrayNode> groups = groupFiles(budgeted.files());
+
+        // Map: analyze every group concurrently on the bounded pool
+        List<CompletableFuture<JsonNode>> futures = new ArrayList<>();
+        for (ArrayNode group : groups) {
+            futures.add(CompletableFuture.supplyAsync(() -> analyzeGroup(message, group), executor));
+        }
+
+        ArrayNode mapped = objectMapper.createArrayNode();
+        try {
+            for (CompletableFuture<JsonNode> future : futures) {
+                JsonNode groupFiles = future.join().path("files");
+                if (groupFiles.isArray()) {
+                    mapped.addAll((ArrayNode) groupFiles);
+                }
+            }
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        fileInsightStore.store(storable, mapped);
+        fileInsights.addAll(mapped);
+
+        // Reduce: merge the per-file insights into the commit-level shape
+        try {
+            String merged = geminiService.reduceFileAnalyses(message,
+                    objectMapper.writeValueAsString(fileInsights), developerContext);
+            ObjectNode result = (ObjectNode) objectMapper.readTree(merged);
+            result.set("files", fileInsights);
+            if (!budgeted.pruned().isEmpty()) {
+                result.set("prunedFiles", objectMapper.valueToTree(budgeted.pruned()));
+            }
+            return objectMapper.writeValueAsString(result);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to merge file analyses: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Keeps the per-file entries of a single-pass analysis so later commits with the
+     * same file changes can skip them.
+     */
+    private void storeFileInsights(List<FileChange> files, String analysis) {
+        try {
+            fileInsightStore.store(files, objectMapper.readTree(analysis).path("files"));
+        } catch (Exception e) {
+            // Not valid JSON; the caller gets the analysis as is and nothing is stored
+        }
+    }
+
+    /**
+     * Adds the list of files that were not sent whole to a single-pass analysis.
+     */
+    private String withPrunedFiles(String analysis, List<DiffBudgeter.PrunedFile> pruned) {
+        if (pruned.isEmpty()) {
+            return analysis;
+        }
+        try {
+            ObjectNode result = (ObjectNode) objectMapper.readTree(analysis);
+            result.set("prunedFiles", objectMapper.valueToTree(pruned));
+            return objectMapper.writeValueAsString(result);
+        } catch (Exception e) {
+            return analysis;
+        }
+    }
+
+    private static CommitDiff withFiles(CommitDiff commit, List<FileChange> files) {
+        CommitDiff trimmed = new CommitDiff();
+        trimmed.setSha(commit.getSha());
+        trimmed.setMessage(commit.getMessage());
+        trimmed.setAuthorName(commit.getAuthorName());
+        trimmed.setDate(commit.getDate());
+        trimmed.setFiles(files);
+        return trimmed;
+    }
+
+    private static long patchChars(List<FileChange> files) {
+        long total = 0;
+        for (FileChange file : files) {
+            total += file.getPatch() != null ? file.getPatch().length() : 0;
+        }
+        return total;
+    }
+
+    private JsonNode analyzeGroup(String message, ArrayNode group) {
+        try {
+            String response = geminiService.analyzeFileGroup(message, objectMapper.writeValueAsString(group));
+            return objectMapper.readTree(response);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse file group analysis: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Packs files into groups of at most groupMaxChars of patch text, keeping only
+     * the fields the model needs. A single oversized patch is truncated to fit.
+     */
+    List<ArrayNode> groupFiles(List<FileChange> files) {
+        List<ArrayNode> groups = new ArrayList<>();
+        ArrayNode current = objectMapper.createArrayNode();
+        int currentChars = 0;
+
+        for (FileChange file : files) {
+            String patch = file.getPatch() != null ? file.getPatch() : "";
+            if (patch.length() > groupMaxChars) {
+                patch = patch.substring(0, groupMaxChars) + "\n... [patch truncated]";
+            }
+
+            ObjectNode slim = objectMapper.createObjectNode();
+            slim.put("filename", file.getFilename());
+            slim.put("status", file.getStatus());
+            slim.put("additions", file.getAdditions());
+            slim.put("deletions", file.getDeletions());
+            slim.put("patch", patch);
+
+            if (currentChars > 0 && currentChars + patch.length() > groupMaxChars) {
+                groups.add(current);
+                current = objectMapper.createArrayNode();
+                currentChars = 0;
+            }
+            current.add(slim);
+            currentChars += patch.length();
+        }
+        if (!current.isEmpty()) {
+            groups.add(current);
+        }
+        return groups;
+    }
+}
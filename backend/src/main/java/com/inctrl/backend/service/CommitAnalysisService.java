@@ -0,0 +1,131 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.model.CachedAnalysis;
+import com.inctrl.backend.repository.CachedAnalysisRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the fetch + analyze pipeline for a commit, backed by a persistent
+ * analysis cache. Concurrent requests for the same commit and context share a
+ * single upstream Gemini call instead of each starting their own.
+ */
+@Service
+public class CommitAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitAnalysisService.class);
+
+    private final CommitSources commitSources;
+    private final CommitAnalysisEngine analysisEngine;
+    private final CachedAnalysisRepository cacheRepository;
+    private final Counter cacheHits;
+    private final Counter coalescedRequests;
+    private final Counter cacheMisses;
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public CommitAnalysisService(CommitSources commitSources, CommitAnalysisEngine analysisEngine,
+            CachedAnalysisRepository cacheRepository, MeterRegistry meterRegistry) {
+        this.commitSources = commitSources;
+        this.analysisEngine = analysisEngine;
+        this.cacheRepository = cacheRepository;
+        this.cacheHits = Counter.builder("inctrl.cache.analysis.lookups").tag("result", "hit").register(meterRegistry);
+        this.coalescedRequests = Counter.builder("inctrl.cache.analysis.lookups").tag("result", "coalesced")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("inctrl.cache.analysis.lookups").tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the analysis JSON for a commit URL, reusing a stored result when the
+     * same commit was already analyzed with the same developer context and prompt.
+     */
+    public String analyze(String githubUrl, String aiChatLog) {
+        String commitKey = commitSources.resolveCommitKey(githubUrl);
+        String cacheKey = cacheKey(commitKey, aiChatLog);
+
+        Optional<CachedAnalysis> stored = cacheRepository.findById(cacheKey);
+        if (stored.isPresent()) {
+            cacheHits.increment();
+            return stored.get().getAnalysisJson();
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(cacheKey, mine);
+        if (existing != null) {
+            // Someone else is already asking Gemini about this exact input; wait for them
+            coalescedRequests.increment();
+            return await(existing);
+        }
+
+        try {
+            // A request that finished between our lookup and registering may have stored it already
+            Optional<CachedAnalysis> raced = cacheRepository.findById(cacheKey);
+            if (raced.isPresent()) {
+                cacheHits.increment();
+                mine.complete(raced.get().getAnalysisJson());
+                return raced.get().getAnalysisJson();
+            }
+
+            cacheMisses.increment();
+            CommitDiff commit = commitSources.fetchCommitDiff(githubUrl);
+            String analysis = analysisEngine.analyze(commit, aiChatLog);
+            store(cacheKey, commitKey, analysis);
+            mine.complete(analysis);
+            return analysis;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    private void store(String cacheKey, String commitKey, String analysis) {
+        try {
+            cacheRepository.save(new CachedAnalysis(cacheKey, commitKey, GeminiService.PROMPT_VERSION, analysis));
+        } catch (Exception e) {
+            // A lost cache write only means the next request pays for a fresh analysis
+            log.warn("Failed to cache analysis for {}: {}", commitKey, e.getMessage());
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    static String cacheKey(String commitKey, String aiChatLog) {
+        String context = aiChatLog != null ? aiChatLog.trim() : "";
+        return sha256(commitKey + "\n" + GeminiService.PROMPT_VERSION + "\n" + sha256(context));
+    }
+
+    static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.CachedCommitDiff;
+import com.inctrl.backend.repository.CachedCommitDiffRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache for commit diffs in the compact {@link CommitDiffJson} form,
+ * keyed by owner/repo/sha. Tier one is an in-memory LRU, tier two is an H2
+ * table that survives restarts and drops its oldest entries first; both are
+ * bounded by the total chars they hold. Commits are immutable, so entries never
+ * need refreshing.
+ */
+@Service
+public class CommitDiffCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitDiffCache.class);
+
+    // Disk keys carry the body format. Rows holding raw GitHub responses from before the
+    // compact format have no prefix, are never read again and age out through trimDisk.
+    private static final String DISK_KEY_PREFIX = "compact/";
+
+    private final CachedCommitDiffRepository repository;
+    private final long maxMemoryChars;
+    private final long maxDiskChars;
+
+    // Access-ordered map gives LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryChars = 0;
+
+    // Running total of size_chars on disk, loaded on first write; guarded by diskLock
+    private final Object diskLock = new Object();
+    private long diskChars = -1;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CommitDiffCache(CachedCommitDiffRepository repository,
+            @Value("${inctrl.cache.diff.memory-max-chars:50000000}") long maxMemoryChars,
+            @Value("${inctrl.cache.diff.disk-max-chars:500000000}") long maxDiskChars,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.maxMemoryChars = maxMemoryChars;
+        this.maxDiskChars = maxDiskChars;
+
+        // Hit ratio = (memory_hit + disk_hit) / all results
+        FunctionCounter.builder("inctrl.cache.diff.lookups", memoryHits, AtomicLong::get)
+                .tag("result", "memory_hit").register(meterRegistry);
+        FunctionCounter.builder("inctrl.cache.diff.lookups", diskHits, AtomicLong::get)
+                .tag("result", "disk_hit").register(meterRegistry);
+        FunctionCounter.builder("inctrl.cache.diff.lookups", misses, AtomicLong::get)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("inctrl.cache.diff.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("inctrl.cache.diff.memory.size", this, CommitDiffCache::memoryCharsSnapshot)
+                .baseUnit("chars").register(meterRegistry);
+    }
+
+    private synchronized long memoryCharsSnapshot() {
+        return memoryChars;
+    }
+
+    public static String key(String owner, String repo, String sha) {
+        return (owner + "/" + repo + "/" + sha).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Looks the commit up in memory first, then on disk. A disk hit is promoted
+     * back into the memory tier.
+     */
+    public Optional<String> get(String key) {
+        synchronized (this) {
+            String cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return Optional.of(cached);
+            }
+        }
+
+        Optional<String> stored = repository.findById(DISK_KEY_PREFIX + key).map(CachedCommitDiff::getBody);
+        if (stored.isPresent()) {
+            diskHits.incrementAndGet();
+            putInMemory(key, stored.get());
+        } else {
+            misses.incrementAndGet();
+        }
+        return stored;
+    }
+
+    /**
+     * Presence check that leaves the hit/miss counters and LRU order alone, for
+     * prefetching that only wants to know whether a fetch is needed.
+     */
+    public boolean contains(String key) {
+        synchronized (this) {
+            if (memory.containsKey(key)) {
+                return true;
+            }
+        }
+        return repository.existsById(DISK_KEY_PREFIX + key);
+    }
+
+    public void put(String key, String body) {
+        if (body == null) {
+            return;
+        }
+        putInMemory(key, body);
+        try {
+            repository.save(new CachedCommitDiff(DISK_KEY_PREFIX + key, body));
+            trimDisk(body.length());
+        } catch (Exception e) {
+            // The disk tier is best-effort; a failed write only costs a future refetch
+            log.warn("Failed to persist commit diff {}: {}", key, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        synchronized (this) {
+            return Map.of(
+                    "memoryEntries", memory.size(),
+                    "memoryChars", memoryChars,
+                    "memoryHits", memoryHits.get(),
+                    "diskHits", diskHits.get(),
+                    "misses", misses.get(),
+                    "evictions", evictions.get());
+        }
+    }
+
+    private synchronized void putInMemory(String key, String body) {
+        if (body.length() > maxMemoryChars) {
+            return;
+        }
+        String previous = memory.put(key, body);
+        if (previous != null) {
+            memoryChars -= previous.length();
+        }
+        memoryChars += body.length();
+
+        Iterator<Map.Entry<String, String>> it = memory.entrySet().iterator();
+        while (memoryChars > maxMemoryChars && it.hasNext()) {
+            Map.Entry<String, String> eldest = it.next();
+            memoryChars -= eldest.getValue().length();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Deletes the oldest disk entries once the stored chars exceed the bound. The
+     * running total only costs a query on the first write and when trimming.
+     */
+    private void trimDisk(long added) {
+        synchronized (diskLock) {
+            diskChars = diskChars < 0 ? repository.sumSizeChars() : diskChars + added;
+            if (diskChars <= maxDiskChars) {
+                return;
+            }
+            // Re-putting a key counts it twice, so recount before deciding what to drop
+            long total = repository.sumSizeChars();
+            while (total > maxDiskChars) {
+                List<Object[]> oldest = repository.findOldestKeysAndSizes(PageRequest.of(0, 100));
+                List<String> victims = new ArrayList<>();
+                for (Object[] row : oldest) {
+                    if (total <= maxDiskChars) {
+                        break;
+                    }
+                    victims.add((String) row[0]);
+                    total -= ((Number) row[1]).longValue();
+                }
+                if (victims.isEmpty()) {
+                    break;
+                }
+                repository.deleteByCacheKeys(victims);
+                evictions.addAndGet(victims.size());
+            }
+            diskChars = total;
+        }
+    }
+}
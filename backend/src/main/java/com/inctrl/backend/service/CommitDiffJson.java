@@ -0,0 +1,144 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.FileChange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams GitHub "get a commit" JSON into a {@link CommitDiff} without building
+ * a tree or holding the raw response as a String, skipping everything the model
+ * does not need (URLs, avatars, verification blobs, blob/raw links, stats).
+ * {@link #write} renders the compact form, which keeps GitHub's field layout so
+ * it reads back through the same parser.
+ */
+public final class CommitDiffJson {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private CommitDiffJson() {}
+
+    public static JsonParser createParser(InputStream in) throws IOException {
+        return JSON_FACTORY.createParser(in);
+    }
+
+    public static CommitDiff read(String json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return read(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse GitHub commit data: " + e.getMessage(), e);
+        }
+    }
+
+    public static CommitDiff read(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a commit object");
+        }
+        CommitDiff diff = new CommitDiff();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "sha" -> diff.setSha(parser.getValueAsString());
+                case "commit" -> {
+                    if (value == JsonToken.START_OBJECT) readCommit(parser, diff);
+                    else parser.skipChildren();
+                }
+                case "files" -> {
+                    if (value == JsonToken.START_ARRAY) readFiles(parser, diff);
+                    else parser.skipChildren();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return diff;
+    }
+
+    private static void readCommit(JsonParser parser, CommitDiff diff) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("message")) {
+                diff.setMessage(parser.getValueAsString());
+            } else if (field.equals("author") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String authorField = parser.currentName();
+                    parser.nextToken();
+                    switch (authorField) {
+                        case "name" -> diff.setAuthorName(parser.getValueAsString());
+                        case "date" -> diff.setDate(parser.getValueAsString());
+                        default -> parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readFiles(JsonParser parser, CommitDiff diff) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            FileChange file = new FileChange();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "filename" -> file.setFilename(parser.getValueAsString());
+                    case "previous_filename" -> file.setPreviousFilename(parser.getValueAsString());
+                    case "status" -> file.setStatus(parser.getValueAsString());
+                    case "additions" -> file.setAdditions(parser.getValueAsInt());
+                    case "deletions" -> file.setDeletions(parser.getValueAsInt());
+                    // Binary and very large files come without a patch
+                    case "patch" -> file.setPatch(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            diff.getFiles().add(file);
+        }
+    }
+
+    /**
+     * Renders the compact commit JSON used for prompts and the diff cache.
+     */
+    public static String write(CommitDiff diff) {
+        StringWriter out = new StringWriter((int) Math.min(Integer.MAX_VALUE, diff.getPatchChars() + 1024));
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("sha", diff.getSha());
+            gen.writeObjectFieldStart("commit");
+            gen.writeStringField("message", diff.getMessage());
+            gen.writeObjectFieldStart("author");
+            gen.writeStringField("name", diff.getAuthorName());
+            gen.writeStringField("date", diff.getDate());
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeArrayFieldStart("files");
+            for (FileChange file : diff.getFiles()) {
+                gen.writeStartObject();
+                gen.writeStringField("filename", file.getFilename());
+                if (file.getPreviousFilename() != null) {
+                    gen.writeStringField("previous_filename", file.getPreviousFilename());
+                }
+                gen.writeStringField("status", file.getStatus());
+                gen.writeNumberField("additions", file.getAdditions());
+                gen.writeNumberField("deletions", file.getDeletions());
+                if (file.getPatch() != null) {
+                    gen.writeStringField("patch", file.getPatch());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render commit data: " + e.getMessage(), e);
+        }
+        return out.toString();
+    }
+}
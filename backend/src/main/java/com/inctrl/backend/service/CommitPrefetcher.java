@@ -0,0 +1,123 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Warms the caches behind the ingester while the user is still reading a page of
+ * commits: the diffs of the listed commits go into the commit diff cache and the
+ * next page into GitHubService's list cache, so the following click costs no
+ * upstream round trip. Everything runs on low-priority threads and only while the
+ * GitHub budget has room to spare.
+ */
+@Service
+public class CommitPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(CommitPrefetcher.class);
+
+    private final CommitSources commitSources;
+    private final CommitDiffCache diffCache;
+    private final GitHubRateLimiter rateLimiter;
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+
+    // Keys of queued or running prefetches, so repeated page views do not pile up duplicates
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public CommitPrefetcher(CommitSources commitSources, CommitDiffCache diffCache, GitHubRateLimiter rateLimiter,
+            @Qualifier("prefetchExecutor") ExecutorService executor,
+            @Value("${inctrl.prefetch.enabled:true}") boolean enabled,
+            MeterRegistry meterRegistry) {
+        this.commitSources = commitSources;
+        this.diffCache = diffCache;
+        this.rateLimiter = rateLimiter;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Called after a page of commits has been served. Local clones are skipped:
+     * reading them is already as fast as a cache hit.
+     */
+    public void afterPageServed(String repoUrl, int page, int perPage, List<CommitInfo> commits) {
+        if (!enabled || commits.isEmpty() || commitSources.isLocal(repoUrl)) {
+            return;
+        }
+        String repoBase = repoUrl.replaceAll("/+$", "").replaceAll("\\.git$", "");
+        for (CommitInfo commit : commits) {
+            String commitUrl = repoBase + "/commit/" + commit.getSha();
+            submit("diff", commitUrl, () -> prefetchDiff(commitUrl));
+        }
+        if (commits.size() >= perPage) {
+            submit("page", repoUrl + "#" + (page + 1) + "/" + perPage,
+                    () -> {
+                        commitSources.fetchCommitList(repoUrl, page + 1, perPage, null, null, null);
+                        return true;
+                    });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of("enabled", enabled, "inFlight", inFlight.size());
+    }
+
+    private boolean prefetchDiff(String commitUrl) {
+        if (diffCache.contains(commitSources.resolveCommitKey(commitUrl))) {
+            return false;
+        }
+        commitSources.fetchCommitDetails(commitUrl);
+        return true;
+    }
+
+    private void submit(String type, String key, PrefetchTask task) {
+        if (!inFlight.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!rateLimiter.hasSpareBudget()) {
+                        count(type, "skipped");
+                        return;
+                    }
+                    count(type, task.run() ? "fetched" : "cached");
+                } catch (Exception e) {
+                    count(type, "error");
+                    log.debug("Prefetch of {} failed: {}", key, e.getMessage());
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            count(type, "rejected");
+        }
+    }
+
+    private void count(String type, String outcome) {
+        Counter.builder("inctrl.prefetch.tasks")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private interface PrefetchTask {
+        boolean run();
+    }
+}
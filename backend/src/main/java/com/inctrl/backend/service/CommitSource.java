@@ -0,0 +1,41 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.CommitInfo;
+
+import java.util.List;
+
+/**
+ * Where commits and their diffs come from. Repository URLs look like
+ * {@code <repo>} and commit URLs like {@code <repo>/commit/<sha>}, whatever the
+ * source; {@link CommitSources} picks the source that claims a URL.
+ */
+public interface CommitSource {
+
+    /**
+     * Whether this source can serve the given repository or commit URL.
+     */
+    boolean supports(String url);
+
+    /**
+     * Lists one page of commits, newest first.
+     *
+     * @param perPage Page size, at most 100
+     * @param ref Branch name or SHA to list from; null for the default branch
+     * @param since ISO-8601 lower bound on the commit date; may be null
+     * @param until ISO-8601 upper bound on the commit date; may be null
+     */
+    List<CommitInfo> fetchCommitList(String repoUrl, int page, int perPage, String ref, String since, String until);
+
+    /**
+     * Resolves a commit URL to the key shared by the diff and analysis caches.
+     */
+    String resolveCommitKey(String commitUrl);
+
+    /**
+     * Returns the commit as compact GitHub-shaped JSON, see {@link CommitDiffJson}.
+     */
+    String fetchCommitDetails(String commitUrl);
+
+    CommitDiff fetchCommitDiff(String commitUrl);
+}
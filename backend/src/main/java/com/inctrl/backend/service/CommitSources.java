@@ -0,0 +1,79 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.CommitInfo;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Routes each repository or commit URL to the source that serves it. Local
+ * clones are asked first, so a repository mapped to a clone on disk never
+ * touches the GitHub API; everything else goes to GitHub.
+ */
+@Service
+public class CommitSources implements CommitSource {
+
+    private final LocalGitCommitSource localGitCommitSource;
+    private final List<CommitSource> sources;
+
+    public CommitSources(LocalGitCommitSource localGitCommitSource, GitHubService gitHubService) {
+        this.localGitCommitSource = localGitCommitSource;
+        this.sources = List.of(localGitCommitSource, gitHubService);
+    }
+
+    /**
+     * Whether the URL is served from a clone on disk, i.e. costs no GitHub rate-limit budget.
+     */
+    public boolean isLocal(String url) {
+        return localGitCommitSource.supports(url);
+    }
+
+    public CommitSource forUrl(String url) {
+        for (CommitSource source : sources) {
+            if (source.supports(url)) {
+                return source;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Unsupported repository URL. Please provide a URL like: https://github.com/owner/repo");
+    }
+
+    @Override
+    public boolean supports(String url) {
+        return sources.stream().anyMatch(source -> source.supports(url));
+    }
+
+    /**
+     * Fetches one page of the latest commits of the default branch.
+     *
+     * @param repoUrl e.g., https://github.com/owner/repo
+     * @param page The page number for pagination (starts at 1)
+     * @param perPage Page size, at most 100 (GitHub's maximum)
+     * @return List of CommitInfo DTOs with sha, message, author, date.
+     */
+    public List<CommitInfo> fetchCommitList(String repoUrl, int page, int perPage) {
+        return fetchCommitList(repoUrl, page, perPage, null, null, null);
+    }
+
+    @Override
+    public List<CommitInfo> fetchCommitList(String repoUrl, int page, int perPage, String ref, String since,
+            String until) {
+        return forUrl(repoUrl).fetchCommitList(repoUrl, page, perPage, ref, since, until);
+    }
+
+    @Override
+    public String resolveCommitKey(String commitUrl) {
+        return forUrl(commitUrl).resolveCommitKey(commitUrl);
+    }
+
+    @Override
+    public String fetchCommitDetails(String commitUrl) {
+        return forUrl(commitUrl).fetchCommitDetails(commitUrl);
+    }
+
+    @Override
+    public CommitDiff fetchCommitDiff(String commitUrl) {
+        return forUrl(commitUrl).fetchCommitDiff(commitUrl);
+    }
+}
@@ -0,0 +1,180 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.FileChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Trims a commit's files before they reach the prompt. Files matching the ignore
+ * globs (lockfiles, minified assets, build output) and generated files are
+ * replaced by a one-line stub, oversized patches are cut to the per-file cap, and
+ * what remains is fitted into the token budget in order of relevance: source
+ * first, then tests, build/config and docs, larger changes first within each.
+ * Files that do not fit are stubbed too. Every file keeps its place in the list
+ * and every file not sent whole is reported back.
+ */
+@Service
+public class DiffBudgeter {
+
+    // Markers code generators put near the top of their output
+    private static final Pattern GENERATED_MARKER = Pattern.compile(
+            "@generated|DO NOT EDIT|Code generated by|auto-?generated|This file was generated",
+            Pattern.CASE_INSENSITIVE);
+    private static final int MARKER_SCAN_LINES = 15;
+    private static final int MINIFIED_LINE_CHARS = 1000;
+
+    public record PrunedFile(String filename, String reason, int patchChars) {}
+
+    public record Budgeted(List<FileChange> files, List<PrunedFile> pruned) {}
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<String> ignoreGlobs;
+    private final int maxFileChars;
+    private final long maxPromptChars;
+    private final MeterRegistry meterRegistry;
+
+    public DiffBudgeter(@Value("${inctrl.analysis.budget.ignore-globs:}") String ignoreGlobs,
+            @Value("${inctrl.analysis.budget.max-file-chars:20000}") int maxFileChars,
+            @Value("${inctrl.analysis.budget.max-prompt-tokens:100000}") long maxPromptTokens,
+            @Value("${inctrl.analysis.budget.chars-per-token:4}") int charsPerToken,
+            MeterRegistry meterRegistry) {
+        this.ignoreGlobs = Arrays.stream(ignoreGlobs.split(","))
+                .map(String::trim)
+                .filter(g -> !g.isEmpty())
+                .toList();
+        this.maxFileChars = maxFileChars;
+        this.maxPromptChars = maxPromptTokens * charsPerToken;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Budgeted apply(List<FileChange> files) {
+        FileChange[] kept = files.toArray(new FileChange[0]);
+        List<PrunedFile> pruned = new ArrayList<>();
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < kept.length; i++) {
+            FileChange file = kept[i];
+            String patch = file.getPatch();
+            if (patch == null || patch.isEmpty()) {
+                // Binary or too large for GitHub to return: already just a name
+                continue;
+            }
+            String reason = isIgnored(file.getFilename()) ? "ignored" : isGenerated(patch) ? "generated" : null;
+            if (reason != null) {
+                kept[i] = stub(file, reason);
+                pruned.add(record(file, reason));
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // Most relevant first; anything that no longer fits is stubbed
+        candidates.sort(Comparator.<Integer>comparingInt(i -> category(kept[i].getFilename()))
+                .thenComparing(i -> -(kept[i].getAdditions() + kept[i].getDeletions())));
+        long remaining = maxPromptChars;
+        for (int i : candidates) {
+            FileChange file = kept[i];
+            String patch = file.getPatch();
+            if (patch.length() > maxFileChars) {
+                FileChange truncated = copy(file, patch.substring(0, maxFileChars)
+                        + "\n... [patch truncated: " + maxFileChars + " of " + patch.length() + " chars]");
+                if (truncated.getPatch().length() <= remaining) {
+                    kept[i] = truncated;
+                    remaining -= truncated.getPatch().length();
+                    pruned.add(record(file, "truncated"));
+                    continue;
+                }
+            } else if (patch.length() <= remaining) {
+                remaining -= patch.length();
+                continue;
+            }
+            kept[i] = stub(file, "over_budget");
+            pruned.add(record(file, "over_budget"));
+        }
+        return new Budgeted(List.of(kept), pruned);
+    }
+
+    boolean isIgnored(String filename) {
+        if (filename == null) {
+            return false;
+        }
+        for (String glob : ignoreGlobs) {
+            if (pathMatcher.match(glob, filename)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A generator marker in the first lines of the patch, or a minified-looking line.
+     */
+    static boolean isGenerated(String patch) {
+        String[] lines = patch.split("\n", MARKER_SCAN_LINES + 1);
+        for (int i = 0; i < Math.min(lines.length, MARKER_SCAN_LINES); i++) {
+            if (GENERATED_MARKER.matcher(lines[i]).find()) {
+                return true;
+            }
+        }
+        int lineStart = 0;
+        for (int i = 0; i <= patch.length(); i++) {
+            if (i == patch.length() || patch.charAt(i) == '\n') {
+                if (i - lineStart > MINIFIED_LINE_CHARS) {
+                    return true;
+                }
+                lineStart = i + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 0 source, 1 tests, 2 build and config, 3 docs.
+     */
+    static int category(String filename) {
+        String original = filename != null ? filename : "";
+        String name = original.toLowerCase(Locale.ROOT);
+        String base = name.substring(name.lastIndexOf('/') + 1);
+        String originalBase = original.substring(original.lastIndexOf('/') + 1);
+        if (name.endsWith(".md") || name.endsWith(".txt") || name.endsWith(".rst") || name.endsWith(".adoc")) {
+            return 3;
+        }
+        if (name.contains("/test/") || name.contains("/tests/") || name.startsWith("test/")
+                || originalBase.matches(".*(Test|Tests|IT)\\.\\w+$") || base.matches(".*[._-](test|tests|spec)\\.\\w+$")
+                || base.startsWith("test_")) {
+            return 1;
+        }
+        if (base.matches(".*\\.(json|ya?ml|xml|properties|toml|ini|cfg|conf|gradle|lock)$")
+                || base.equals("dockerfile") || base.equals("makefile")) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private PrunedFile record(FileChange file, String reason) {
+        Counter.builder("inctrl.analysis.pruned.files").tag("reason", reason).register(meterRegistry).increment();
+        return new PrunedFile(file.getFilename(), reason, file.getPatch().length());
+    }
+
+    private static FileChange stub(FileChange file, String reason) {
+        return copy(file, "[patch omitted (" + reason + "): +" + file.getAdditions() + " -" + file.getDeletions()
+                + " lines]");
+    }
+
+    private static FileChange copy(FileChange file, String patch) {
+        FileChange copy = new FileChange(file.getFilename(), file.getStatus(), file.getAdditions(),
+                file.getDeletions(), patch);
+        copy.setPreviousFilename(file.getPreviousFilename());
+        return copy;
+    }
+}
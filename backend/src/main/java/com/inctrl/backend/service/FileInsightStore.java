@@ -0,0 +1,171 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.inctrl.backend.dto.FileChange;
+import com.inctrl.backend.model.CachedFileInsight;
+import com.inctrl.backend.repository.CachedFileInsightRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Per-file insights keyed by a normalized patch hash, so the same file change
+ * under a different SHA is only analyzed once. Normalization drops hunk line
+ * numbers and trailing whitespace, which is what a cherry-pick onto another base
+ * usually changes. Files without a patch (binary or oversized) are never reused.
+ * The table keeps at most {@code inctrl.cache.file-insights.max-entries} rows;
+ * the oldest are deleted first.
+ */
+@Service
+public class FileInsightStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileInsightStore.class);
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ [^@]* @@.*$");
+
+    private final CachedFileInsightRepository repository;
+    private final long maxEntries;
+    private final ObjectMapper objectMapper;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    // Running row count, loaded on first write; guarded by the store
+    private long entries = -1;
+
+    public FileInsightStore(CachedFileInsightRepository repository,
+            @Value("${inctrl.cache.file-insights.max-entries:100000}") long maxEntries,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.maxEntries = maxEntries;
+        this.objectMapper = new ObjectMapper();
+        this.hits = Counter.builder("inctrl.cache.file_insights.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("inctrl.cache.file_insights.lookups").tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("inctrl.cache.file_insights.evictions").register(meterRegistry);
+    }
+
+    /**
+     * Returns the stored insights for the given files, keyed by their index in the
+     * list, each relabelled with the file's current name.
+     */
+    public Map<Integer, ObjectNode> lookup(List<FileChange> files) {
+        Map<String, List<Integer>> indexesByHash = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            String hash = patchHash(files.get(i));
+            if (hash != null) {
+                indexesByHash.computeIfAbsent(hash, h -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<Integer, ObjectNode> found = new HashMap<>();
+        if (!indexesByHash.isEmpty()) {
+            try {
+                for (CachedFileInsight stored : repository.findAllById(indexesByHash.keySet())) {
+                    JsonNode insight = objectMapper.readTree(stored.getInsightJson());
+                    for (int index : indexesByHash.get(stored.getPatchHash())) {
+                        ObjectNode relabelled = ((ObjectNode) insight).deepCopy();
+                        relabelled.put("filename", files.get(index).getFilename());
+                        found.put(index, relabelled);
+                    }
+                }
+            } catch (Exception e) {
+                // A failed lookup only means the files are analyzed again
+                log.warn("Failed to read stored file insights: {}", e.getMessage());
+                found.clear();
+            }
+        }
+        hits.increment(found.size());
+        misses.increment(files.size() - found.size());
+        return found;
+    }
+
+    /**
+     * Stores the insights Gemini returned for a set of files, matched to the files
+     * by filename. Insights for files that are not in the list are ignored.
+     */
+    public void store(List<FileChange> files, JsonNode insights) {
+        if (insights == null || !insights.isArray()) {
+            return;
+        }
+        Map<String, FileChange> byName = new HashMap<>();
+        files.forEach(f -> byName.put(f.getFilename(), f));
+
+        Map<String, CachedFileInsight> toSave = new LinkedHashMap<>();
+        for (JsonNode insight : insights) {
+            FileChange file = byName.get(insight.path("filename").asText());
+            String hash = file != null ? patchHash(file) : null;
+            if (hash == null || !insight.isObject()) {
+                continue;
+            }
+            ObjectNode anonymous = ((ObjectNode) insight).deepCopy();
+            anonymous.remove("filename");
+            toSave.put(hash, new CachedFileInsight(hash, GeminiService.PROMPT_VERSION, anonymous.toString()));
+        }
+        if (toSave.isEmpty()) {
+            return;
+        }
+        try {
+            repository.saveAll(toSave.values());
+            trim(toSave.size());
+        } catch (Exception e) {
+            log.warn("Failed to store {} file insight(s): {}", toSave.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the oldest rows once the table holds more than the bound. The running
+     * count only costs a query on the first write and when trimming.
+     */
+    private synchronized void trim(int added) {
+        entries = entries < 0 ? repository.count() : entries + added;
+        if (entries <= maxEntries) {
+            return;
+        }
+        // Overwritten hashes were counted as new rows, so recount before deleting
+        long total = repository.count();
+        while (total > maxEntries) {
+            List<String> victims = repository.findOldestHashes(
+                    PageRequest.of(0, (int) Math.min(total - maxEntries, 100)));
+            if (victims.isEmpty()) {
+                break;
+            }
+            repository.deleteByPatchHashes(victims);
+            evictions.increment(victims.size());
+            total -= victims.size();
+        }
+        entries = total;
+    }
+
+    /**
+     * Hash of the prompt version, status, file extension and normalized patch, or
+     * null when the file has no patch to compare.
+     */
+    static String patchHash(FileChange file) {
+        String patch = file.getPatch();
+        if (patch == null || patch.isBlank()) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(patch.length());
+        for (String line : patch.split("\n")) {
+            normalized.append(HUNK_HEADER.matcher(line).matches() ? "@@" : line.stripTrailing()).append('\n');
+        }
+        String filename = file.getFilename() != null ? file.getFilename() : "";
+        int dot = filename.lastIndexOf('.');
+        String extension = dot > filename.lastIndexOf('/') ? filename.substring(dot + 1) : "";
+        return CommitAnalysisService.sha256(GeminiService.PROMPT_VERSION + "\n" + file.getStatus() + "\n"
+                + extension + "\n" + normalized);
+    }
+}
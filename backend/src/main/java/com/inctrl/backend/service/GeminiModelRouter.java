@@ -0,0 +1,243 @@
+package com.inctrl.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-model scoreboard and circuit breakers for Gemini. Every call outcome feeds
+ * an exponentially weighted latency and error rate; {@link #route} uses them to
+ * order the configured models and leaves out any model whose breaker is open.
+ * The primary model keeps its place until it is clearly worse than an alternative.
+ */
+@Service
+public class GeminiModelRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiModelRouter.class);
+
+    // Weight of the newest sample in the moving averages
+    private static final double EWMA_ALPHA = 0.2;
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final List<String> models;
+    private final Map<String, ModelHealth> health = new LinkedHashMap<>();
+    private final int failureThreshold;
+    private final long openForMillis;
+    private final double switchRatio;
+
+    public GeminiModelRouter(@Value("${inctrl.gemini.model:gemini-2.5-flash}") String primaryModel,
+            @Value("${inctrl.gemini.fallback-models:}") String fallbackModels,
+            @Value("${inctrl.gemini.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${inctrl.gemini.breaker.open-for:30s}") Duration openFor,
+            @Value("${inctrl.gemini.routing.switch-ratio:2.0}") double switchRatio,
+            MeterRegistry meterRegistry) {
+        List<String> configured = new ArrayList<>();
+        configured.add(primaryModel.trim());
+        Arrays.stream(fallbackModels.split(","))
+                .map(String::trim)
+                .filter(m -> !m.isEmpty() && !configured.contains(m))
+                .forEach(configured::add);
+        this.models = List.copyOf(configured);
+        this.failureThreshold = failureThreshold;
+        this.openForMillis = openFor.toMillis();
+        this.switchRatio = switchRatio;
+
+        for (String model : models) {
+            ModelHealth modelHealth = new ModelHealth();
+            health.put(model, modelHealth);
+            Gauge.builder("inctrl.gemini.model.latency", modelHealth, h -> Math.max(h.latencyEwmaMs, 0))
+                    .baseUnit("milliseconds").tag("model", model).register(meterRegistry);
+            Gauge.builder("inctrl.gemini.model.error.rate", modelHealth, h -> h.errorEwma)
+                    .tag("model", model).register(meterRegistry);
+            Gauge.builder("inctrl.gemini.circuit.state", modelHealth, h -> h.state.ordinal())
+                    .tag("model", model).register(meterRegistry);
+        }
+    }
+
+    public String getPrimaryModel() {
+        return models.get(0);
+    }
+
+    /**
+     * Models to try for the next call, best first. A pinned model (e.g. the one a
+     * cached content was created for) is the only candidate. Throws when every
+     * candidate's breaker is open, so callers fail fast instead of waiting on an outage.
+     */
+    public synchronized List<String> route(String pinnedModel) {
+        long now = System.currentTimeMillis();
+        List<String> available = new ArrayList<>();
+        for (String model : pinnedModel != null ? List.of(pinnedModel) : models) {
+            ModelHealth modelHealth = health.get(model);
+            if (modelHealth == null || modelHealth.allows(now)) {
+                available.add(model);
+            }
+        }
+        if (available.isEmpty()) {
+            throw new UpstreamUnavailableException(
+                    "Gemini is unavailable: circuit open for " + (pinnedModel != null ? pinnedModel : "all models"),
+                    retryAfter(pinnedModel != null ? List.of(pinnedModel) : models, now));
+        }
+
+        // Move a clearly better model ahead of the preferred one; unknown models never jump the queue
+        String preferred = available.get(0);
+        String best = preferred;
+        for (String model : available) {
+            if (score(model) >= 0 && (score(best) < 0 || score(model) < score(best))) {
+                best = model;
+            }
+        }
+        if (!best.equals(preferred) && score(preferred) >= 0 && score(preferred) > switchRatio * score(best)) {
+            available.remove(best);
+            available.add(0, best);
+        }
+        return available;
+    }
+
+    /**
+     * Picks the model a call is actually sent to: the first of the candidates that
+     * still admits a call. Taking a half-open model reserves its one trial call, so
+     * models that were routed but never dispatched stay free for the next caller.
+     */
+    public synchronized String acquire(List<String> candidates) {
+        long now = System.currentTimeMillis();
+        for (String model : candidates) {
+            ModelHealth modelHealth = health.get(model);
+            if (modelHealth == null) {
+                return model;
+            }
+            if (modelHealth.allows(now)) {
+                if (modelHealth.state == State.HALF_OPEN) {
+                    modelHealth.trialStartedAt = now;
+                }
+                return model;
+            }
+        }
+        throw new UpstreamUnavailableException("Gemini is unavailable: no model admits a call right now",
+                retryAfter(candidates, now));
+    }
+
+    /**
+     * Time until the earliest of the models lets a call through again.
+     */
+    private long retryAfter(List<String> candidates, long now) {
+        long retryAfter = candidates.stream()
+                .map(health::get)
+                .filter(h -> h != null)
+                .mapToLong(h -> (h.state == State.HALF_OPEN ? h.trialStartedAt : h.openedAt) + openForMillis - now)
+                .min().orElse(openForMillis);
+        return Math.max(retryAfter, 0);
+    }
+
+    /**
+     * Records a successful call. A negative latency updates the error rate and
+     * breaker only.
+     */
+    public synchronized void recordSuccess(String model, long latencyMs) {
+        ModelHealth modelHealth = health.get(model);
+        if (modelHealth == null) {
+            return;
+        }
+        modelHealth.sample(latencyMs, false);
+        modelHealth.consecutiveFailures = 0;
+        if (modelHealth.state != State.CLOSED) {
+            log.info("Gemini model {} recovered, closing circuit", model);
+            modelHealth.state = State.CLOSED;
+        }
+    }
+
+    /**
+     * Records an upstream failure (429, 5xx or I/O). Client errors such as a 400
+     * say nothing about the model's health and should not be recorded here.
+     */
+    public synchronized void recordFailure(String model, long latencyMs) {
+        ModelHealth modelHealth = health.get(model);
+        if (modelHealth == null) {
+            return;
+        }
+        modelHealth.sample(latencyMs, true);
+        modelHealth.consecutiveFailures++;
+        if (modelHealth.state == State.HALF_OPEN
+                || (modelHealth.state == State.CLOSED && modelHealth.consecutiveFailures >= failureThreshold)) {
+            log.warn("Opening circuit for Gemini model {} after {} consecutive failure(s)", model,
+                    modelHealth.consecutiveFailures);
+            modelHealth.state = State.OPEN;
+            modelHealth.openedAt = System.currentTimeMillis();
+        }
+    }
+
+    synchronized State state(String model) {
+        return health.get(model).state;
+    }
+
+    public synchronized Map<String, Object> getScoreboard() {
+        Map<String, Object> board = new LinkedHashMap<>();
+        for (Map.Entry<String, ModelHealth> entry : health.entrySet()) {
+            ModelHealth h = entry.getValue();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("state", h.state.name());
+            row.put("latencyMs", Math.round(Math.max(h.latencyEwmaMs, 0)));
+            row.put("errorRate", Math.round(h.errorEwma * 1000) / 1000.0);
+            row.put("calls", h.calls);
+            row.put("failures", h.failures);
+            board.put(entry.getKey(), row);
+        }
+        return board;
+    }
+
+    /**
+     * Lower is better: latency inflated by the error rate. -1 while there are no samples.
+     */
+    private double score(String model) {
+        ModelHealth h = health.get(model);
+        if (h == null || h.latencyEwmaMs < 0) {
+            return -1;
+        }
+        return h.latencyEwmaMs * (1 + 4 * h.errorEwma);
+    }
+
+    private final class ModelHealth {
+        double latencyEwmaMs = -1;
+        double errorEwma = 0;
+        long calls;
+        long failures;
+        int consecutiveFailures;
+        State state = State.CLOSED;
+        long openedAt;
+        long trialStartedAt;
+
+        void sample(long latencyMs, boolean failed) {
+            calls++;
+            if (failed) {
+                failures++;
+            }
+            // Streaming calls report no latency: their duration depends on the answer length
+            if (latencyMs >= 0) {
+                latencyEwmaMs = latencyEwmaMs < 0 ? latencyMs : EWMA_ALPHA * latencyMs + (1 - EWMA_ALPHA) * latencyEwmaMs;
+            }
+            errorEwma = EWMA_ALPHA * (failed ? 1 : 0) + (1 - EWMA_ALPHA) * errorEwma;
+        }
+
+        boolean allows(long now) {
+            if (state == State.OPEN && now - openedAt >= openForMillis) {
+                state = State.HALF_OPEN;
+                trialStartedAt = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                // One trial at a time; a reservation that was never used lapses after open-for
+                return trialStartedAt == 0 || now - trialStartedAt >= openForMillis;
+            }
+            return state == State.CLOSED;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.inctrl.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wraps Gemini calls with the resilience the upstream needs: a hedged second
+ * request once a call is slower than {@code inctrl.gemini.hedge-after}, jittered
+ * retries on 429/5xx and I/O failures, and fail-fast when the circuit breakers in
+ * {@link GeminiModelRouter} are open. Each call outcome is fed back to the router.
+ */
+@Service
+public class GeminiResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiResilience.class);
+
+    /**
+     * One call against a given model.
+     */
+    @FunctionalInterface
+    public interface ModelCall<T> {
+        T call(String model) throws Exception;
+    }
+
+    private final GeminiModelRouter router;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final long hedgeAfterMs;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    public GeminiResilience(GeminiModelRouter router,
+            @Qualifier("geminiCallExecutor") ExecutorService executor,
+            MeterRegistry meterRegistry,
+            @Value("${inctrl.gemini.hedge-after:20s}") Duration hedgeAfter,
+            @Value("${inctrl.gemini.retry.max-attempts:3}") int maxAttempts,
+            @Value("${inctrl.gemini.retry.base-backoff:500ms}") Duration baseBackoff,
+            @Value("${inctrl.gemini.retry.max-backoff:8s}") Duration maxBackoff) {
+        this.router = router;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.hedgeAfterMs = hedgeAfter.toMillis();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMs = baseBackoff.toMillis();
+        this.maxBackoffMs = maxBackoff.toMillis();
+        this.hedges = Counter.builder("inctrl.gemini.hedges").tag("result", "sent").register(meterRegistry);
+        this.hedgeWins = Counter.builder("inctrl.gemini.hedges").tag("result", "won").register(meterRegistry);
+    }
+
+    public String primaryModel() {
+        return router.getPrimaryModel();
+    }
+
+    /**
+     * Runs a unary call with hedging and retries. Each retry starts on the next
+     * routed model, so a failing primary falls over to the configured alternates.
+     */
+    public <T> T call(String operation, ModelCall<T> call) throws Exception {
+        for (int attempt = 1;; attempt++) {
+            List<String> models = router.route(null);
+            try {
+                return hedged(operation, rotate(models, attempt - 1), call);
+            } catch (Exception e) {
+                if (!isUpstreamFailure(e) || attempt >= maxAttempts) {
+                    throw e;
+                }
+                sleepBeforeRetry(operation, e, attempt);
+            }
+        }
+    }
+
+    /**
+     * Runs a streaming call. Streams are never hedged, and are retried only while
+     * {@code retryable} says nothing has been relayed to the client yet. A pinned
+     * model (one whose cached content the request refers to) is never swapped.
+     */
+    public <T> T callStreaming(String operation, String pinnedModel, BooleanSupplier retryable, ModelCall<T> call)
+            throws Exception {
+        for (int attempt = 1;; attempt++) {
+            String model = router.acquire(rotate(router.route(pinnedModel), attempt - 1));
+            try {
+                T result = call.call(model);
+                router.recordSuccess(model, -1);
+                return result;
+            } catch (Exception e) {
+                if (!isUpstreamFailure(e)) {
+                    throw e;
+                }
+                router.recordFailure(model, -1);
+                if (attempt >= maxAttempts || !retryable.getAsBoolean()) {
+                    throw e;
+                }
+                sleepBeforeRetry(operation, e, attempt);
+            }
+        }
+    }
+
+    /**
+     * Sends the call to the first model and, if it has not answered within the
+     * hedge delay, a second copy to the next model (or the same one when only one
+     * is configured). The first success wins and the other call is cancelled.
+     */
+    private <T> T hedged(String operation, List<String> models, ModelCall<T> call) throws Exception {
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        AtomicBoolean settled = new AtomicBoolean();
+        List<Future<T>> inFlight = new ArrayList<>(2);
+        String first = router.acquire(models);
+        inFlight.add(completion.submit(() -> timed(first, call, settled)));
+        try {
+            Future<T> done = hedgeAfterMs > 0 ? completion.poll(hedgeAfterMs, TimeUnit.MILLISECONDS) : null;
+            String hedgeModel = done == null && hedgeAfterMs > 0 ? hedgeModel(models, first) : null;
+            if (hedgeModel != null) {
+                log.info("Gemini {} call exceeded {} ms, hedging on {}", operation, hedgeAfterMs, hedgeModel);
+                hedges.increment();
+                inFlight.add(completion.submit(() -> timed(hedgeModel, call, settled)));
+            }
+
+            Exception failure = null;
+            for (int pending = inFlight.size(); pending > 0; pending--) {
+                Future<T> next = done != null ? done : completion.take();
+                done = null;
+                try {
+                    T result = next.get();
+                    if (inFlight.size() > 1 && next == inFlight.get(1)) {
+                        hedgeWins.increment();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof Exception cause ? cause : new RuntimeException(e.getCause());
+                }
+            }
+            throw failure;
+        } finally {
+            // The loser's HTTP exchange is interrupted; whatever it returns is dropped
+            settled.set(true);
+            inFlight.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * The next model after the first that admits a call, or the first again when
+     * there is none. A half-open model's trial is only reserved if it is picked.
+     * Null when the first call is itself a half-open trial: a cancelled trial
+     * would never report back, and a recovering model should get one call only.
+     */
+    private String hedgeModel(List<String> models, String first) {
+        if (router.state(first) == GeminiModelRouter.State.HALF_OPEN) {
+            return null;
+        }
+        List<String> others = models.stream().filter(model -> !model.equals(first)).toList();
+        if (!others.isEmpty()) {
+            try {
+                return router.acquire(others);
+            } catch (UpstreamUnavailableException e) {
+                // Every alternate is still waiting for its trial; hedge on the same model
+            }
+        }
+        return first;
+    }
+
+    private <T> T timed(String model, ModelCall<T> call, AtomicBoolean settled) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = call.call(model);
+            router.recordSuccess(model, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        } catch (Exception e) {
+            // A call cancelled because the other one won says nothing about this model
+            if (!settled.get() && isUpstreamFailure(e)) {
+                router.recordFailure(model, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            throw e;
+        }
+    }
+
+    private void sleepBeforeRetry(String operation, Exception error, int attempt) throws InterruptedException {
+        long delay = backoffDelay(error, attempt);
+        log.info("Gemini {} failed ({}), retrying in {} ms (attempt {})", operation, error.getMessage(), delay,
+                attempt);
+        Counter.builder("inctrl.gemini.retries").tag("operation", operation).register(meterRegistry).increment();
+        Thread.sleep(delay);
+    }
+
+    /**
+     * Full-jitter exponential backoff, or the upstream's Retry-After when it asks
+     * for longer.
+     */
+    long backoffDelay(Throwable error, int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(ceiling, 1));
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpStatusCodeException statusError && statusError.getResponseHeaders() != null) {
+                String retryAfter = statusError.getResponseHeaders().getFirst("Retry-After");
+                if (retryAfter != null && retryAfter.matches("\\d+")) {
+                    return Math.max(delay, Long.parseLong(retryAfter) * 1000);
+                }
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * True for failures that say something about upstream health: 429, 5xx and
+     * I/O errors or timeouts. Client errors and bad responses are not retried.
+     */
+    static boolean isUpstreamFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpStatusCodeException statusError) {
+                return statusError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                        || statusError.getStatusCode().is5xxServerError();
+            }
+            if (t instanceof ResourceAccessException || t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> rotate(List<String> models, int by) {
+        List<String> rotated = new ArrayList<>(models.size());
+        for (int i = 0; i < models.size(); i++) {
+            rotated.add(models.get((i + by) % models.size()));
+        }
+        return rotated;
+    }
+}
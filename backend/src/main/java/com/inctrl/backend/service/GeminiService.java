@@ -1,28 +1,69 @@
 package com.inctrl.backend.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.dto.ChatTurn;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
 public class GeminiService {
 
+    /**
+     * Identifies the analysis prompt. Bump this whenever the prompt or response shape
+     * changes so cached analyses produced by an older prompt are not reused.
+     */
+    public static final String PROMPT_VERSION = "4";
+
+    private static final String CHAT_SYSTEM_PROMPT = """
+            You are an expert Senior Staff Software Engineer acting as a personal code mentor.
+            The developer has just reviewed a Git Commit Diff and has a question about it.
+
+            Your job is to answer the developer's question clearly and concisely.
+            Rules:
+            - Use the provided Git Diff as your source of truth.
+            - When referencing code, ALWAYS quote the exact lines from the diff using Markdown code blocks with the appropriate language tag (e.g. ```java, ```typescript).
+            - Reference specific line changes (lines starting with + or -) when relevant.
+            - Keep the answer focused on the question asked.
+            - Format your full response in Markdown.
+            """;
+
     @Value("${GEMINI_API_KEY}")
     private String geminiApiKey;
 
+    @Value("${inctrl.gemini.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String baseUrl;
+
     private final RestTemplate restTemplate;
+    private final GeminiResilience resilience;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
-    public GeminiService() {
-        this.restTemplate = new RestTemplate();
+    public GeminiService(RestTemplate outboundRestTemplate, GeminiResilience resilience, MeterRegistry meterRegistry) {
+        this.restTemplate = outboundRestTemplate;
+        this.resilience = resilience;
         this.objectMapper = new ObjectMapper();
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -38,6 +79,7 @@ public class GeminiService {
                 2. 'technologies': A list of tech/libraries used (e.g. JPA, RxJS, Loops).
                 3. 'alternatives': Provide TWO distinct alternative ways the code could have been written (other than what the AI suggested). Justify why those paths were not inherently chosen.
                 4. 'faults': Provide at least TWO potential fracture points or risks (e.g., missing null checks, scaling issues, no retry logic).
+                5. 'files': One entry per modified file with 'filename', a short 'summary', its 'technologies' and its 'faults' (each with 'point' and 'risk', may be empty). Describe each file from its code alone, without the Developer's Context.
 
                 Return ONLY valid JSON.
                 """;
@@ -47,44 +89,70 @@ public class GeminiService {
                 (developerContext != null && !developerContext.isEmpty()) ? developerContext : "No context provided.",
                 githubDiffJson);
 
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent?key="
-                + geminiApiKey;
+        try {
+            return generate("analyze", systemPrompt, userPrompt, true);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to analyze commit with Gemini: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Map step for large commits: analyzes a group of files on their own.
+     * The developer context is deliberately left out so the result only depends on the code.
+     */
+    public String analyzeFileGroup(String commitMessage, String filesJson) {
+        String systemPrompt = """
+                You are an expert Senior Staff Software Engineer and Architecture Auditor.
+                You are given SOME of the files changed by a larger GitHub commit, with their patches.
+
+                Return a JSON object with a single key 'files': one entry per provided file containing:
+                - 'filename': the file path exactly as given.
+                - 'summary': A plain English summary of what logic changed in that file.
+                - 'technologies': A list of tech/libraries used in that file.
+                - 'faults': Potential fracture points in that file, each with 'point' and 'risk'. May be empty.
+
+                Return ONLY valid JSON.
+                """;
+
+        String userPrompt = String.format("Commit Message: %s\n\nChanged Files JSON: %s",
+                commitMessage != null ? commitMessage : "", filesJson);
 
         try {
-            // Build the Gemini API Request Body
-            Map<String, Object> requestBody = Map.of(
-                    "system_instruction", Map.of(
-                            "parts", Map.of(
-                                    "text", systemPrompt)),
-                    "contents", List.of(
-                            Map.of(
-                                    "parts", List.of(
-                                            Map.of("text", userPrompt)))),
-                    "generationConfig", Map.of(
-                            "response_mime_type", "application/json"));
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-
-            // Call the Gemini API
-            String responseStr = restTemplate.postForObject(url, entity, String.class);
-
-            // Extract the generated text from the response
-            Map<String, Object> responseMap = objectMapper.readValue(responseStr, Map.class);
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
-            if (candidates != null && !candidates.isEmpty()) {
-                Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
-                List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                if (parts != null && !parts.isEmpty()) {
-                    return (String) parts.get(0).get("text");
-                }
-            }
-            throw new RuntimeException("Unexpected response format from Gemini API");
+            return generate("file_group", systemPrompt, userPrompt, true);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to analyze file group with Gemini: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reduce step for large commits: merges per-file insights into the standard
+     * summary/technologies/alternatives/faults shape.
+     */
+    public String reduceFileAnalyses(String commitMessage, String fileInsightsJson, String developerContext) {
+        String systemPrompt = """
+                You are an expert Senior Staff Software Engineer and Architecture Auditor.
+                A large GitHub commit has already been analyzed file by file. Your job is to combine those
+                per-file insights into one explanation for a junior developer.
 
+                Based on the per-file insights and the Developer's Context, you must return a JSON response containing:
+                1. 'summary': A plain English summary of what logic changed across the whole commit.
+                2. 'technologies': A de-duplicated list of tech/libraries used.
+                3. 'alternatives': Provide TWO distinct alternative ways the code could have been written (other than what the AI suggested). Justify why those paths were not inherently chosen.
+                4. 'faults': The TWO OR MORE most important fracture points or risks across the commit.
+
+                Return ONLY valid JSON.
+                """;
+
+        String userPrompt = String.format(
+                "Developer's Context/AI Chat Log: %s\n\nCommit Message: %s\n\nPer-File Insights JSON: %s",
+                (developerContext != null && !developerContext.isEmpty()) ? developerContext : "No context provided.",
+                commitMessage != null ? commitMessage : "",
+                fileInsightsJson);
+
+        try {
+            return generate("reduce", systemPrompt, userPrompt, true);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to analyze commit with Gemini: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to merge file analyses with Gemini: " + e.getMessage(), e);
         }
     }
 
@@ -93,58 +161,282 @@ public class GeminiService {
      * Returns a Markdown-formatted answer that may include specific code references.
      */
     public String chatWithCommit(String githubDiffJson, String developerContext, String question) {
-        String systemPrompt = """
-                You are an expert Senior Staff Software Engineer acting as a personal code mentor.
-                The developer has just reviewed a Git Commit Diff and has a question about it.
-
-                Your job is to answer the developer's question clearly and concisely.
-                Rules:
-                - Use the provided Git Diff as your source of truth.
-                - When referencing code, ALWAYS quote the exact lines from the diff using Markdown code blocks with the appropriate language tag (e.g. ```java, ```typescript).
-                - Reference specific line changes (lines starting with + or -) when relevant.
-                - Keep the answer focused on the question asked.
-                - Format your full response in Markdown.
-                """;
+        try {
+            return generate("chat", CHAT_SYSTEM_PROMPT, buildChatPrompt(githubDiffJson, developerContext, question),
+                    false);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to chat with Gemini: " + e.getMessage(), e);
+        }
+    }
 
-        String userPrompt = String.format(
-                "Git Diff Context:\n%s\n\nDeveloper Context: %s\n\nDeveloper's Question: %s",
-                githubDiffJson,
-                (developerContext != null && !developerContext.isEmpty()) ? developerContext : "No extra context provided.",
-                question);
+    /**
+     * Streaming variant of {@link #chatWithCommit}. Uses streamGenerateContent with SSE
+     * framing and hands each text fragment to {@code onChunk} as soon as it arrives.
+     *
+     * @return the full concatenated answer once the stream has finished.
+     */
+    public String streamChatWithCommit(String githubDiffJson, String developerContext, String question,
+            Consumer<String> onChunk) {
+        String userPrompt = buildChatPrompt(githubDiffJson, developerContext, question);
+        return streamGenerate("chat_stream", null, buildRequestBody(CHAT_SYSTEM_PROMPT, userPrompt, false),
+                CHAT_SYSTEM_PROMPT.length() + userPrompt.length(), onChunk);
+    }
 
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent?key="
-                + geminiApiKey;
+    /**
+     * Streams the answer to one turn of a chat session. The diff and developer context
+     * come either from a cached content created by {@link #createChatCache}, in which
+     * case only the earlier turns and the new question are sent, or inline as part of
+     * the first user turn when no cache is available.
+     */
+    public String streamChatTurn(String cachedContentName, String inlineContext, List<ChatTurn> history,
+            String question, Consumer<String> onChunk) {
+        List<Map<String, Object>> contents = new ArrayList<>();
+        int promptChars = question.length();
+        for (ChatTurn turn : history) {
+            contents.add(content(turn.getRole(), turn.getText()));
+            promptChars += turn.getText().length();
+        }
+        contents.add(content("user", question));
 
+        Map<String, Object> requestBody = new HashMap<>();
+        if (cachedContentName != null) {
+            requestBody.put("cachedContent", cachedContentName);
+        } else {
+            requestBody.put("system_instruction", Map.of("parts", Map.of("text", CHAT_SYSTEM_PROMPT)));
+            // Fold the context into the first user turn so roles keep alternating
+            String firstText = history.isEmpty() ? question : history.get(0).getText();
+            contents.set(0, content("user", inlineContext + "\n\nDeveloper's Question: " + firstText));
+            promptChars += CHAT_SYSTEM_PROMPT.length() + inlineContext.length();
+        }
+        requestBody.put("contents", contents);
+        // Cached content belongs to the model it was created for, which is always the primary
+        return streamGenerate(cachedContentName != null ? "chat_turn_cached" : "chat_turn",
+                cachedContentName != null ? resilience.primaryModel() : null, requestBody, promptChars, onChunk);
+    }
+
+    /**
+     * Uploads the chat system prompt plus a commit's diff and context as a Gemini
+     * cached content, so follow-up turns are billed at the cached-token rate.
+     *
+     * @return the cached content name, e.g. "cachedContents/abc123".
+     */
+    public String createChatCache(String githubDiffJson, String developerContext, Duration ttl) {
+        String url = baseUrl + "/cachedContents?key=" + geminiApiKey;
+        String model = resilience.primaryModel();
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "models/" + model);
+        requestBody.put("systemInstruction", Map.of("parts", List.of(Map.of("text", CHAT_SYSTEM_PROMPT))));
+        requestBody.put("contents", List.of(content("user", buildChatContext(githubDiffJson, developerContext))));
+        requestBody.put("ttl", ttl.toSeconds() + "s");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            Map<String, Object> requestBody = Map.of(
-                    "system_instruction", Map.of(
-                            "parts", Map.of(
-                                    "text", systemPrompt)),
-                    "contents", List.of(
-                            Map.of(
-                                    "parts", List.of(
-                                            Map.of("text", userPrompt)))));
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-
-            String responseStr = restTemplate.postForObject(url, entity, String.class);
-
-            Map<String, Object> responseMap = objectMapper.readValue(responseStr, Map.class);
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
-            if (candidates != null && !candidates.isEmpty()) {
-                Map<String, Object> content = (Map<String, Object>) candidates.get(0).get("content");
-                List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                if (parts != null && !parts.isEmpty()) {
-                    return (String) parts.get(0).get("text");
-                }
+            String responseStr = restTemplate.postForObject(url,
+                    new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers), String.class);
+            String name = objectMapper.readTree(responseStr).path("name").asText(null);
+            if (name == null) {
+                throw new RuntimeException("Unexpected response format from Gemini API");
             }
-            throw new RuntimeException("Unexpected response format from Gemini API");
+            recordCall("cache_create", model, sample, "success", githubDiffJson.length(), 0);
+            return name;
+        } catch (Exception e) {
+            recordCall("cache_create", model, sample, "error", githubDiffJson.length(), 0);
+            throw new RuntimeException("Failed to create Gemini cached content: " + e.getMessage(), e);
+        }
+    }
 
+    public void deleteChatCache(String cachedContentName) {
+        try {
+            restTemplate.delete(baseUrl + "/" + cachedContentName + "?key=" + geminiApiKey);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to chat with Gemini: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to delete Gemini cached content: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Posts a request to streamGenerateContent and relays the SSE text fragments.
+     * A failed stream is retried on another model only until its first fragment was relayed.
+     */
+    private String streamGenerate(String operation, String pinnedModel, Map<String, Object> requestBody,
+            int promptChars, Consumer<String> onChunk) {
+        AtomicBoolean relayed = new AtomicBoolean();
+        try {
+            String body = objectMapper.writeValueAsString(requestBody);
+            return resilience.callStreaming(operation, pinnedModel, () -> !relayed.get(),
+                    model -> streamFromModel(operation, model, body, promptChars, fragment -> {
+                        relayed.set(true);
+                        onChunk.accept(fragment);
+                    }));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to stream chat from Gemini: " + e.getMessage(), e);
+        }
+    }
+
+    private String streamFromModel(String operation, String model, String body, int promptChars,
+            Consumer<String> onChunk) {
+        String url = baseUrl + "/models/" + model + ":streamGenerateContent?alt=sse&key=" + geminiApiKey;
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        try {
+            String answer = restTemplate.execute(url, HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getBody().write(body.getBytes(StandardCharsets.UTF_8));
+            }, response -> {
+                StringBuilder text = new StringBuilder();
+                JsonNode usage = null;
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // Each SSE event carries one partial GenerateContentResponse on a "data:" line
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    JsonNode chunk = objectMapper.readTree(line.substring(5).trim());
+                    // Usage is cumulative, so the last chunk that carries it has the totals
+                    if (chunk.path("usageMetadata").isObject()) {
+                        usage = chunk.get("usageMetadata");
+                    }
+                    String fragment = extractText(chunk);
+                    if (fragment != null && !fragment.isEmpty()) {
+                        text.append(fragment);
+                        onChunk.accept(fragment);
+                    }
+                }
+                recordTokens(operation, usage);
+                return text.toString();
+            });
+            recordCall(operation, model, sample, "success", promptChars, answer != null ? answer.length() : 0);
+            return answer;
+        } catch (RuntimeException e) {
+            recordCall(operation, model, sample, "error", promptChars, 0);
+            throw e;
+        }
+    }
+
+    static String buildChatPrompt(String githubDiffJson, String developerContext, String question) {
+        return buildChatContext(githubDiffJson, developerContext) + "\n\nDeveloper's Question: " + question;
+    }
+
+    public static String buildChatContext(String githubDiffJson, String developerContext) {
+        return String.format(
+                "Git Diff Context:\n%s\n\nDeveloper Context: %s",
+                githubDiffJson,
+                (developerContext != null && !developerContext.isEmpty()) ? developerContext : "No extra context provided.");
+    }
+
+    private static Map<String, Object> content(String role, String text) {
+        return Map.of("role", role, "parts", List.of(Map.of("text", text)));
+    }
+
+    /**
+     * Calls generateContent, hedged and retried across the configured models, and
+     * extracts the text of the first candidate.
+     */
+    private String generate(String operation, String systemPrompt, String userPrompt, boolean jsonResponse)
+            throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<String> entity = new HttpEntity<>(
+                objectMapper.writeValueAsString(buildRequestBody(systemPrompt, userPrompt, jsonResponse)), headers);
+        int promptChars = systemPrompt.length() + userPrompt.length();
+        return resilience.call(operation, model -> generateWithModel(operation, model, entity, promptChars));
+    }
+
+    private String generateWithModel(String operation, String model, HttpEntity<String> entity, int promptChars)
+            throws Exception {
+        String url = baseUrl + "/models/" + model + ":generateContent?key=" + geminiApiKey;
+
+        // Call the Gemini API
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String responseStr;
+        try {
+            responseStr = restTemplate.postForObject(url, entity, String.class);
+        } catch (RuntimeException e) {
+            recordCall(operation, model, sample, "error", promptChars, 0);
+            throw e;
+        }
+
+        JsonNode response = objectMapper.readTree(responseStr);
+        String text = extractText(response);
+        recordCall(operation, model, sample, text != null ? "success" : "empty", promptChars,
+                text != null ? text.length() : 0);
+        recordTokens(operation, response.get("usageMetadata"));
+        if (text != null) {
+            return text;
+        }
+        throw new RuntimeException("Unexpected response format from Gemini API");
+    }
+
+    /**
+     * Records generation time plus prompt and response sizes for one Gemini call.
+     */
+    private void recordCall(String operation, String model, Timer.Sample sample, String outcome, int promptChars,
+            int responseChars) {
+        sample.stop(Timer.builder("inctrl.gemini.requests")
+                .tag("operation", operation)
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        DistributionSummary.builder("inctrl.gemini.prompt.size").baseUnit("chars").tag("operation", operation)
+                .register(meterRegistry).record(promptChars);
+        if (responseChars > 0) {
+            DistributionSummary.builder("inctrl.gemini.response.size").baseUnit("chars").tag("operation", operation)
+                    .register(meterRegistry).record(responseChars);
         }
     }
+
+    /**
+     * Adds the token counts Gemini reports in usageMetadata to per-operation counters.
+     */
+    private void recordTokens(String operation, JsonNode usage) {
+        if (usage == null || !usage.isObject()) {
+            return;
+        }
+        recordTokenCount(operation, "prompt", usage.get("promptTokenCount"));
+        recordTokenCount(operation, "candidates", usage.get("candidatesTokenCount"));
+        recordTokenCount(operation, "cached", usage.get("cachedContentTokenCount"));
+        recordTokenCount(operation, "thoughts", usage.get("thoughtsTokenCount"));
+        recordTokenCount(operation, "total", usage.get("totalTokenCount"));
+    }
+
+    private void recordTokenCount(String operation, String type, JsonNode count) {
+        if (count != null && count.isNumber()) {
+            Counter.builder("inctrl.gemini.tokens")
+                    .tag("operation", operation)
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .increment(count.doubleValue());
+        }
+    }
+
+    Map<String, Object> buildRequestBody(String systemPrompt, String userPrompt, boolean jsonResponse) {
+        // Build the Gemini API Request Body
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("system_instruction", Map.of(
+                "parts", Map.of(
+                        "text", systemPrompt)));
+        requestBody.put("contents", List.of(
+                Map.of(
+                        "parts", List.of(
+                                Map.of("text", userPrompt)))));
+        if (jsonResponse) {
+            requestBody.put("generationConfig", Map.of(
+                    "response_mime_type", "application/json"));
+        }
+        return requestBody;
+    }
+
+    /**
+     * Extracts the generated text from a (possibly partial) GenerateContentResponse,
+     * or returns null when the response carries no candidate text.
+     */
+    static String extractText(JsonNode response) {
+        JsonNode text = response.path("candidates").path(0).path("content").path("parts").path(0).path("text");
+        return text.isTextual() ? text.asText() : null;
+    }
 }
@@ -0,0 +1,120 @@
+package com.inctrl.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tracks GitHub's rate-limit budget from the X-RateLimit-* headers of every
+ * response, so background work can slow down and pause before the limit is hit
+ * instead of failing with 403s halfway through. Interactive requests are never
+ * throttled here; the reserve is kept for them.
+ */
+@Service
+public class GitHubRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(GitHubRateLimiter.class);
+    private static final long MAX_SLEEP_MS = 60_000;
+
+    private final int backgroundReserve;
+    private final double slowdownFraction;
+
+    private volatile int limit = -1;
+    private volatile int remaining = -1;
+    private volatile long resetEpochSeconds = 0;
+
+    public GitHubRateLimiter(@Value("${inctrl.github.background-reserve:100}") int backgroundReserve,
+            @Value("${inctrl.github.background-slowdown-fraction:0.2}") double slowdownFraction,
+            MeterRegistry meterRegistry) {
+        this.backgroundReserve = backgroundReserve;
+        this.slowdownFraction = slowdownFraction;
+        // -1 until the first GitHub response has been seen
+        Gauge.builder("inctrl.github.ratelimit.remaining", this, limiter -> limiter.remaining).register(meterRegistry);
+        Gauge.builder("inctrl.github.ratelimit.limit", this, limiter -> limiter.limit).register(meterRegistry);
+    }
+
+    public void record(HttpHeaders headers) {
+        if (headers == null) {
+            return;
+        }
+        String remainingHeader = headers.getFirst("X-RateLimit-Remaining");
+        String limitHeader = headers.getFirst("X-RateLimit-Limit");
+        String resetHeader = headers.getFirst("X-RateLimit-Reset");
+        try {
+            if (limitHeader != null) {
+                limit = Integer.parseInt(limitHeader);
+            }
+            if (resetHeader != null) {
+                resetEpochSeconds = Long.parseLong(resetHeader);
+            }
+            if (remainingHeader != null) {
+                remaining = Integer.parseInt(remainingHeader);
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed rate-limit headers: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Called before each non-interactive GitHub request. Pauses while the budget is
+     * down to the reserve, and once it falls below the slowdown fraction of the limit,
+     * spreads the remaining requests evenly over what is left of the window.
+     */
+    public void acquireBackground() throws InterruptedException {
+        awaitBudget(backgroundReserve);
+
+        int left = remaining;
+        long windowMs = resetEpochSeconds * 1000 - System.currentTimeMillis();
+        if (left >= 0 && limit > 0 && left < limit * slowdownFraction && windowMs > 0) {
+            long spacingMs = windowMs / Math.max(left - backgroundReserve, 1);
+            Thread.sleep(Math.min(spacingMs, MAX_SLEEP_MS));
+        }
+    }
+
+    /**
+     * Non-blocking check for optional background work such as prefetching: true
+     * while the budget is unknown or still above the slowdown threshold, so it
+     * never competes with back-fills or interactive requests for the last requests.
+     */
+    public boolean hasSpareBudget() {
+        int left = remaining;
+        if (left < 0 || System.currentTimeMillis() >= resetEpochSeconds * 1000) {
+            return true;
+        }
+        return left > backgroundReserve && (limit <= 0 || left >= limit * slowdownFraction);
+    }
+
+    /**
+     * Blocks until more than {@code reserve} requests are left in the current window,
+     * or the window has reset. Returns immediately while the budget is unknown.
+     */
+    private void awaitBudget(int reserve) throws InterruptedException {
+        while (remaining >= 0 && remaining <= reserve) {
+            long waitMs = resetEpochSeconds * 1000 - System.currentTimeMillis();
+            if (waitMs <= 0) {
+                return;
+            }
+            log.info("GitHub rate-limit budget low ({} left), pausing background work for {}s", remaining,
+                    waitMs / 1000);
+            Thread.sleep(Math.min(waitMs, MAX_SLEEP_MS));
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("limit", limit);
+        status.put("remaining", remaining);
+        status.put("resetAt", resetEpochSeconds > 0 ? Instant.ofEpochSecond(resetEpochSeconds).toString() : null);
+        status.put("backgroundReserve", backgroundReserve);
+        status.put("backgroundThrottled", remaining >= 0 && limit > 0 && remaining < limit * slowdownFraction);
+        return status;
+    }
+}
@@ -1,61 +1,124 @@
 package com.inctrl.backend.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.dto.CommitDiff;
 import com.inctrl.backend.dto.CommitInfo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.RequestEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
-public class GitHubService {
+public class GitHubService implements CommitSource {
+
+    private static final Pattern REPO_URL_PATTERN = Pattern.compile("github\\.com/([^/]+)/([^/]+)");
+    private static final Pattern COMMIT_URL_PATTERN = Pattern
+            .compile("github\\.com/([^/]+)/([^/]+)/commit/([a-fA-F0-9]+)");
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final CommitDiffCache diffCache;
+    private final GitHubRateLimiter rateLimiter;
+    private final String token;
+    private final MeterRegistry meterRegistry;
+
+    // ETag + body of recent list responses, keyed by request URL; guarded by its own monitor
+    private final Map<String, ConditionalEntry> conditionalCache;
+    private final AtomicLong notModifiedResponses = new AtomicLong();
+    private final AtomicLong fullResponses = new AtomicLong();
+    private final AtomicLong freshResponses = new AtomicLong();
+    private final long listFreshMillis;
 
-    public GitHubService() {
-        this.restTemplate = new RestTemplate();
+    public GitHubService(RestTemplate outboundRestTemplate, CommitDiffCache diffCache, GitHubRateLimiter rateLimiter,
+            @Value("${inctrl.github.token:}") String token,
+            @Value("${inctrl.github.conditional-cache-entries:1000}") int conditionalCacheEntries,
+            @Value("${inctrl.github.list-fresh-for:60s}") Duration listFreshFor,
+            MeterRegistry meterRegistry) {
+        this.restTemplate = outboundRestTemplate;
         this.objectMapper = new ObjectMapper();
+        this.diffCache = diffCache;
+        this.rateLimiter = rateLimiter;
+        this.token = token;
+        this.meterRegistry = meterRegistry;
+        this.listFreshMillis = listFreshFor.toMillis();
+        this.conditionalCache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConditionalEntry> eldest) {
+                return size() > conditionalCacheEntries;
+            }
+        });
+        FunctionCounter.builder("inctrl.github.conditional.responses", notModifiedResponses, AtomicLong::get)
+                .tag("result", "not_modified").register(meterRegistry);
+        FunctionCounter.builder("inctrl.github.conditional.responses", fullResponses, AtomicLong::get)
+                .tag("result", "full").register(meterRegistry);
+        FunctionCounter.builder("inctrl.github.conditional.responses", freshResponses, AtomicLong::get)
+                .tag("result", "fresh").register(meterRegistry);
+    }
+
+    @Override
+    public boolean supports(String url) {
+        return url != null && REPO_URL_PATTERN.matcher(url).find();
     }
 
     /**
-     * Parses a GitHub repository URL and fetches the latest commits.
-     * 
-     * @param repoUrl e.g., https://github.com/owner/repo
-     * @param page The page number for pagination (starts at 1)
-     * @return List of CommitInfo DTOs with sha, message, author, date.
+     * Fetches one page of commits, optionally starting from a branch or SHA and
+     * limited to a date window. Repeat requests are sent conditionally, so an
+     * unchanged page costs a free 304 instead of a full download.
+     *
+     * @param perPage Page size, at most 100 (GitHub's maximum)
+     * @param ref Branch name or SHA to list from; null for the default branch
+     * @param since ISO-8601 lower bound on the commit date; may be null
+     * @param until ISO-8601 upper bound on the commit date; may be null
      */
-    public List<CommitInfo> fetchCommitList(String repoUrl, int page) {
+    @Override
+    public List<CommitInfo> fetchCommitList(String repoUrl, int page, int perPage, String ref, String since,
+            String until) {
         // Regex to extract owner and repo from the URL
-        Pattern pattern = Pattern.compile("github\\.com/([^/]+)/([^/]+)");
-        Matcher matcher = pattern.matcher(repoUrl);
+        Matcher matcher = REPO_URL_PATTERN.matcher(repoUrl);
 
         if (matcher.find()) {
             String owner = matcher.group(1);
             String repo = matcher.group(2).replaceAll("\\.git$", "");
 
-            String apiUrl = String.format("https://api.github.com/repos/%s/%s/commits?per_page=10&page=%d", owner, repo, page);
+            URI apiUri = UriComponentsBuilder.fromUriString("https://api.github.com/repos/{owner}/{repo}/commits")
+                    .queryParam("per_page", Math.min(perPage, 100))
+                    .queryParam("page", page)
+                    .queryParamIfPresent("sha", Optional.ofNullable(ref))
+                    .queryParamIfPresent("since", Optional.ofNullable(since))
+                    .queryParamIfPresent("until", Optional.ofNullable(until))
+                    .buildAndExpand(owner, repo)
+                    .encode()
+                    .toUri();
 
             try {
-                ResponseEntity<String> response = restTemplate.getForEntity(apiUrl, String.class);
-                JsonNode commitsArray = objectMapper.readTree(response.getBody());
-
-                List<CommitInfo> commits = new ArrayList<>();
-                for (JsonNode node : commitsArray) {
-                    String sha = node.get("sha").asText();
-                    JsonNode commitNode = node.get("commit");
-                    String message = commitNode.get("message").asText();
-                    String authorName = commitNode.get("author").get("name").asText();
-                    String date = commitNode.get("author").get("date").asText();
-                    commits.add(new CommitInfo(sha, message, authorName, date));
-                }
-                return commits;
+                return parseCommitList(getConditional(apiUri));
             } catch (Exception e) {
+                recordRateLimit(e);
                 throw new RuntimeException(
                         "Failed to fetch commits from GitHub API. Ensure the repository is public. Error: "
                                 + e.getMessage());
@@ -66,36 +129,199 @@ public class GitHubService {
     }
 
     /**
-     * Parses a standard GitHub commit URL and fetches the raw commit data from the
-     * GitHub API.
+     * Maps a GitHub "list commits" response onto CommitInfo DTOs.
+     */
+    List<CommitInfo> parseCommitList(String json) throws IOException {
+        JsonNode commitsArray = objectMapper.readTree(json);
+
+        List<CommitInfo> commits = new ArrayList<>();
+        for (JsonNode node : commitsArray) {
+            String sha = node.get("sha").asText();
+            JsonNode commitNode = node.get("commit");
+            String message = commitNode.get("message").asText();
+            String authorName = commitNode.get("author").get("name").asText();
+            String date = commitNode.get("author").get("date").asText();
+            commits.add(new CommitInfo(sha, message, authorName, date));
+        }
+        return commits;
+    }
+
+    /**
+     * Resolves a commit URL to the owner/repo/sha key shared by the diff and analysis caches.
+     */
+    @Override
+    public String resolveCommitKey(String githubUrl) {
+        Matcher matcher = COMMIT_URL_PATTERN.matcher(githubUrl);
+        if (matcher.find()) {
+            return CommitDiffCache.key(matcher.group(1), matcher.group(2).replaceAll("\\.git$", ""), matcher.group(3));
+        }
+        throw new IllegalArgumentException(
+                "Invalid GitHub Commit URL. Please provide a URL in the format: https://github.com/owner/repo/commit/sha");
+    }
+
+    /**
+     * Parses a standard GitHub commit URL and returns the commit as compact JSON:
+     * GitHub's layout, minus everything except the message, author and per-file
+     * patches. Served from the commit diff cache when possible, since the content
+     * behind a SHA never changes.
      * 
      * @param githubUrl The url e.g., https://github.com/owner/repo/commit/sha
-     * @return The raw JSON response from GitHub containing files and patch diffs.
+     * @return Compact commit JSON containing files and patch diffs.
      */
+    @Override
     public String fetchCommitDetails(String githubUrl) {
+        String cacheKey = resolveCommitKey(githubUrl);
+        Optional<String> cached = diffCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return download(githubUrl, cacheKey).json();
+    }
+
+    /**
+     * Same as {@link #fetchCommitDetails} but returns the typed model.
+     */
+    @Override
+    public CommitDiff fetchCommitDiff(String githubUrl) {
+        String cacheKey = resolveCommitKey(githubUrl);
+        Optional<String> cached = diffCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return CommitDiffJson.read(cached.get());
+        }
+        return download(githubUrl, cacheKey).diff();
+    }
+
+    /**
+     * Streams the GitHub response straight into a {@link CommitDiff}; the raw body,
+     * which can run to megabytes for large commits, is never held in memory.
+     */
+    private FetchedCommit download(String githubUrl, String cacheKey) {
         // Regex to extract owner, repo, and commit SHA from the URL
-        Pattern pattern = Pattern.compile("github\\.com/([^/]+)/([^/]+)/commit/([a-fA-F0-9]+)");
-        Matcher matcher = pattern.matcher(githubUrl);
+        Matcher matcher = COMMIT_URL_PATTERN.matcher(githubUrl);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException(
+                    "Invalid GitHub Commit URL. Please provide a URL in the format: https://github.com/owner/repo/commit/sha");
+        }
+        String owner = matcher.group(1);
+        String repo = matcher.group(2).replaceAll("\\.git$", "");
+        String sha = matcher.group(3);
 
-        if (matcher.find()) {
-            String owner = matcher.group(1);
-            String repo = matcher.group(2);
-            String sha = matcher.group(3);
+        // GitHub REST API endpoint for fetching a specific commit
+        URI apiUri = URI.create(String.format("https://api.github.com/repos/%s/%s/commits/%s", owner, repo, sha));
 
-            // GitHub REST API endpoint for fetching a specific commit
-            String apiUrl = String.format("https://api.github.com/repos/%s/%s/commits/%s", owner, repo, sha);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            FetchedCommit fetched = restTemplate.execute(apiUri, HttpMethod.GET,
+                    request -> addDefaultHeaders(request.getHeaders()),
+                    response -> {
+                        rateLimiter.record(response.getHeaders());
+                        try (JsonParser parser = CommitDiffJson.createParser(response.getBody())) {
+                            CommitDiff diff = CommitDiffJson.read(parser);
+                            long bytesRead = parser.currentLocation().getByteOffset();
+                            return new FetchedCommit(diff, CommitDiffJson.write(diff), bytesRead);
+                        }
+                    });
+            recordRequest("commit_details", sample, "success", fetched.bytesRead());
+            diffCache.put(cacheKey, fetched.json());
+            return fetched;
+        } catch (Exception e) {
+            recordRequest("commit_details", sample, "error", -1);
+            recordRateLimit(e);
+            throw new RuntimeException(
+                    "Failed to fetch from GitHub API. Ensure the repository is public or you have provided a token. Error: "
+                            + e.getMessage());
+        }
+    }
 
-            try {
-                // Fetch the commit data as a raw JSON string for now
-                ResponseEntity<String> response = restTemplate.getForEntity(apiUrl, String.class);
-                return response.getBody();
-            } catch (Exception e) {
-                throw new RuntimeException(
-                        "Failed to fetch from GitHub API. Ensure the repository is public or you have provided a token. Error: "
-                                + e.getMessage());
-            }
+    private void recordRateLimit(Exception e) {
+        // 403/429 responses carry the rate-limit headers too, often with remaining=0
+        if (e instanceof HttpStatusCodeException statusError) {
+            rateLimiter.record(statusError.getResponseHeaders());
         }
-        throw new IllegalArgumentException(
-                "Invalid GitHub Commit URL. Please provide a URL in the format: https://github.com/owner/repo/commit/sha");
     }
+
+    /**
+     * Counters for conditional requests; 304 responses do not count against the rate limit.
+     */
+    public Map<String, Object> getConditionalStats() {
+        return Map.of(
+                "entries", conditionalCache.size(),
+                "notModified", notModifiedResponses.get(),
+                "full", fullResponses.get(),
+                "fresh", freshResponses.get());
+    }
+
+    /**
+     * GETs a URL with If-None-Match when an earlier response left an ETag, and
+     * serves the stored body on 304 Not Modified. A body stored within the last
+     * list-fresh-for window, e.g. a page the prefetcher just loaded, is served
+     * without any request at all.
+     */
+    private String getConditional(URI uri) {
+        String key = uri.toString();
+        ConditionalEntry previous = conditionalCache.get(key);
+        if (previous != null && System.currentTimeMillis() - previous.storedAt() < listFreshMillis) {
+            freshResponses.incrementAndGet();
+            return previous.body();
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.exchange(RequestEntity.get(uri).headers(headers -> {
+                addDefaultHeaders(headers);
+                if (previous != null) {
+                    headers.setIfNoneMatch(previous.etag());
+                }
+            }).build(), String.class);
+        } catch (RuntimeException e) {
+            recordRequest("commit_list", sample, "error", -1);
+            throw e;
+        }
+        rateLimiter.record(response.getHeaders());
+
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && previous != null) {
+            recordRequest("commit_list", sample, "not_modified", -1);
+            notModifiedResponses.incrementAndGet();
+            conditionalCache.put(key, new ConditionalEntry(previous.etag(), previous.body(), System.currentTimeMillis()));
+            return previous.body();
+        }
+
+        recordRequest("commit_list", sample, "success",
+                response.getBody() != null ? response.getBody().length() : -1);
+        fullResponses.incrementAndGet();
+        String etag = response.getHeaders().getETag();
+        if (etag != null && response.getBody() != null) {
+            conditionalCache.put(key, new ConditionalEntry(etag, response.getBody(), System.currentTimeMillis()));
+        }
+        return response.getBody();
+    }
+
+    /**
+     * Records the latency of one GitHub call and, for full responses, its body size.
+     */
+    private void recordRequest(String operation, Timer.Sample sample, String outcome, long responseSize) {
+        sample.stop(Timer.builder("inctrl.github.requests")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        if (responseSize >= 0) {
+            DistributionSummary.builder("inctrl.github.response.size")
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .record(responseSize);
+        }
+    }
+
+    private void addDefaultHeaders(HttpHeaders headers) {
+        headers.set(HttpHeaders.ACCEPT, "application/vnd.github+json");
+        if (token != null && !token.isBlank()) {
+            // Authenticated calls get a far larger hourly budget than anonymous ones
+            headers.setBearerAuth(token);
+        }
+    }
+
+    private record ConditionalEntry(String etag, String body, long storedAt) {}
+
+    private record FetchedCommit(CommitDiff diff, String json, long bytesRead) {}
 }
@@ -0,0 +1,199 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.IngestJob;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.repository.IngestJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs ingests in the background so the request thread is released immediately.
+ * The job row is the source of truth; the executor queue only holds job IDs.
+ * The queue is bounded: a job that does not fit is not stored and the submit fails
+ * with {@link RejectedExecutionException}. Finished jobs are purged once they are
+ * older than {@code inctrl.ingest.job-retention}.
+ */
+@Service
+public class IngestJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestJobService.class);
+
+    private final IngestJobRepository jobRepository;
+    private final CommitAnalysisService commitAnalysisService;
+    private final CommitSources commitSources;
+    private final ExecutorService executor;
+    private final AuditedCommitRepository auditedCommitRepository;
+    private final SearchIndexService searchIndexService;
+    private final Duration jobRetention;
+    private volatile Instant nextPurge = Instant.MIN;
+
+    public IngestJobService(IngestJobRepository jobRepository, CommitAnalysisService commitAnalysisService,
+            CommitSources commitSources, @Qualifier("ingestJobExecutor") ExecutorService executor,
+            AuditedCommitRepository auditedCommitRepository, SearchIndexService searchIndexService,
+            @Value("${inctrl.ingest.job-retention:7d}") Duration jobRetention) {
+        this.jobRepository = jobRepository;
+        this.commitAnalysisService = commitAnalysisService;
+        this.commitSources = commitSources;
+        this.executor = executor;
+        this.auditedCommitRepository = auditedCommitRepository;
+        this.searchIndexService = searchIndexService;
+        this.jobRetention = jobRetention;
+    }
+
+    /**
+     * Persists a new job and schedules it. Returns the stored job with its ID.
+     */
+    public IngestJob submit(String githubUrl, String aiChatLog) {
+        // Fail fast on malformed URLs instead of queueing a job that can only fail
+        commitSources.resolveCommitKey(githubUrl);
+
+        purgeIfDue();
+        IngestJob job = jobRepository.save(new IngestJob(UUID.randomUUID().toString(), githubUrl, aiChatLog));
+        enqueue(job);
+        return job;
+    }
+
+    /**
+     * Queues a commit for analysis ahead of any user asking for it. The analysis runs
+     * without developer context, so it lands in the same analysis-cache slot a plain
+     * ingest uses, and is stored as a pre-computed audit. Commits that are already
+     * audited are skipped; returns null in that case.
+     */
+    public IngestJob submitPrecompute(String commitUrl) {
+        commitSources.resolveCommitKey(commitUrl);
+        if (auditedCommitRepository.existsById(shaOf(commitUrl))) {
+            return null;
+        }
+
+        IngestJob job = new IngestJob(UUID.randomUUID().toString(), commitUrl, null);
+        job.setPrecompute(true);
+        jobRepository.save(job);
+        enqueue(job);
+        return job;
+    }
+
+    public Optional<IngestJob> find(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Re-queues jobs that were waiting or in progress when the server last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingJobs() {
+        purgeIfDue();
+        List<IngestJob> pending = jobRepository.findByStatusInOrderByCreatedAtAsc(
+                List.of(IngestJob.Status.QUEUED, IngestJob.Status.RUNNING));
+        if (!pending.isEmpty()) {
+            log.info("Resuming {} pending ingest job(s)", pending.size());
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            String jobId = pending.get(i).getJobId();
+            try {
+                executor.execute(() -> run(jobId));
+            } catch (RejectedExecutionException e) {
+                // Still QUEUED in the table, so they are picked up on the next start
+                log.warn("Ingest queue is full; {} pending job(s) left for the next start", pending.size() - i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes succeeded and failed jobs last updated before the retention window.
+     *
+     * @return the number of jobs deleted.
+     */
+    public int purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobRetention);
+        int purged = jobRepository.deleteFinishedBefore(
+                List.of(IngestJob.Status.SUCCEEDED, IngestJob.Status.FAILED), cutoff);
+        if (purged > 0) {
+            log.info("Purged {} ingest job(s) finished before {}", purged, cutoff);
+        }
+        return purged;
+    }
+
+    // Purges at most once per hour, piggy-backing on submits rather than a scheduler thread
+    private void purgeIfDue() {
+        Instant now = Instant.now();
+        if (now.isBefore(nextPurge)) {
+            return;
+        }
+        nextPurge = now.plus(Duration.ofHours(1));
+        try {
+            purgeExpiredJobs();
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge expired ingest jobs: {}", e.getMessage());
+        }
+    }
+
+    private void enqueue(IngestJob job) {
+        try {
+            executor.execute(() -> run(job.getJobId()));
+        } catch (RejectedExecutionException e) {
+            // Left QUEUED it would run on the next restart, long after the caller was told no
+            jobRepository.deleteById(job.getJobId());
+            throw e;
+        }
+    }
+
+    private void run(String jobId) {
+        IngestJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() == IngestJob.Status.SUCCEEDED || job.getStatus() == IngestJob.Status.FAILED) {
+            return;
+        }
+
+        updateStatus(job, IngestJob.Status.RUNNING);
+        try {
+            String analysis = commitAnalysisService.analyze(job.getGithubUrl(), job.getAiChatLog());
+            job.setAnalysisJson(analysis);
+            if (job.isPrecompute()) {
+                storePrecomputed(job.getGithubUrl(), analysis);
+            }
+            updateStatus(job, IngestJob.Status.SUCCEEDED);
+        } catch (Exception e) {
+            log.warn("Ingest job {} failed: {}", jobId, e.getMessage());
+            String msg = e.getMessage() != null ? e.getMessage() : "Unknown error";
+            job.setErrorMessage(msg.length() > 2000 ? msg.substring(0, 2000) : msg);
+            updateStatus(job, IngestJob.Status.FAILED);
+        }
+    }
+
+    private void storePrecomputed(String commitUrl, String analysis) {
+        String sha = shaOf(commitUrl);
+        // A user may have opened and saved the commit while the job was queued; keep their row
+        if (auditedCommitRepository.existsById(sha)) {
+            return;
+        }
+        AuditedCommit audit = new AuditedCommit(sha, commitUrl.substring(0, commitUrl.lastIndexOf("/commit/")),
+                analysis, null);
+        audit.setPrecomputed(true);
+        searchIndexService.indexCommits(List.of(auditedCommitRepository.save(audit)));
+    }
+
+    private static String shaOf(String commitUrl) {
+        return commitUrl.substring(commitUrl.lastIndexOf("/commit/") + "/commit/".length()).replaceAll("/+$", "");
+    }
+
+    private void updateStatus(IngestJob job, IngestJob.Status status) {
+        job.setStatus(status);
+        job.setUpdatedAt(LocalDateTime.now());
+        jobRepository.save(job);
+    }
+}
@@ -0,0 +1,322 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.CommitInfo;
+import com.inctrl.backend.dto.FileChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads commits straight from clones on disk with JGit, so listing and diffing
+ * cost local I/O only and work for repositories GitHub cannot reach. A clone is
+ * used either when its remote URL is mapped to it in {@code inctrl.git.local-repos},
+ * or when the URL is a {@code file:} URL below {@code inctrl.git.local-root}.
+ * Bare and working clones both work.
+ */
+@Service
+public class LocalGitCommitSource implements CommitSource {
+
+    private static final Pattern COMMIT_URL_PATTERN = Pattern.compile("^(.+?)/commit/([a-fA-F0-9]+)/?$");
+    private static final Pattern GITHUB_REPO_PATTERN = Pattern.compile("github\\.com/([^/]+)/([^/]+)");
+
+    private final Map<String, Path> mappedRepos = new LinkedHashMap<>();
+    private final Path localRoot;
+    private final MeterRegistry meterRegistry;
+
+    // Open repositories keyed by git directory; JGit Repository objects are thread-safe
+    private final Map<Path, Repository> openRepos = new ConcurrentHashMap<>();
+
+    public LocalGitCommitSource(@Value("${inctrl.git.local-repos:}") String localRepos,
+            @Value("${inctrl.git.local-root:}") String localRoot,
+            MeterRegistry meterRegistry) {
+        // Comma-separated url=path pairs
+        for (String entry : localRepos.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq > 0) {
+                mappedRepos.put(normalize(entry.substring(0, eq)), Path.of(entry.substring(eq + 1).trim()));
+            }
+        }
+        this.localRoot = localRoot.isBlank() ? null : Path.of(localRoot).toAbsolutePath().normalize();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    public void close() {
+        openRepos.values().forEach(Repository::close);
+        openRepos.clear();
+    }
+
+    @Override
+    public boolean supports(String url) {
+        if (url == null) {
+            return false;
+        }
+        Matcher commit = COMMIT_URL_PATTERN.matcher(url.trim());
+        return locate(commit.matches() ? commit.group(1) : url) != null;
+    }
+
+    @Override
+    public List<CommitInfo> fetchCommitList(String repoUrl, int page, int perPage, String ref, String since,
+            String until) {
+        Path clone = requireClone(repoUrl);
+        int pageSize = Math.max(1, Math.min(perPage, 100));
+        int skip = Math.max(0, page - 1) * pageSize;
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Repository repository = open(clone);
+        try (RevWalk walk = new RevWalk(repository)) {
+            long sinceSeconds = epochSeconds(since, Long.MIN_VALUE);
+            long untilSeconds = epochSeconds(until, Long.MAX_VALUE);
+            ObjectId start = repository.resolve(ref != null && !ref.isBlank() ? ref : Constants.HEAD);
+            if (start == null) {
+                throw new IllegalArgumentException("Unknown ref: " + (ref != null ? ref : Constants.HEAD));
+            }
+            walk.sort(RevSort.COMMIT_TIME_DESC);
+            walk.markStart(walk.parseCommit(start));
+
+            List<CommitInfo> commits = new ArrayList<>();
+            for (RevCommit commit : walk) {
+                long time = commit.getCommitTime();
+                if (time < sinceSeconds) {
+                    // Newest first, so nothing older can match either
+                    break;
+                }
+                if (time > untilSeconds || skip-- > 0) {
+                    continue;
+                }
+                commits.add(new CommitInfo(commit.getName(), commit.getFullMessage(),
+                        commit.getAuthorIdent().getName(), formatDate(commit)));
+                if (commits.size() == pageSize) {
+                    break;
+                }
+            }
+            record(sample, "commit_list", "success");
+            return commits;
+        } catch (IllegalArgumentException e) {
+            record(sample, "commit_list", "error");
+            throw e;
+        } catch (Exception e) {
+            record(sample, "commit_list", "error");
+            throw new RuntimeException("Failed to list commits from local clone " + clone + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String resolveCommitKey(String commitUrl) {
+        Matcher commit = parseCommitUrl(commitUrl);
+        String repoUrl = commit.group(1);
+        String sha = commit.group(2);
+
+        // Mapped GitHub URLs share cache keys with GitHubService, so analyses carry over
+        Matcher github = GITHUB_REPO_PATTERN.matcher(repoUrl);
+        if (github.find()) {
+            return CommitDiffCache.key(github.group(1), github.group(2).replaceAll("\\.git$", ""), sha);
+        }
+        Path clone = requireClone(repoUrl);
+        return ("local" + clone.toString().replace('\\', '/') + "/" + sha).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Not cached: reading a commit from a local clone is cheaper than the cache lookup.
+     */
+    @Override
+    public String fetchCommitDetails(String commitUrl) {
+        return CommitDiffJson.write(fetchCommitDiff(commitUrl));
+    }
+
+    @Override
+    public CommitDiff fetchCommitDiff(String commitUrl) {
+        Matcher commitMatcher = parseCommitUrl(commitUrl);
+        Path clone = requireClone(commitMatcher.group(1));
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Repository repository = open(clone);
+        try (RevWalk walk = new RevWalk(repository)) {
+            ObjectId id = repository.resolve(commitMatcher.group(2) + "^{commit}");
+            if (id == null) {
+                throw new IllegalArgumentException("Commit " + commitMatcher.group(2) + " not found in " + clone);
+            }
+            RevCommit commit = walk.parseCommit(id);
+            RevTree parentTree = commit.getParentCount() > 0 ? walk.parseCommit(commit.getParent(0)).getTree() : null;
+
+            CommitDiff diff = new CommitDiff();
+            diff.setSha(commit.getName());
+            diff.setMessage(commit.getFullMessage());
+            diff.setAuthorName(commit.getAuthorIdent().getName());
+            diff.setDate(formatDate(commit));
+            diff.setFiles(diffFiles(repository, parentTree, commit.getTree()));
+            record(sample, "commit_details", "success");
+            return diff;
+        } catch (IllegalArgumentException e) {
+            record(sample, "commit_details", "error");
+            throw e;
+        } catch (Exception e) {
+            record(sample, "commit_details", "error");
+            throw new RuntimeException("Failed to read commit from local clone " + clone + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Diffs a commit against its first parent (or the empty tree) and maps every
+     * entry onto GitHub's per-file fields, with the patch reduced to its hunks.
+     */
+    private List<FileChange> diffFiles(Repository repository, RevTree parentTree, RevTree tree) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        List<FileChange> files = new ArrayList<>();
+        try (DiffFormatter formatter = new DiffFormatter(buffer)) {
+            formatter.setRepository(repository);
+            formatter.setDetectRenames(true);
+            for (DiffEntry entry : formatter.scan(parentTree, tree)) {
+                buffer.reset();
+                formatter.format(entry);
+                formatter.flush();
+                String text = buffer.toString(StandardCharsets.UTF_8);
+
+                // GitHub's patch field starts at the first hunk; binary files have none
+                int hunkStart = text.startsWith("@@") ? 0 : text.indexOf("\n@@");
+                String patch = hunkStart >= 0 ? text.substring(hunkStart == 0 ? 0 : hunkStart + 1) : null;
+                int additions = 0;
+                int deletions = 0;
+                if (patch != null) {
+                    for (String line : patch.split("\n")) {
+                        if (line.startsWith("+")) additions++;
+                        else if (line.startsWith("-")) deletions++;
+                    }
+                    patch = patch.endsWith("\n") ? patch.substring(0, patch.length() - 1) : patch;
+                }
+
+                boolean deleted = entry.getChangeType() == DiffEntry.ChangeType.DELETE;
+                FileChange file = new FileChange(deleted ? entry.getOldPath() : entry.getNewPath(),
+                        statusOf(entry.getChangeType()), additions, deletions, patch);
+                if (entry.getChangeType() == DiffEntry.ChangeType.RENAME
+                        || entry.getChangeType() == DiffEntry.ChangeType.COPY) {
+                    file.setPreviousFilename(entry.getOldPath());
+                }
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static String statusOf(DiffEntry.ChangeType type) {
+        return switch (type) {
+            case ADD -> "added";
+            case DELETE -> "removed";
+            case RENAME -> "renamed";
+            case COPY -> "copied";
+            case MODIFY -> "modified";
+        };
+    }
+
+    /**
+     * Reads a date bound as an ISO-8601 instant, or as a plain date meaning the
+     * start of that day in UTC.
+     */
+    private static long epochSeconds(String value, long unbounded) {
+        if (value == null || value.isBlank()) {
+            return unbounded;
+        }
+        try {
+            return value.contains("T") ? Instant.parse(value.trim()).getEpochSecond()
+                    : LocalDate.parse(value.trim()).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value + ". Use 2024-01-31 or 2024-01-31T00:00:00Z");
+        }
+    }
+
+    private static String formatDate(RevCommit commit) {
+        return DateTimeFormatter.ISO_INSTANT.format(commit.getAuthorIdent().getWhenAsInstant());
+    }
+
+    private Matcher parseCommitUrl(String commitUrl) {
+        Matcher matcher = COMMIT_URL_PATTERN.matcher(commitUrl.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(
+                    "Invalid commit URL. Please provide a URL in the format: <repository>/commit/<sha>");
+        }
+        return matcher;
+    }
+
+    private Path requireClone(String repoUrl) {
+        Path clone = locate(repoUrl);
+        if (clone == null) {
+            throw new IllegalArgumentException("No local clone is configured for " + repoUrl);
+        }
+        return clone;
+    }
+
+    /**
+     * Finds the clone for a repository URL: an explicit mapping first, then a
+     * {@code file:} URL, which must stay inside the configured root.
+     */
+    private Path locate(String repoUrl) {
+        Path mapped = mappedRepos.get(normalize(repoUrl));
+        if (mapped != null) {
+            return mapped;
+        }
+        if (localRoot == null || !repoUrl.trim().startsWith("file:")) {
+            return null;
+        }
+        try {
+            Path path = Path.of(URI.create(repoUrl.trim())).toAbsolutePath().normalize();
+            return path.startsWith(localRoot) && Files.isDirectory(path) ? path : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Repository open(Path clone) {
+        Path gitDir = Files.isDirectory(clone.resolve(Constants.DOT_GIT)) ? clone.resolve(Constants.DOT_GIT) : clone;
+        return openRepos.computeIfAbsent(gitDir, dir -> {
+            try {
+                return new FileRepositoryBuilder().setGitDir(dir.toFile()).setMustExist(true).build();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open local clone " + dir + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private void record(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder("inctrl.git.local.requests")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static String normalize(String repoUrl) {
+        return repoUrl.trim().replaceAll("/+$", "").replaceAll("\\.git$", "").toLowerCase(Locale.ROOT);
+    }
+}
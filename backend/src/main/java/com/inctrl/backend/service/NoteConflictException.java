@@ -0,0 +1,26 @@
+package com.inctrl.backend.service;
+
+import java.util.List;
+
+/**
+ * An edit was based on an older version of a note than the one now stored or pending.
+ */
+public class NoteConflictException extends RuntimeException {
+
+    private final String commitSha;
+    private final List<String> sections;
+
+    public NoteConflictException(String commitSha, List<String> sections) {
+        super("Notes changed since they were loaded: " + String.join(", ", sections));
+        this.commitSha = commitSha;
+        this.sections = sections;
+    }
+
+    public String getCommitSha() {
+        return commitSha;
+    }
+
+    public List<String> getSections() {
+        return sections;
+    }
+}
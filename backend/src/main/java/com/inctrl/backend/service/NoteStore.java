@@ -0,0 +1,70 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.NoteEdit;
+import com.inctrl.backend.model.Note;
+import com.inctrl.backend.repository.NoteRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional note writes. All sections of one commit are read with a single
+ * query and written in one transaction; the entity version turns a lost update
+ * into an optimistic locking failure.
+ */
+@Service
+public class NoteStore {
+
+    private final NoteRepository noteRepository;
+
+    public NoteStore(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    /**
+     * Upserts several sections of a commit's notes. Nothing is written when any
+     * versioned edit was based on a version other than the stored one.
+     *
+     * @return the stored notes of the commit keyed by section, after the write.
+     */
+    @Transactional
+    public Map<String, Note> upsert(String commitSha, Collection<NoteEdit> edits) {
+        Map<String, Note> notes = bySection(noteRepository.findAllByCommitSha(commitSha));
+
+        List<String> conflicts = new ArrayList<>();
+        for (NoteEdit edit : edits) {
+            Note existing = notes.get(edit.getSection());
+            if (existing != null && edit.getVersion() != null && edit.getVersion() != existing.getVersion()) {
+                conflicts.add(edit.getSection());
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new NoteConflictException(commitSha, conflicts);
+        }
+
+        List<Note> changed = new ArrayList<>();
+        for (NoteEdit edit : edits) {
+            Note note = notes.computeIfAbsent(edit.getSection(), section -> new Note(commitSha, section, ""));
+            note.setContent(edit.getContent() != null ? edit.getContent() : "");
+            changed.add(note);
+        }
+        noteRepository.saveAllAndFlush(changed);
+        return notes;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Note> findAll(String commitSha) {
+        return bySection(noteRepository.findAllByCommitSha(commitSha));
+    }
+
+    private static Map<String, Note> bySection(List<Note> notes) {
+        Map<String, Note> bySection = new LinkedHashMap<>();
+        notes.forEach(note -> bySection.put(note.getSection(), note));
+        return bySection;
+    }
+}
@@ -0,0 +1,252 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.NoteEdit;
+import com.inctrl.backend.model.Note;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Write-behind buffer for note edits. Single-note saves are held for
+ * {@code inctrl.notes.write-behind-delay} and every further edit to the same note
+ * in that window replaces the pending one, so a burst of saves costs one write.
+ * Reads see pending edits.
+ * <p>
+ * Versions stay optimistic across the buffer: a pending edit is handed out with
+ * the version its write will produce, so the editor's next save matches it while
+ * a save based on anything older is rejected with {@link NoteConflictException}.
+ */
+@Service
+public class NoteWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteWriteBuffer.class);
+
+    private final NoteStore noteStore;
+    private final SearchIndexService searchIndexService;
+    private final ScheduledExecutorService scheduler;
+    private final long delayMillis;
+    private final Counter submitted;
+    private final Counter written;
+    private final Counter conflicts;
+
+    // commitSha -> section -> edit waiting to be written; a commit's sections are guarded by its lock
+    private final Map<String, Map<String, Pending>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingEdits = new AtomicInteger();
+
+    // Edits and writes of one commit are serialized on its stripe; other commits go ahead in parallel
+    private static final int STRIPES = 64;
+    private final Object[] locks = new Object[STRIPES];
+    // Bumped under a stripe's lock by every write, so a read made outside the lock can tell it is stale
+    private final AtomicLongArray writes = new AtomicLongArray(STRIPES);
+
+    private static final class Pending {
+        final Note note;
+        // Version of the stored note the write is checked against; null for a new note
+        final Long baseVersion;
+
+        Pending(Note note, Long baseVersion) {
+            this.note = note;
+            this.baseVersion = baseVersion;
+        }
+    }
+
+    public NoteWriteBuffer(NoteStore noteStore, SearchIndexService searchIndexService,
+            @Qualifier("noteFlushScheduler") ScheduledExecutorService scheduler, MeterRegistry meterRegistry,
+            @Value("${inctrl.notes.write-behind-delay:2s}") Duration delay) {
+        this.noteStore = noteStore;
+        this.searchIndexService = searchIndexService;
+        this.scheduler = scheduler;
+        this.delayMillis = delay.toMillis();
+        this.submitted = Counter.builder("inctrl.notes.edits").tag("result", "submitted").register(meterRegistry);
+        this.written = Counter.builder("inctrl.notes.edits").tag("result", "written").register(meterRegistry);
+        this.conflicts = Counter.builder("inctrl.notes.edits").tag("result", "conflict").register(meterRegistry);
+        Gauge.builder("inctrl.notes.pending", pendingEdits, AtomicInteger::get).register(meterRegistry);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Buffers an edit to one section and returns the note as it will be stored.
+     * A zero delay writes through immediately, and a conflict found by that write
+     * is thrown like one found up front.
+     */
+    public Note submit(String commitSha, NoteEdit edit) {
+        int stripe = stripe(commitSha);
+        long seen = writes.get(stripe);
+        // Read ahead of the lock; only a note without a pending edit needs the stored one
+        Map<String, Note> stored = pending.containsKey(commitSha) ? null : noteStore.findAll(commitSha);
+
+        Note note;
+        boolean schedule;
+        boolean wrote = false;
+        synchronized (locks[stripe]) {
+            Map<String, Pending> sections = pending.get(commitSha);
+            Pending current = sections != null ? sections.get(edit.getSection()) : null;
+            if (current == null && (stored == null || writes.get(stripe) != seen)) {
+                stored = noteStore.findAll(commitSha);
+            }
+            Note latest = current != null ? current.note : stored.get(edit.getSection());
+            if (latest != null && edit.getVersion() != null && edit.getVersion() != latest.getVersion()) {
+                conflicts.increment();
+                throw new NoteConflictException(commitSha, List.of(edit.getSection()));
+            }
+
+            // A pending edit keeps the base version of the first one; a fresh edit takes the stored note's
+            Long baseVersion = current != null ? current.baseVersion : latest != null ? latest.getVersion() : null;
+            note = new Note(commitSha, edit.getSection(), edit.getContent() != null ? edit.getContent() : "");
+            if (latest != null) {
+                note.setId(latest.getId());
+            }
+            note.setVersion(baseVersion != null ? baseVersion + 1 : 0);
+            submitted.increment();
+            schedule = sections == null;
+            if (pending.computeIfAbsent(commitSha, sha -> new LinkedHashMap<>())
+                    .put(edit.getSection(), new Pending(note, baseVersion)) == null) {
+                pendingEdits.incrementAndGet();
+            }
+            if (delayMillis <= 0) {
+                wrote = write(commitSha, true);
+            }
+        }
+
+        if (wrote) {
+            searchIndexService.indexCommit(commitSha);
+        } else if (delayMillis > 0 && schedule) {
+            scheduler.schedule(() -> flushQuietly(commitSha), delayMillis, TimeUnit.MILLISECONDS);
+        }
+        return note;
+    }
+
+    /**
+     * Writes several sections at once, in one transaction, after anything still
+     * pending for the commit.
+     */
+    public Map<String, Note> writeAll(String commitSha, List<NoteEdit> edits) {
+        int stripe = stripe(commitSha);
+        boolean flushed = false;
+        Map<String, Note> notes = null;
+        try {
+            synchronized (locks[stripe]) {
+                flushed = write(commitSha, false);
+                notes = noteStore.upsert(commitSha, edits);
+                writes.incrementAndGet(stripe);
+            }
+            written.increment(edits.size());
+            return notes;
+        } finally {
+            // The flushed edits are stored even when the batch itself conflicts
+            if (flushed || notes != null) {
+                searchIndexService.indexCommit(commitSha);
+            }
+        }
+    }
+
+    /**
+     * All sections of a commit's notes, with pending edits in place of stored ones.
+     */
+    public Map<String, Note> readAll(String commitSha) {
+        int stripe = stripe(commitSha);
+        long seen = writes.get(stripe);
+        Map<String, Note> notes = noteStore.findAll(commitSha);
+        synchronized (locks[stripe]) {
+            if (writes.get(stripe) != seen) {
+                // Pending edits were written between the read and the lock
+                notes = noteStore.findAll(commitSha);
+            }
+            Map<String, Pending> sections = pending.get(commitSha);
+            if (sections != null) {
+                for (Map.Entry<String, Pending> entry : sections.entrySet()) {
+                    notes.put(entry.getKey(), entry.getValue().note);
+                }
+            }
+        }
+        return notes;
+    }
+
+    public Optional<Note> read(String commitSha, String section) {
+        return Optional.ofNullable(readAll(commitSha).get(section));
+    }
+
+    /**
+     * Writes a commit's pending edits. A conflict here means the note was changed
+     * behind the buffer's back (e.g. by another instance); the stored note wins and
+     * the buffered edit is dropped with a warning.
+     */
+    public void flush(String commitSha) {
+        if (write(commitSha, false)) {
+            searchIndexService.indexCommit(commitSha);
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        for (String commitSha : new ArrayList<>(pending.keySet())) {
+            flushQuietly(commitSha);
+        }
+    }
+
+    /**
+     * Writes a commit's pending edits under its lock, leaving the reindex to the
+     * caller. A write-through save is still in front of its editor, so it gets the
+     * conflict rather than the warning.
+     *
+     * @return whether anything was written.
+     */
+    private boolean write(String commitSha, boolean rethrowConflict) {
+        int stripe = stripe(commitSha);
+        synchronized (locks[stripe]) {
+            Map<String, Pending> sections = pending.remove(commitSha);
+            if (sections == null || sections.isEmpty()) {
+                return false;
+            }
+            pendingEdits.addAndGet(-sections.size());
+            List<NoteEdit> edits = new ArrayList<>();
+            sections.forEach((section, edit) ->
+                    edits.add(new NoteEdit(section, edit.note.getContent(), edit.baseVersion)));
+            try {
+                noteStore.upsert(commitSha, edits);
+            } catch (NoteConflictException e) {
+                conflicts.increment(e.getSections().size());
+                if (rethrowConflict) {
+                    throw e;
+                }
+                log.warn("Dropped buffered note edit(s) for {}: {}", commitSha, e.getMessage());
+                return false;
+            }
+            writes.incrementAndGet(stripe);
+            written.increment(edits.size());
+            return true;
+        }
+    }
+
+    private void flushQuietly(String commitSha) {
+        try {
+            flush(commitSha);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write buffered notes for {}: {}", commitSha, e.getMessage());
+        }
+    }
+
+    private static int stripe(String commitSha) {
+        return Math.floorMod(commitSha.hashCode(), STRIPES);
+    }
+}
@@ -0,0 +1,153 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.model.IngestJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Turns GitHub push deliveries into pre-computed audits. Every pushed commit is
+ * queued as an ingest job, so by the time someone opens it the analysis is
+ * already in the history table and the analysis cache.
+ */
+@Service
+public class PushWebhookService {
+
+    private static final Logger log = LoggerFactory.getLogger(PushWebhookService.class);
+    private static final String SIGNATURE_PREFIX = "sha256=";
+
+    private final IngestJobService ingestJobService;
+    private final ObjectMapper objectMapper;
+    private final byte[] secret;
+    private final Set<String> branches;
+    private final int maxCommitsPerPush;
+    private final MeterRegistry meterRegistry;
+
+    public PushWebhookService(IngestJobService ingestJobService,
+            @Value("${inctrl.webhook.secret:}") String secret,
+            @Value("${inctrl.webhook.branches:}") String branches,
+            @Value("${inctrl.webhook.max-commits-per-push:20}") int maxCommitsPerPush,
+            MeterRegistry meterRegistry) {
+        this.ingestJobService = ingestJobService;
+        this.objectMapper = new ObjectMapper();
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.branches = Arrays.stream(branches.split(","))
+                .map(String::trim)
+                .filter(b -> !b.isEmpty())
+                .collect(Collectors.toSet());
+        this.maxCommitsPerPush = maxCommitsPerPush;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * The endpoint refuses every delivery until a secret is configured.
+     */
+    public boolean isEnabled() {
+        return secret.length > 0;
+    }
+
+    /**
+     * Checks an X-Hub-Signature-256 header against the HMAC-SHA256 of the raw body,
+     * in constant time.
+     */
+    public boolean verifySignature(byte[] body, String signatureHeader) {
+        if (!isEnabled() || signatureHeader == null || !signatureHeader.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        byte[] expected = sign(body);
+        byte[] actual;
+        try {
+            actual = HexFormat.of().parseHex(signatureHeader.substring(SIGNATURE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    byte[] sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute webhook signature: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queues the distinct commits of a push payload and returns what happened to it.
+     * Branch deletions, filtered branches and unsupported repositories queue nothing.
+     */
+    public Map<String, Object> handlePush(byte[] body) {
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(body);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Malformed push payload: " + e.getMessage());
+        }
+
+        String ref = payload.path("ref").asText("");
+        String branch = ref.startsWith("refs/heads/") ? ref.substring("refs/heads/".length()) : ref;
+        String repoUrl = payload.path("repository").path("html_url").asText("");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("repository", repoUrl);
+        result.put("branch", branch);
+        if (payload.path("deleted").asBoolean(false) || (!branches.isEmpty() && !branches.contains(branch))) {
+            count("ignored");
+            result.put("queued", List.of());
+            return result;
+        }
+
+        List<String> queued = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (JsonNode commit : payload.path("commits")) {
+            // Non-distinct commits were already delivered with an earlier push
+            if (!commit.path("distinct").asBoolean(true)) {
+                continue;
+            }
+            String sha = commit.path("id").asText("");
+            if (sha.isEmpty() || queued.size() >= maxCommitsPerPush) {
+                skipped.add(sha);
+                continue;
+            }
+            try {
+                IngestJob job = ingestJobService.submitPrecompute(repoUrl + "/commit/" + sha);
+                (job != null ? queued : skipped).add(sha);
+            } catch (IllegalArgumentException e) {
+                log.info("Ignoring pushed commit {} of {}: {}", sha, repoUrl, e.getMessage());
+                skipped.add(sha);
+            } catch (RejectedExecutionException e) {
+                log.warn("Ingest queue is full; not pre-computing {} of {}", sha, repoUrl);
+                skipped.add(sha);
+            }
+        }
+        count(queued.isEmpty() ? "ignored" : "queued");
+        result.put("queued", queued);
+        result.put("skipped", skipped);
+        return result;
+    }
+
+    private void count(String outcome) {
+        Counter.builder("inctrl.webhook.pushes").tag("outcome", outcome).register(meterRegistry).increment();
+    }
+}
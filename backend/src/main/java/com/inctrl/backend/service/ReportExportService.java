@@ -0,0 +1,197 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.Note;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the Knowledge Ownership Report for a whole repository. Audits are read
+ * through a forward-only JPA stream joined with their notes and written out one
+ * commit at a time, so memory use does not grow with the size of the repository.
+ */
+@Service
+public class ReportExportService {
+
+    public enum Format { MARKDOWN, JSONL }
+
+    // Detach loaded entities this often so the persistence context stays small
+    private static final int CLEAR_EVERY = 100;
+
+    private final AuditedCommitRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ReportExportService(AuditedCommitRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Streams every audit of the repository, oldest first, to {@code out} and
+     * returns the number of commits written. The stream is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long export(String repoUrl, Format format, OutputStream out) throws IOException {
+        try (Stream<Object[]> rows = repository.streamReportRows(repoUrl)) {
+            Iterator<Object[]> it = rows.iterator();
+            if (format == Format.JSONL) {
+                return writeJsonLines(it, out);
+            }
+            return writeMarkdown(repoUrl, it, out);
+        }
+    }
+
+    private long writeJsonLines(Iterator<Object[]> rows, OutputStream out) throws IOException {
+        // The generator must not close the response stream when a line is done
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        long written = forEachCommit(rows, (commit, notes) -> {
+            generator.writeStartObject();
+            generator.writeStringField("commitSha", commit.getCommitSha());
+            generator.writeStringField("repoUrl", commit.getRepoUrl());
+            generator.writeStringField("tag", commit.getTag());
+            generator.writeStringField("createdAt", commit.getCreatedAt() != null ? commit.getCreatedAt().toString() : null);
+            generator.writeFieldName("analysis");
+            JsonNode analysis = readAnalysis(commit.getAnalysisJson());
+            if (analysis != null) {
+                objectMapper.writeTree(generator, analysis);
+            } else {
+                generator.writeNull();
+            }
+            generator.writeObjectFieldStart("notes");
+            for (Note note : notes) {
+                generator.writeStringField(note.getSection(), note.getContent());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+        return written;
+    }
+
+    private long writeMarkdown(String repoUrl, Iterator<Object[]> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("# Knowledge Ownership Report\n\n");
+        writer.write("Repository: " + repoUrl + "\n\n");
+
+        long written = forEachCommit(rows, (commit, notes) -> {
+            JsonNode analysis = readAnalysis(commit.getAnalysisJson());
+            writer.write("## " + commit.getCommitSha());
+            if (commit.getTag() != null && !commit.getTag().isBlank()) {
+                writer.write(" [" + commit.getTag() + "]");
+            }
+            writer.write("\n\n");
+            if (commit.getCreatedAt() != null) {
+                writer.write("Audited: " + commit.getCreatedAt() + "\n\n");
+            }
+            if (analysis == null) {
+                writer.write("_Analysis unavailable._\n\n");
+            } else {
+                writeMarkdownAnalysis(analysis, writer);
+            }
+            if (!notes.isEmpty()) {
+                writer.write("### Developer Notes\n\n");
+                for (Note note : notes) {
+                    writer.write("**" + note.getSection() + "**\n\n" + note.getContent() + "\n\n");
+                }
+            }
+        });
+        writer.flush();
+        return written;
+    }
+
+    private void writeMarkdownAnalysis(JsonNode analysis, Writer writer) throws IOException {
+        String summary = analysis.path("summary").asText("");
+        if (!summary.isBlank()) {
+            writer.write(summary + "\n\n");
+        }
+        List<String> technologies = new ArrayList<>();
+        analysis.path("technologies").forEach(t -> technologies.add(t.asText()));
+        if (!technologies.isEmpty()) {
+            writer.write("Technologies: " + String.join(", ", technologies) + "\n\n");
+        }
+        if (analysis.path("faults").size() > 0) {
+            writer.write("### Fault Points\n\n");
+            for (JsonNode fault : analysis.path("faults")) {
+                writer.write("- **" + fault.path("point").asText("") + "**: " + fault.path("risk").asText("") + "\n");
+            }
+            writer.write("\n");
+        }
+        if (analysis.path("alternatives").size() > 0) {
+            writer.write("### Alternatives\n\n");
+            for (JsonNode alternative : analysis.path("alternatives")) {
+                writer.write("- **" + alternative.path("method").asText("") + "**: "
+                        + alternative.path("justification").asText("") + "\n");
+            }
+            writer.write("\n");
+        }
+    }
+
+    private interface CommitWriter {
+        void write(AuditedCommit commit, List<Note> notes) throws IOException;
+    }
+
+    /**
+     * Groups the (commit, note) rows, which arrive ordered by commit, and hands
+     * each commit with its notes to the writer. Only one commit is held at a time.
+     */
+    private long forEachCommit(Iterator<Object[]> rows, CommitWriter writer) throws IOException {
+        AuditedCommit current = null;
+        List<Note> notes = new ArrayList<>();
+        long written = 0;
+
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            AuditedCommit commit = (AuditedCommit) row[0];
+            Note note = (Note) row[1];
+            if (current != null && !current.getCommitSha().equals(commit.getCommitSha())) {
+                writer.write(current, notes);
+                notes = new ArrayList<>();
+                if (++written % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            }
+            current = commit;
+            if (note != null) {
+                notes.add(note);
+            }
+        }
+        if (current != null) {
+            writer.write(current, notes);
+            written++;
+        }
+        return written;
+    }
+
+    private JsonNode readAnalysis(String analysisJson) {
+        if (analysisJson == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(analysisJson);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
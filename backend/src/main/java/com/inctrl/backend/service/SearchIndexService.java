@@ -0,0 +1,395 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.dto.SearchHit;
+import com.inctrl.backend.dto.SearchResponse;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.Note;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.repository.NoteRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.DrillDownQuery;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Embedded Lucene index over audited commits and their notes, so searches and
+ * facet counts never have to scan the compressed payload columns in H2.
+ * One document per audited commit; any write to the commit or its notes
+ * replaces that document. Writes become searchable through a near-real-time
+ * reopen and are committed to disk on a timer and at shutdown.
+ */
+@Service
+public class SearchIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexService.class);
+
+    private static final String FIELD_SHA = "commitSha";
+    private static final String FIELD_REPO = "repo";
+    private static final String FIELD_TAG = "tag";
+    private static final String FIELD_TECHNOLOGY = "technology";
+    private static final String FIELD_SUMMARY = "summary";
+    private static final String FIELD_FAULTS = "faults";
+    private static final String FIELD_NOTES = "notes";
+    private static final String FIELD_BODY = "body";
+    private static final String FIELD_CREATED = "createdAt";
+    private static final String FIELD_CREATED_SORT = "createdAtSort";
+    private static final int FACET_LIMIT = 10;
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            FIELD_SUMMARY, 3f, FIELD_TECHNOLOGY, 3f, FIELD_FAULTS, 2f, FIELD_NOTES, 1.5f, FIELD_BODY, 1f);
+
+    private final AuditedCommitRepository auditedCommitRepository;
+    private final NoteRepository noteRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StandardAnalyzer analyzer = new StandardAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ScheduledFuture<?> periodicCommit;
+
+    // Facet ordinals of the reader the searcher manager currently hands out
+    private volatile FacetState facetState;
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+
+    public SearchIndexService(AuditedCommitRepository auditedCommitRepository, NoteRepository noteRepository,
+            @Value("${inctrl.search.index-dir:./data/search-index}") String indexDir,
+            @Qualifier("searchCommitScheduler") ScheduledExecutorService scheduler,
+            @Value("${inctrl.search.commit-interval:30s}") Duration commitInterval) throws IOException {
+        this.auditedCommitRepository = auditedCommitRepository;
+        this.noteRepository = noteRepository;
+        facetsConfig.setMultiValued(FIELD_TECHNOLOGY, true);
+        this.directory = FSDirectory.open(Path.of(indexDir));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        long intervalMillis = commitInterval.toMillis();
+        this.periodicCommit = scheduler.scheduleWithFixedDelay(this::commitQuietly, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rebuilds the index when it has drifted from the database, e.g. on first
+     * start after upgrading or after the index directory was deleted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfStale() {
+        long expected = auditedCommitRepository.count();
+        if (writer.getDocStats().numDocs == expected) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Failed to rebuild search index: {}", e.getMessage());
+        }
+    }
+
+    void rebuild() throws IOException {
+        long started = System.currentTimeMillis();
+        writer.deleteAll();
+        Map<String, List<Note>> notesBySha = noteRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Note::getCommitSha));
+        int indexed = 0;
+        Page<AuditedCommit> page;
+        int pageNumber = 0;
+        do {
+            page = auditedCommitRepository.findAll(PageRequest.of(pageNumber++, 100));
+            for (AuditedCommit commit : page) {
+                writer.addDocument(toDocument(commit, notesBySha.getOrDefault(commit.getCommitSha(), List.of())));
+                indexed++;
+            }
+        } while (page.hasNext());
+        writer.commit();
+        searcherManager.maybeRefresh();
+        log.info("Rebuilt search index with {} commit(s) in {} ms", indexed, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Re-indexes one commit after its audit, tag or notes changed. Failures are
+     * logged rather than thrown: the database write has already succeeded.
+     */
+    public void indexCommit(String commitSha) {
+        auditedCommitRepository.findById(commitSha).ifPresent(commit -> indexCommits(List.of(commit)));
+    }
+
+    public void indexCommits(Collection<AuditedCommit> commits) {
+        if (commits.isEmpty()) {
+            return;
+        }
+        try {
+            for (AuditedCommit commit : commits) {
+                Document doc = toDocument(commit, noteRepository.findAllByCommitSha(commit.getCommitSha()));
+                writer.updateDocument(new Term(FIELD_SHA, commit.getCommitSha()), doc);
+            }
+            // Visible to the next search without waiting for the commit
+            searcherManager.maybeRefresh();
+        } catch (Exception e) {
+            log.warn("Failed to index {} commit(s): {}", commits.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Ranked full-text search with optional facet filters. A blank query browses
+     * newest first, which together with the filters doubles as faceted navigation.
+     */
+    public SearchResponse search(String queryText, String tag, String repo, String technology, int limit) {
+        long started = System.nanoTime();
+        boolean browse = queryText == null || queryText.isBlank();
+        DrillDownQuery query = new DrillDownQuery(facetsConfig, browse ? new MatchAllDocsQuery() : parse(queryText));
+        if (tag != null && !tag.isBlank()) query.add(FIELD_TAG, tag);
+        if (repo != null && !repo.isBlank()) query.add(FIELD_REPO, repo);
+        if (technology != null && !technology.isBlank()) query.add(FIELD_TECHNOLOGY, technology.toLowerCase());
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            FacetsCollectorManager.FacetsResult result = browse
+                    ? FacetsCollectorManager.search(searcher, query, limit,
+                            new Sort(new SortField(FIELD_CREATED_SORT, SortField.Type.LONG, true)),
+                            new FacetsCollectorManager())
+                    : FacetsCollectorManager.search(searcher, query, limit, new FacetsCollectorManager());
+            TopDocs topDocs = result.topDocs();
+
+            List<SearchHit> hits = new ArrayList<>();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                Document doc = searcher.storedFields().document(scoreDoc.doc);
+                hits.add(new SearchHit(doc.get(FIELD_SHA), doc.get(FIELD_REPO), doc.get(FIELD_TAG),
+                        doc.get(FIELD_SUMMARY), List.of(doc.getValues(FIELD_TECHNOLOGY)), doc.get(FIELD_CREATED),
+                        browse ? 0f : scoreDoc.score));
+            }
+            long tookMs = (System.nanoTime() - started) / 1_000_000;
+            return new SearchResponse(topDocs.totalHits.value, tookMs, hits, countFacets(searcher, result.facetsCollector()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to search index: " + e.getMessage(), e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException ignored) {
+                    // Releasing only decrements a reference count
+                }
+            }
+        }
+    }
+
+    private Query parse(String queryText) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+                FIELD_BOOSTS.keySet().toArray(new String[0]), analyzer, FIELD_BOOSTS);
+        try {
+            return parser.parse(queryText);
+        } catch (ParseException e) {
+            // Treat input like "C++" or an unbalanced quote as plain words
+            try {
+                return parser.parse(QueryParser.escape(queryText));
+            } catch (ParseException again) {
+                throw new IllegalArgumentException("Invalid search query: " + again.getMessage(), again);
+            }
+        }
+    }
+
+    private Map<String, Map<String, Integer>> countFacets(IndexSearcher searcher, FacetsCollector collector)
+            throws IOException {
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        Facets facets;
+        try {
+            facets = new SortedSetDocValuesFacetCounts(facetStateFor(searcher.getIndexReader()), collector);
+        } catch (IllegalArgumentException e) {
+            // Nothing with facet fields has been indexed yet
+            return result;
+        }
+        for (String dim : List.of(FIELD_TAG, FIELD_REPO, FIELD_TECHNOLOGY)) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            FacetResult facetResult;
+            try {
+                facetResult = facets.getTopChildren(FACET_LIMIT, dim);
+            } catch (IllegalArgumentException e) {
+                facetResult = null;
+            }
+            if (facetResult != null) {
+                for (LabelAndValue labelAndValue : facetResult.labelValues) {
+                    counts.put(labelAndValue.label, labelAndValue.value.intValue());
+                }
+            }
+            result.put(dim, counts);
+        }
+        return result;
+    }
+
+    /**
+     * Building the ordinal map walks every segment, so it is done once per reader
+     * rather than once per query.
+     */
+    private SortedSetDocValuesReaderState facetStateFor(IndexReader reader) throws IOException {
+        FacetState cached = facetState;
+        if (cached != null && cached.reader() == reader) {
+            return cached.state();
+        }
+        SortedSetDocValuesReaderState state = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+        facetState = new FacetState(reader, state);
+        return state;
+    }
+
+    private Document toDocument(AuditedCommit commit, List<Note> notes) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_SHA, commit.getCommitSha(), Field.Store.YES));
+        doc.add(new StoredField(FIELD_REPO, commit.getRepoUrl()));
+        doc.add(new SortedSetDocValuesFacetField(FIELD_REPO, commit.getRepoUrl()));
+        if (commit.getTag() != null && !commit.getTag().isBlank()) {
+            doc.add(new StoredField(FIELD_TAG, commit.getTag()));
+            doc.add(new SortedSetDocValuesFacetField(FIELD_TAG, commit.getTag()));
+        }
+        if (commit.getCreatedAt() != null) {
+            doc.add(new StoredField(FIELD_CREATED, commit.getCreatedAt().toString()));
+            doc.add(new NumericDocValuesField(FIELD_CREATED_SORT,
+                    commit.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()));
+        }
+
+        JsonNode analysis = readAnalysis(commit.getAnalysisJson());
+        String summary = analysis.path("summary").asText("");
+        doc.add(new TextField(FIELD_SUMMARY, summary, Field.Store.YES));
+
+        // Top-level and per-file technologies, lower-cased so "JPA" and "jpa" share a facet
+        Set<String> technologies = new LinkedHashSet<>();
+        collectTechnologies(analysis.path("technologies"), technologies);
+        for (JsonNode file : analysis.path("files")) {
+            collectTechnologies(file.path("technologies"), technologies);
+        }
+        for (String technology : technologies) {
+            doc.add(new TextField(FIELD_TECHNOLOGY, technology, Field.Store.YES));
+            doc.add(new SortedSetDocValuesFacetField(FIELD_TECHNOLOGY, technology));
+        }
+
+        StringBuilder faults = new StringBuilder();
+        appendText(analysis.path("faults"), faults);
+        doc.add(new TextField(FIELD_FAULTS, faults.toString(), Field.Store.NO));
+
+        StringBuilder noteText = new StringBuilder();
+        for (Note note : notes) {
+            if (note.getContent() != null) {
+                noteText.append(note.getContent()).append('\n');
+            }
+        }
+        doc.add(new TextField(FIELD_NOTES, noteText.toString(), Field.Store.NO));
+
+        StringBuilder body = new StringBuilder();
+        appendText(analysis, body);
+        doc.add(new TextField(FIELD_BODY, body.toString(), Field.Store.NO));
+
+        return facetsConfig.build(doc);
+    }
+
+    private JsonNode readAnalysis(String analysisJson) {
+        if (analysisJson == null) {
+            return objectMapper.createObjectNode();
+        }
+        try {
+            return objectMapper.readTree(analysisJson);
+        } catch (Exception e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private static void collectTechnologies(JsonNode node, Set<String> into) {
+        for (JsonNode value : node) {
+            String technology = value.asText("").trim().toLowerCase();
+            if (!technology.isEmpty()) {
+                into.add(technology);
+            }
+        }
+    }
+
+    private static void appendText(JsonNode node, StringBuilder into) {
+        if (node.isTextual()) {
+            into.append(node.asText()).append('\n');
+        } else if (node.isContainerNode()) {
+            node.forEach(child -> appendText(child, into));
+        }
+    }
+
+    /**
+     * Makes indexed changes durable. Runs on the commit timer and at shutdown;
+     * an unclean stop loses at most one interval, which the start-up rebuild repairs.
+     */
+    void commit() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (Exception e) {
+            log.warn("Failed to commit search index: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        periodicCommit.cancel(false);
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+}
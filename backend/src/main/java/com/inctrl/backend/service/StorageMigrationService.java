@@ -0,0 +1,145 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.CompressedTextConverter;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-time data migrations for rows written by older versions of the schema.
+ * Each step is idempotent and only touches rows that still need it.
+ */
+@Service
+public class StorageMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMigrationService.class);
+
+    private final AuditedCommitRepository auditedCommitRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean dropLegacyColumns;
+    private final Map<String, Object> compressionResults = new LinkedHashMap<>();
+
+    public StorageMigrationService(AuditedCommitRepository auditedCommitRepository, JdbcTemplate jdbcTemplate,
+            @Value("${inctrl.storage.drop-legacy-columns:true}") boolean dropLegacyColumns) {
+        this.auditedCommitRepository = auditedCommitRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dropLegacyColumns = dropLegacyColumns;
+    }
+
+    /**
+     * Runs once the schema has been updated but before the web server accepts
+     * requests, because the legacy NOT NULL CLOB columns would reject inserts.
+     */
+    @PostConstruct
+    public void compressLegacyColumns() {
+        compressColumn("audited_commits", "commit_sha", "analysis_json", "analysis_json_gz");
+        compressColumn("notes", "id", "content", "content_gz");
+        compressColumn("analysis_cache", "cache_key", "analysis_json", "analysis_json_gz");
+        compressColumn("commit_diff_cache", "cache_key", "body", "body_gz");
+        compressColumn("ingest_jobs", "job_id", "analysis_json", "analysis_json_gz");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        backfillHistorySummaries();
+    }
+
+    /**
+     * Copies a legacy CLOB column into its gzip-compressed replacement and drops
+     * the old column, logging how much space the rewrite saved. Rows copied by an
+     * interrupted earlier run are left alone. Every copy is read back before it is
+     * written, and the column is only dropped once no row is left without its copy.
+     */
+    void compressColumn(String table, String idColumn, String legacyColumn, String compressedColumn) {
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = 'PUBLIC' "
+                        + "AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                Integer.class, table.toUpperCase(), legacyColumn.toUpperCase());
+        if (exists == null || exists == 0) {
+            return;
+        }
+        List<Object> ids = jdbcTemplate.queryForList("SELECT " + idColumn + " FROM " + table
+                + " WHERE " + legacyColumn + " IS NOT NULL AND " + compressedColumn + " IS NULL", Object.class);
+        long rawBytes = 0;
+        long storedBytes = 0;
+        for (Object id : ids) {
+            String text = jdbcTemplate.queryForObject(
+                    "SELECT " + legacyColumn + " FROM " + table + " WHERE " + idColumn + " = ?", String.class, id);
+            if (text == null) {
+                continue;
+            }
+            byte[] compressed = CompressedTextConverter.compress(text);
+            if (!text.equals(CompressedTextConverter.decompress(compressed))) {
+                throw new IllegalStateException("Compressed copy of " + table + "." + legacyColumn + " for "
+                        + id + " does not read back");
+            }
+            jdbcTemplate.update("UPDATE " + table + " SET " + compressedColumn + " = ? WHERE " + idColumn + " = ?",
+                    compressed, id);
+            rawBytes += text.getBytes(StandardCharsets.UTF_8).length;
+            storedBytes += compressed.length;
+        }
+        Integer uncopied = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table
+                + " WHERE " + legacyColumn + " IS NOT NULL AND " + compressedColumn + " IS NULL", Integer.class);
+        if (uncopied != null && uncopied > 0 || !dropLegacyColumns) {
+            // Kept for inspection, but no longer in the way of inserts that only fill the new column
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + legacyColumn + " SET NULL");
+            log.warn("Keeping {}.{} ({} row(s) without a compressed copy)", table, legacyColumn, uncopied);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + legacyColumn);
+        }
+
+        double ratio = storedBytes == 0 ? 0.0 : Math.round(rawBytes * 100.0 / storedBytes) / 100.0;
+        synchronized (compressionResults) {
+            compressionResults.put(table + "." + legacyColumn, Map.of(
+                    "rows", ids.size(), "rawBytes", rawBytes, "storedBytes", storedBytes, "compressionRatio", ratio));
+        }
+        log.info("Compressed {}.{} for {} row(s): {} -> {} bytes ({}x)",
+                table, legacyColumn, ids.size(), rawBytes, storedBytes, ratio);
+    }
+
+    /**
+     * Results of the legacy column rewrite plus live converter totals.
+     */
+    public Map<String, Object> getCompressionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (compressionResults) {
+            stats.put("migrated", new LinkedHashMap<>(compressionResults));
+        }
+        stats.put("writes", CompressedTextConverter.getStats());
+        return stats;
+    }
+
+    /**
+     * Fills the summary preview column for audits saved before it existed.
+     */
+    void backfillHistorySummaries() {
+        List<String> shas = auditedCommitRepository.findShasWithoutSummary();
+        if (shas.isEmpty()) {
+            return;
+        }
+        int updated = 0;
+        for (String sha : shas) {
+            AuditedCommit commit = auditedCommitRepository.findById(sha).orElse(null);
+            if (commit == null) {
+                continue;
+            }
+            // Unparseable analyses get an empty preview so they are not retried on every start
+            commit.setSummary(AuditedCommit.previewOf(commit.getAnalysisJson()));
+            auditedCommitRepository.save(commit);
+            updated++;
+        }
+        log.info("Backfilled history summary previews for {} audit(s)", updated);
+    }
+}
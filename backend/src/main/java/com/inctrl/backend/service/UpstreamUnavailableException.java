@@ -0,0 +1,19 @@
+package com.inctrl.backend.service;
+
+/**
+ * Thrown without calling upstream when every candidate model's circuit breaker is
+ * open. Carries how long until the earliest breaker lets a trial call through.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public UpstreamUnavailableException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,94 @@
+package com.inctrl.backend.controller;
+
+import com.inctrl.backend.dto.CommitInfo;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.service.BackfillService;
+import com.inctrl.backend.service.ChatSessionService;
+import com.inctrl.backend.service.CommitAnalysisService;
+import com.inctrl.backend.service.CommitPrefetcher;
+import com.inctrl.backend.service.CommitSources;
+import com.inctrl.backend.service.GeminiService;
+import com.inctrl.backend.service.IngestJobService;
+import com.inctrl.backend.service.ReportExportService;
+import com.inctrl.backend.service.SearchIndexService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that saved audits and commit list pages are served with strong ETags and
+ * answer a matching If-None-Match with an empty 304 until they change.
+ */
+class ConditionalGetTests {
+
+	private final AuditedCommitRepository repository = mock(AuditedCommitRepository.class);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new HistoryController(repository,
+			mock(SearchIndexService.class), mock(ReportExportService.class))).build();
+
+	private final CommitSources commitSources = mock(CommitSources.class);
+	private final MockMvc auditMvc = MockMvcBuilders.standaloneSetup(new AuditController(commitSources,
+			mock(GeminiService.class), mock(CommitAnalysisService.class), mock(IngestJobService.class),
+			mock(BackfillService.class), mock(ChatSessionService.class), mock(ExecutorService.class),
+			mock(CommitPrefetcher.class), 30, Duration.ofSeconds(60))).build();
+
+	@Test
+	void revalidatesAuditsByETag() throws Exception {
+		AuditedCommit commit = new AuditedCommit("abc123", "https://github.com/o/r", "{\"summary\":\"s\"}", null);
+		when(repository.findById("abc123")).thenReturn(Optional.of(commit));
+
+		String etag = mockMvc.perform(get("/api/history/abc123"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+
+		mockMvc.perform(get("/api/history/abc123").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		commit.setTag("reviewed");
+		mockMvc.perform(get("/api/history/abc123").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+	}
+
+	@Test
+	void revalidatesCommitPagesUntilANewCommitArrives() throws Exception {
+		String repoUrl = "https://github.com/o/r";
+		List<CommitInfo> commits = new ArrayList<>(List.of(new CommitInfo("b2", "Second", "a", "2026-01-02"),
+				new CommitInfo("a1", "First", "a", "2026-01-01")));
+		when(commitSources.fetchCommitList(repoUrl, 1, 30)).thenAnswer(invocation -> List.copyOf(commits));
+
+		String etag = auditMvc.perform(get("/api/audit/commits").param("repoUrl", repoUrl))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, must-revalidate"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+
+		auditMvc.perform(get("/api/audit/commits").param("repoUrl", repoUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		commits.add(0, new CommitInfo("c3", "Third", "a", "2026-01-03"));
+		auditMvc.perform(get("/api/audit/commits").param("repoUrl", repoUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+	}
+}
@@ -0,0 +1,103 @@
+package com.inctrl.backend.controller;
+
+import com.inctrl.backend.config.SecondLevelCacheConfig;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.service.ReportExportService;
+import com.inctrl.backend.service.SearchIndexService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pages through the history list against H2, checking the keyset cursor, rows that
+ * share a created_at, the last page and the 400 for cursors that do not decode.
+ */
+@DataJpaTest
+@Import(SecondLevelCacheConfig.class)
+class HistoryPagingTests {
+
+	private static final String REPO = "https://github.com/o/r";
+	private static final LocalDateTime TIE = LocalDateTime.of(2026, 1, 2, 12, 0);
+
+	@Autowired
+	private AuditedCommitRepository repository;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		save("c1", TIE.minusDays(1));
+		// Three audits saved in the same instant; commit_sha decides their order
+		save("c2", TIE);
+		save("c3", TIE);
+		save("c4", TIE);
+		save("c5", TIE.plusDays(1));
+		mockMvc = MockMvcBuilders.standaloneSetup(new HistoryController(repository, mock(SearchIndexService.class),
+				mock(ReportExportService.class))).build();
+	}
+
+	@Test
+	void pagesNewestFirstAcrossTiedTimestamps() throws Exception {
+		String cursor = page(null, "c5", "c4");
+		assertThat(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8))
+				.isEqualTo(TIE + "|c4");
+
+		cursor = page(cursor, "c3", "c2");
+		assertThat(page(cursor, "c1")).isNull();
+	}
+
+	@Test
+	void exactlyFullLastPageHasNoCursor() throws Exception {
+		mockMvc.perform(get("/api/history").param("limit", "5"))
+				.andExpect(jsonPath("$.items.length()").value(5))
+				.andExpect(jsonPath("$.nextCursor").value(nullValue()));
+	}
+
+	@Test
+	void malformedCursorIsABadRequest() throws Exception {
+		for (String cursor : List.of("not base64!", encode("no-separator"), encode("yesterday|c3"))) {
+			mockMvc.perform(get("/api/history").param("cursor", cursor)).andExpect(status().isBadRequest());
+		}
+	}
+
+	// Fetches one page of two, checks its SHAs and returns its cursor
+	private String page(String cursor, String... shas) throws Exception {
+		var request = get("/api/history").param("limit", "2");
+		if (cursor != null) {
+			request.param("cursor", cursor);
+		}
+		String body = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse()
+				.getContentAsString();
+		List<String> returned = JsonPath.read(body, "$.items[*].commitSha");
+		assertThat(returned).containsExactly(shas);
+		return JsonPath.read(body, "$.nextCursor");
+	}
+
+	private void save(String sha, LocalDateTime createdAt) {
+		AuditedCommit commit = new AuditedCommit(sha, REPO, "{\"summary\":\"" + sha + "\"}", null);
+		commit.setCreatedAt(createdAt);
+		repository.save(commit);
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
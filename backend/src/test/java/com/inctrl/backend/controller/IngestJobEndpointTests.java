@@ -0,0 +1,77 @@
+package com.inctrl.backend.controller;
+
+import com.inctrl.backend.model.IngestJob;
+import com.inctrl.backend.service.BackfillService;
+import com.inctrl.backend.service.ChatSessionService;
+import com.inctrl.backend.service.CommitAnalysisService;
+import com.inctrl.backend.service.CommitPrefetcher;
+import com.inctrl.backend.service.CommitSources;
+import com.inctrl.backend.service.GeminiService;
+import com.inctrl.backend.service.IngestJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the asynchronous ingest endpoints: job polling in each state and the 503
+ * when the ingest queue is full.
+ */
+class IngestJobEndpointTests {
+
+	private final IngestJobService ingestJobService = mock(IngestJobService.class);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AuditController(mock(CommitSources.class),
+			mock(GeminiService.class), mock(CommitAnalysisService.class), ingestJobService,
+			mock(BackfillService.class), mock(ChatSessionService.class), mock(ExecutorService.class),
+			mock(CommitPrefetcher.class), 30, Duration.ofSeconds(60))).build();
+
+	@Test
+	void reportsJobStateUntilTheAnalysisIsReady() throws Exception {
+		IngestJob job = new IngestJob("job-1", "https://github.com/o/r/commit/abc123", null);
+		when(ingestJobService.find("job-1")).thenReturn(Optional.of(job));
+
+		mockMvc.perform(get("/api/audit/jobs/job-1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("queued"));
+
+		job.setStatus(IngestJob.Status.SUCCEEDED);
+		job.setAnalysisJson("{\"summary\":\"s\"}");
+		mockMvc.perform(get("/api/audit/jobs/job-1"))
+				.andExpect(jsonPath("$.status").value("success"))
+				.andExpect(jsonPath("$.analysis").value("{\"summary\":\"s\"}"));
+
+		job.setStatus(IngestJob.Status.FAILED);
+		job.setErrorMessage("Gemini said no");
+		mockMvc.perform(get("/api/audit/jobs/job-1"))
+				.andExpect(jsonPath("$.status").value("error"))
+				.andExpect(jsonPath("$.message").value("Gemini said no"));
+
+		mockMvc.perform(get("/api/audit/jobs/missing")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void fullQueueAnswers503() throws Exception {
+		when(ingestJobService.submit(anyString(), any())).thenThrow(new RejectedExecutionException("full"));
+
+		mockMvc.perform(post("/api/audit/ingest").param("async", "true")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"githubUrl\":\"https://github.com/o/r/commit/abc123\"}"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "30"));
+	}
+}
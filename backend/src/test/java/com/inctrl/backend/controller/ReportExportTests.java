@@ -0,0 +1,125 @@
+package com.inctrl.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.Note;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.service.ReportExportService;
+import com.inctrl.backend.service.SearchIndexService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Downloads the ownership report of a stubbed repository as Markdown and JSON Lines,
+ * plain and gzipped, and checks the errors for unknown repositories and formats.
+ */
+class ReportExportTests {
+
+	private static final String REPO = "https://github.com/o/r";
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final AuditedCommitRepository repository = mock(AuditedCommitRepository.class);
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new HistoryController(repository,
+			mock(SearchIndexService.class), new ReportExportService(repository, mock(EntityManager.class)))).build();
+
+	@BeforeEach
+	void setUp() {
+		AuditedCommit cached = new AuditedCommit("a1", REPO,
+				"{\"summary\":\"Adds caching\",\"technologies\":[\"Redis\"]}", "perf");
+		cached.setCreatedAt(LocalDateTime.of(2026, 1, 1, 12, 0));
+		AuditedCommit broken = new AuditedCommit("a2", REPO, "not json", null);
+		broken.setCreatedAt(LocalDateTime.of(2026, 1, 2, 12, 0));
+		Note why = new Note("a1", "why", "Lookups were slow");
+		Note risks = new Note("a1", "risks", "Stale reads");
+
+		when(repository.existsByRepoUrl(REPO)).thenReturn(true);
+		// Rows arrive as the join returns them: one per note, ordered by commit
+		when(repository.streamReportRows(REPO)).thenAnswer(invocation -> Stream.of(
+				new Object[] { cached, risks }, new Object[] { cached, why }, new Object[] { broken, null }));
+	}
+
+	@Test
+	void exportsMarkdownOneSectionPerCommit() throws Exception {
+		MvcResult result = export("/api/history/export?repoUrl=" + REPO);
+		assertThat(result.getResponse().getContentType()).startsWith("text/markdown");
+		assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION))
+				.contains("r-ownership-report.md");
+
+		List<String> lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines()
+				.filter(line -> !line.isBlank()).toList();
+		assertThat(lines).filteredOn(line -> line.startsWith("## ")).containsExactly("## a1 [perf]", "## a2");
+		// Title, repository, then heading, date, summary, technologies, notes heading and two notes for a1
+		// and heading, date and the unavailable marker for a2
+		assertThat(lines).hasSize(14).contains("Technologies: Redis", "_Analysis unavailable._", "Stale reads");
+	}
+
+	@Test
+	void exportsOneJsonLinePerCommit() throws Exception {
+		MvcResult result = export("/api/history/export?repoUrl=" + REPO + "&format=jsonl");
+		assertThat(result.getResponse().getContentType()).isEqualTo("application/x-ndjson");
+
+		List<String> lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+		assertThat(lines).hasSize(2);
+		JsonNode first = MAPPER.readTree(lines.get(0));
+		assertThat(first.path("commitSha").asText()).isEqualTo("a1");
+		assertThat(first.path("analysis").path("summary").asText()).isEqualTo("Adds caching");
+		assertThat(first.path("notes").path("why").asText()).isEqualTo("Lookups were slow");
+		assertThat(MAPPER.readTree(lines.get(1)).path("analysis").isNull()).isTrue();
+	}
+
+	@Test
+	void gzippedExportInflatesToThePlainOne() throws Exception {
+		byte[] plain = export("/api/history/export?repoUrl=" + REPO + "&format=jsonl")
+				.getResponse().getContentAsByteArray();
+		MvcResult result = export("/api/history/export?repoUrl=" + REPO + "&format=jsonl&gzip=true");
+
+		assertThat(result.getResponse().getContentType()).isEqualTo("application/gzip");
+		assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION))
+				.contains("r-ownership-report.jsonl.gz");
+		try (GZIPInputStream in = new GZIPInputStream(
+				new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+			assertThat(in.readAllBytes()).isEqualTo(plain);
+		}
+	}
+
+	@Test
+	void unknownRepositoryIsNotFound() throws Exception {
+		mockMvc.perform(get("/api/history/export").param("repoUrl", "https://github.com/o/missing"))
+				.andExpect(status().isNotFound())
+				.andExpect(request().asyncNotStarted());
+	}
+
+	@Test
+	void unknownFormatIsABadRequest() throws Exception {
+		mockMvc.perform(get("/api/history/export").param("repoUrl", REPO).param("format", "pdf"))
+				.andExpect(status().isBadRequest())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+	}
+
+	private MvcResult export(String url) throws Exception {
+		MvcResult started = mockMvc.perform(get(url)).andExpect(request().asyncStarted()).andReturn();
+		return mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+	}
+}
@@ -0,0 +1,90 @@
+package com.inctrl.backend.repository;
+
+import com.inctrl.backend.config.SecondLevelCacheConfig;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.Note;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads of audits and notes are served from the second-level cache after the first
+ * one, and writes through the repositories are visible to the next read. Every
+ * repository call commits on its own, as it does behind the controllers.
+ */
+@DataJpaTest
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private AuditedCommitRepository auditedCommitRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void resetStatistics() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		noteRepository.deleteAll();
+		auditedCommitRepository.deleteAll();
+	}
+
+	@Test
+	void commitNotesQueryIsCachedAndInvalidatedByBulkSave() {
+		noteRepository.saveAll(List.of(new Note("abc123", "summary", "first"), new Note("abc123", "risks", "none")));
+
+		assertThat(noteRepository.findAllByCommitSha("abc123")).hasSize(2);
+		assertThat(noteRepository.findAllByCommitSha("abc123")).hasSize(2);
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+		// The same bulk write NoteStore makes
+		List<Note> notes = noteRepository.findAllByCommitSha("abc123");
+		notes.forEach(note -> note.setContent("second"));
+		noteRepository.saveAllAndFlush(notes);
+		long hits = statistics.getQueryCacheHitCount();
+
+		assertThat(noteRepository.findAllByCommitSha("abc123")).extracting(Note::getContent)
+				.containsOnly("second");
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits);
+	}
+
+	@Test
+	void auditReadsHitTheEntityCacheAndSeeTagUpdates() {
+		auditedCommitRepository.save(new AuditedCommit("def456", "https://github.com/o/r", "{\"summary\":\"s\"}", null));
+
+		auditedCommitRepository.findById("def456");
+		auditedCommitRepository.findById("def456");
+		assertThat(statistics.getDomainDataRegionStatistics(SecondLevelCacheConfig.AUDITED_COMMITS).getHitCount())
+				.isGreaterThanOrEqualTo(1);
+
+		AuditedCommit commit = auditedCommitRepository.findById("def456").orElseThrow();
+		commit.setTag("reviewed");
+		auditedCommitRepository.save(commit);
+
+		assertThat(auditedCommitRepository.findById("def456")).get()
+				.extracting(AuditedCommit::getTag).isEqualTo("reviewed");
+	}
+}
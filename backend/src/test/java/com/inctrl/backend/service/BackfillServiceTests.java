@@ -0,0 +1,189 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.BackfillProgress;
+import com.inctrl.backend.dto.BackfillRequest;
+import com.inctrl.backend.dto.CommitInfo;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs back-fills over a stubbed commit list, checking how the range is listed,
+ * how results are batched into the history table and what the progress reports.
+ */
+class BackfillServiceTests {
+
+	private static final String REPO = "https://github.com/o/r";
+
+	private final Map<String, AuditedCommit> table = new ConcurrentHashMap<>();
+	private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+	private final CommitSources commitSources = mock(CommitSources.class);
+	private final CommitAnalysisService analysisService = mock(CommitAnalysisService.class);
+	private final GitHubRateLimiter rateLimiter = mock(GitHubRateLimiter.class);
+	private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+	private final ExecutorService workers = Executors.newFixedThreadPool(2);
+	private AuditedCommitRepository repository;
+	private BackfillService service;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(AuditedCommitRepository.class);
+		when(repository.existsById(anyString())).thenAnswer(invocation -> table.containsKey(invocation.getArgument(0)));
+		when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+			List<AuditedCommit> saved = new ArrayList<>();
+			for (Object o : (Iterable<?>) invocation.getArgument(0)) {
+				AuditedCommit commit = (AuditedCommit) o;
+				table.put(commit.getCommitSha(), commit);
+				saved.add(commit);
+			}
+			batchSizes.add(saved.size());
+			return saved;
+		});
+		when(commitSources.supports(REPO)).thenReturn(true);
+		when(analysisService.analyze(anyString(), isNull())).thenAnswer(invocation -> "{\"summary\":\""
+				+ invocation.<String>getArgument(0) + "\"}");
+
+		service = backfill(Duration.ofHours(1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		coordinator.shutdownNow();
+		workers.shutdownNow();
+	}
+
+	@Test
+	void listsAcrossPagesUntilFromShaAndBatchesTheWrites() throws Exception {
+		// 150 commits newest first: page 1 is full, page 2 holds the rest
+		List<CommitInfo> commits = new ArrayList<>();
+		for (int i = 150; i > 0; i--) {
+			commits.add(new CommitInfo("sha" + i, "m", "a", "d"));
+		}
+		stubPages(commits);
+		table.put("sha140", new AuditedCommit("sha140", REPO, "{}", "reviewed"));
+
+		BackfillRequest request = request();
+		request.setFromSha("sha143");
+		BackfillProgress progress = runToEnd(request);
+
+		// sha150..sha144; fromSha itself is not part of the range
+		assertThat(progress.getStatus()).isEqualTo("done");
+		assertThat(progress.getTotal()).isEqualTo(7);
+		assertThat(progress.getAnalyzed()).isEqualTo(7);
+		assertThat(progress.getSkipped()).isZero();
+		assertThat(batchSizes).containsExactly(3, 3, 1);
+		assertThat(table).containsKeys("sha150", "sha144").doesNotContainKey("sha143");
+
+		request.setFromSha("sha137");
+		progress = runToEnd(request);
+		assertThat(progress.getTotal()).isEqualTo(5);
+		assertThat(progress.getSkipped()).isEqualTo(8);
+		assertThat(table.get("sha140").getTag()).isEqualTo("reviewed");
+	}
+
+	@Test
+	void keepsAuditsSavedByAUserDuringTheRun() throws Exception {
+		stubPages(List.of(new CommitInfo("a1", "m", "a", "d"), new CommitInfo("a2", "m", "a", "d")));
+		when(analysisService.analyze(eq(REPO + "/commit/a1"), isNull())).thenAnswer(invocation -> {
+			// The user opens and tags the commit while its analysis is still running
+			table.put("a1", new AuditedCommit("a1", REPO, "{\"summary\":\"mine\"}", "keep"));
+			return "{\"summary\":\"backfill\"}";
+		});
+
+		BackfillProgress progress = runToEnd(request());
+
+		assertThat(progress.getAnalyzed()).isEqualTo(1);
+		assertThat(progress.getSkipped()).isEqualTo(1);
+		assertThat(table.get("a1").getTag()).isEqualTo("keep");
+		assertThat(table.get("a1").getAnalysisJson()).contains("mine");
+	}
+
+	@Test
+	void interruptedCommitCountsAsOneFailure() throws Exception {
+		stubPages(List.of(new CommitInfo("b1", "m", "a", "d"), new CommitInfo("b2", "m", "a", "d"),
+				new CommitInfo("b3", "m", "a", "d")));
+		// The first call is the listing; the next one, in a worker, is interrupted
+		AtomicInteger acquires = new AtomicInteger();
+		doAnswer(invocation -> {
+			if (acquires.incrementAndGet() == 2) {
+				throw new InterruptedException();
+			}
+			return null;
+		}).when(rateLimiter).acquireBackground();
+
+		BackfillProgress progress = runToEnd(request());
+
+		assertThat(progress.getStatus()).isEqualTo("done");
+		assertThat(progress.getFailed()).isEqualTo(1);
+		assertThat(progress.getAnalyzed()).isEqualTo(2);
+		assertThat(progress.getErrors()).hasSize(1).allMatch(error -> error.contains("Interrupted"));
+	}
+
+	@Test
+	void finishedRunsAreDroppedAfterTheRetention() throws Exception {
+		stubPages(List.of(new CommitInfo("c1", "m", "a", "d")));
+		BackfillProgress kept = runToEnd(request());
+		runToEnd(request());
+		assertThat(service.find(kept.getBackfillId())).isPresent();
+
+		service = backfill(Duration.ZERO);
+		BackfillProgress dropped = runToEnd(request());
+		assertThat(service.find(dropped.getBackfillId())).isPresent();
+		BackfillProgress next = service.start(request());
+		assertThat(service.find(dropped.getBackfillId())).isEmpty();
+		assertThat(service.find(next.getBackfillId())).isPresent();
+	}
+
+	private BackfillService backfill(Duration runRetention) {
+		return new BackfillService(commitSources, analysisService, repository, rateLimiter,
+				mock(SearchIndexService.class), new SimpleMeterRegistry(), coordinator, workers, 3, 5_000, 2, 1,
+				runRetention);
+	}
+
+	private void stubPages(List<CommitInfo> commits) {
+		when(commitSources.fetchCommitList(eq(REPO), anyInt(), anyInt(), isNull(), isNull(), isNull()))
+				.thenAnswer(invocation -> {
+					int page = invocation.getArgument(1);
+					int perPage = invocation.getArgument(2);
+					int from = Math.min((page - 1) * perPage, commits.size());
+					return commits.subList(from, Math.min(from + perPage, commits.size()));
+				});
+	}
+
+	private BackfillProgress runToEnd(BackfillRequest request) throws InterruptedException {
+		BackfillProgress progress = service.start(request);
+		for (int i = 0; i < 500 && !List.of("done", "failed", "cancelled").contains(progress.getStatus()); i++) {
+			Thread.sleep(10);
+		}
+		return progress;
+	}
+
+	private static BackfillRequest request() {
+		BackfillRequest request = new BackfillRequest();
+		request.setRepoUrl(REPO);
+		return request;
+	}
+}
@@ -0,0 +1,134 @@
+package com.inctrl.backend.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs chat sessions against a local stub of the Gemini cachedContents and
+ * streamGenerateContent endpoints.
+ */
+class ChatSessionServiceTests {
+
+	private static final String COMMIT_URL = "https://github.com/owner/repo/commit/abc123";
+	private static final String LARGE_DIFF = "{\"files\":[{\"patch\":\"" + "+line of code\\n".repeat(1000) + "\"}]}";
+
+	private HttpServer server;
+	private CommitSources commitSources;
+	private ChatSessionService chatSessionService;
+
+	private final List<String> cacheRequests = new CopyOnWriteArrayList<>();
+	private final List<String> streamRequests = new CopyOnWriteArrayList<>();
+	private final AtomicInteger answers = new AtomicInteger();
+	private final AtomicBoolean cacheGone = new AtomicBoolean();
+
+	@BeforeEach
+	void startStub() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v1beta/cachedContents", exchange -> {
+			cacheRequests.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			respond(exchange, 200, "application/json", "{\"name\":\"cachedContents/c1\"}");
+		});
+		server.createContext("/v1beta/models/", exchange -> {
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			streamRequests.add(body);
+			if (cacheGone.get() && body.contains("cachedContent")) {
+				respond(exchange, 404, "application/json", "{\"error\":{\"code\":404}}");
+				return;
+			}
+			respond(exchange, 200, "text/event-stream", "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"Answer "
+					+ answers.incrementAndGet() + "\"}]}}]}\r\n\r\n");
+		});
+		server.start();
+
+		GeminiService geminiService = new GeminiService(new RestTemplate(), GeminiResilienceTests.resilience("gemini-test", ""),
+				new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(geminiService, "geminiApiKey", "test-key");
+		ReflectionTestUtils.setField(geminiService, "baseUrl",
+				"http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta");
+
+		commitSources = mock(CommitSources.class);
+		when(commitSources.resolveCommitKey(COMMIT_URL)).thenReturn("owner/repo/abc123");
+		chatSessionService = new ChatSessionService(commitSources, geminiService, Runnable::run,
+				new SimpleMeterRegistry(), 10, 20, Duration.ofMinutes(30), 8000);
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void followUpsSendOnlyHistoryAndTheNewTurnAgainstTheCache() {
+		when(commitSources.fetchCommitDetails(COMMIT_URL)).thenReturn(LARGE_DIFF);
+
+		ChatSession session = chatSessionService.open(null, COMMIT_URL, "context");
+		assertThat(chatSessionService.ask(session, "What changed?", chunk -> {})).isEqualTo("Answer 1");
+		ChatSession resumed = chatSessionService.open(session.getId(), COMMIT_URL, "context");
+		assertThat(chatSessionService.ask(resumed, "Why?", chunk -> {})).isEqualTo("Answer 2");
+
+		assertThat(resumed).isSameAs(session);
+		assertThat(cacheRequests).hasSize(1);
+		assertThat(cacheRequests.get(0)).contains("+line of code").contains("\"ttl\":\"1800s\"");
+		String followUp = streamRequests.get(1);
+		assertThat(followUp).contains("\"cachedContent\":\"cachedContents/c1\"")
+				.contains("What changed?").contains("Answer 1").contains("Why?")
+				.doesNotContain("+line of code");
+	}
+
+	@Test
+	void smallDiffsAreSentInlineWithTheConversation() {
+		when(commitSources.fetchCommitDetails(COMMIT_URL)).thenReturn("{\"files\":[]}");
+
+		ChatSession session = chatSessionService.open(null, COMMIT_URL, null);
+		chatSessionService.ask(session, "What changed?", chunk -> {});
+		chatSessionService.ask(session, "Why?", chunk -> {});
+
+		assertThat(cacheRequests).isEmpty();
+		assertThat(streamRequests.get(1)).contains("Git Diff Context").contains("Answer 1").contains("Why?")
+				.doesNotContain("cachedContent");
+	}
+
+	@Test
+	void expiredCacheFallsBackToInlineContext() {
+		when(commitSources.fetchCommitDetails(COMMIT_URL)).thenReturn(LARGE_DIFF);
+		ChatSession session = chatSessionService.open(null, COMMIT_URL, null);
+		chatSessionService.ask(session, "What changed?", chunk -> {});
+
+		cacheGone.set(true);
+		String answer = chatSessionService.ask(session, "Why?", chunk -> {});
+
+		assertThat(answer).isEqualTo("Answer 2");
+		assertThat(streamRequests.get(streamRequests.size() - 1)).contains("+line of code")
+				.doesNotContain("cachedContent");
+	}
+
+	private static void respond(HttpExchange exchange, int status, String contentType, String body)
+			throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
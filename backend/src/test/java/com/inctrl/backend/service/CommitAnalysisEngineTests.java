@@ -0,0 +1,186 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.FileChange;
+import com.inctrl.backend.repository.CachedFileInsightRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs CommitAnalysisEngine against a local Gemini stub that answers the single-pass,
+ * file-group and reduce prompts, checking which of them a commit is sent through.
+ */
+class CommitAnalysisEngineTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private HttpServer server;
+	private final Map<String, AtomicInteger> callsByOperation = new ConcurrentHashMap<>();
+	// Every group call waits here until a second one is in flight
+	private final CountDownLatch groupsInFlight = new CountDownLatch(2);
+	private final AtomicBoolean groupsOverlapped = new AtomicBoolean(true);
+	private final ExecutorService mapExecutor = Executors.newFixedThreadPool(4);
+	private CommitAnalysisEngine engine;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/v1beta/models/", this::handle);
+		server.start();
+
+		GeminiService geminiService = new GeminiService(new RestTemplate(),
+				GeminiResilienceTests.resilience("gemini-test", ""), new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(geminiService, "geminiApiKey", "test-key");
+		ReflectionTestUtils.setField(geminiService, "baseUrl",
+				"http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta");
+		FileInsightStore fileInsightStore = new FileInsightStore(mock(CachedFileInsightRepository.class), 100,
+				new SimpleMeterRegistry());
+		DiffBudgeter budgeter = new DiffBudgeter("", 20_000, 100_000, 4, new SimpleMeterRegistry());
+		// Commits above 1000 patch chars are mapped in groups of at most 600
+		engine = new CommitAnalysisEngine(geminiService, fileInsightStore, budgeter, mapExecutor, 1_000, 600);
+	}
+
+	@AfterEach
+	void tearDown() {
+		mapExecutor.shutdownNow();
+		server.stop(0);
+	}
+
+	@Test
+	void smallCommitGoesOutInOneCall() throws Exception {
+		String analysis = engine.analyze(commit(file("A.java", 100), file("B.java", 100)), "context");
+
+		assertThat(calls("analyze")).isEqualTo(1);
+		assertThat(calls("file_group")).isZero();
+		assertThat(calls("reduce")).isZero();
+		assertThat(MAPPER.readTree(analysis).path("summary").asText()).isEqualTo("single pass");
+	}
+
+	@Test
+	void largeCommitIsMappedPerGroupInParallelAndReduced() throws Exception {
+		String analysis = engine.analyze(commit(file("A.java", 500), file("B.java", 500), file("C.java", 500)),
+				"context");
+
+		assertThat(calls("analyze")).isZero();
+		assertThat(calls("file_group")).isEqualTo(3);
+		assertThat(calls("reduce")).isEqualTo(1);
+		assertThat(groupsOverlapped).isTrue();
+
+		JsonNode result = MAPPER.readTree(analysis);
+		assertThat(result.path("summary").asText()).isEqualTo("merged 3 files");
+		List<String> filenames = new ArrayList<>();
+		result.path("files").forEach(f -> filenames.add(f.path("filename").asText()));
+		assertThat(filenames).containsExactly("A.java", "B.java", "C.java");
+	}
+
+	@Test
+	void packsFilesIntoGroupsAndCutsOversizedPatches() {
+		List<ArrayNode> groups = engine.groupFiles(List.of(file("A.java", 200), file("B.java", 300),
+				file("C.java", 200), file("Huge.java", 2_000)));
+
+		assertThat(groups).extracting(ArrayNode::size).containsExactly(2, 1, 1);
+		String cut = groups.get(2).get(0).path("patch").asText();
+		assertThat(cut).startsWith("+").endsWith("[patch truncated]").hasSizeLessThan(700);
+	}
+
+	@Test
+	void failedGroupFailsTheAnalysisWithoutReducing() {
+		assertThatThrownBy(() -> engine.analyze(
+				commit(file("A.java", 500), file("Broken.java", 500), file("C.java", 500)), "context"))
+				.isInstanceOf(RuntimeException.class)
+				.hasMessageContaining("file group");
+		assertThat(calls("reduce")).isZero();
+	}
+
+	private int calls(String operation) {
+		return callsByOperation.computeIfAbsent(operation, o -> new AtomicInteger()).get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+		String systemPrompt = request.path("system_instruction").path("parts").path("text").asText();
+		String userPrompt = request.path("contents").get(0).path("parts").get(0).path("text").asText();
+
+		int status = 200;
+		ObjectNode answer = MAPPER.createObjectNode();
+		if (systemPrompt.contains("SOME of the files")) {
+			callsByOperation.computeIfAbsent("file_group", o -> new AtomicInteger()).incrementAndGet();
+			groupsInFlight.countDown();
+			try {
+				if (!groupsInFlight.await(5, TimeUnit.SECONDS)) {
+					groupsOverlapped.set(false);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			JsonNode files = MAPPER.readTree(userPrompt.substring(userPrompt.indexOf("Changed Files JSON: ") + 20));
+			ArrayNode insights = answer.putArray("files");
+			for (JsonNode file : files) {
+				if (file.path("filename").asText().equals("Broken.java")) {
+					status = 400;
+				}
+				insights.addObject().put("filename", file.path("filename").asText()).put("summary", "changed");
+			}
+		} else if (systemPrompt.contains("analyzed file by file")) {
+			callsByOperation.computeIfAbsent("reduce", o -> new AtomicInteger()).incrementAndGet();
+			JsonNode insights = MAPPER.readTree(userPrompt.substring(userPrompt.indexOf("Per-File Insights JSON: ") + 24));
+			answer.put("summary", "merged " + insights.size() + " files");
+		} else {
+			callsByOperation.computeIfAbsent("analyze", o -> new AtomicInteger()).incrementAndGet();
+			answer.put("summary", "single pass");
+		}
+
+		ObjectNode response = MAPPER.createObjectNode();
+		response.putArray("candidates").addObject().putObject("content").putArray("parts").addObject()
+				.put("text", MAPPER.writeValueAsString(answer));
+		byte[] bytes = (status == 200 ? MAPPER.writeValueAsString(response) : "{\"error\":{\"code\":400}}")
+				.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static CommitDiff commit(FileChange... files) {
+		CommitDiff commit = new CommitDiff();
+		commit.setSha("abc123");
+		commit.setMessage("Change things");
+		commit.setFiles(List.of(files));
+		return commit;
+	}
+
+	private static FileChange file(String filename, int patchChars) {
+		return new FileChange(filename, "modified", 10, 2, "+x;\n".repeat(patchChars / 4));
+	}
+}
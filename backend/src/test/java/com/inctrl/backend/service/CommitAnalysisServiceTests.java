@@ -0,0 +1,130 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.repository.CachedAnalysisRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Starts several analyses of the same commit while the first is held at a latch,
+ * checking that they share one upstream call and leave nothing in flight.
+ */
+class CommitAnalysisServiceTests {
+
+	private static final String URL = "https://github.com/o/r/commit/abc123";
+	private static final int CALLERS = 4;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CommitAnalysisEngine engine = mock(CommitAnalysisEngine.class);
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+	private CommitAnalysisService service;
+
+	@BeforeEach
+	void setUp() {
+		CommitSources commitSources = mock(CommitSources.class);
+		when(commitSources.resolveCommitKey(URL)).thenReturn("o/r/abc123");
+		when(commitSources.fetchCommitDiff(URL)).thenReturn(new CommitDiff());
+		CachedAnalysisRepository cacheRepository = mock(CachedAnalysisRepository.class);
+		// Nothing is ever cached, so each round has to go upstream or wait on the one that does
+		when(cacheRepository.findById(anyString())).thenReturn(Optional.empty());
+		service = new CommitAnalysisService(commitSources, engine, cacheRepository, meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void concurrentRequestsShareOneUpstreamCall() throws Exception {
+		when(engine.analyze(any(), any())).thenAnswer(invocation -> {
+			upstreamCalls.incrementAndGet();
+			release.await(5, TimeUnit.SECONDS);
+			return "{\"summary\":\"once\"}";
+		});
+
+		List<Future<String>> results = startCallers();
+		awaitCoalesced();
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("{\"summary\":\"once\"}");
+		}
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(inFlight()).isEmpty();
+	}
+
+	@Test
+	void failureReachesEveryWaiterAndClearsTheEntry() throws Exception {
+		when(engine.analyze(any(), any())).thenAnswer(invocation -> {
+			upstreamCalls.incrementAndGet();
+			release.await(5, TimeUnit.SECONDS);
+			throw new RuntimeException("Gemini said no");
+		});
+
+		List<Future<String>> results = startCallers();
+		awaitCoalesced();
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+					.hasRootCauseMessage("Gemini said no");
+		}
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(inFlight()).isEmpty();
+
+		// The next request is not handed the old failure
+		doReturn("{\"summary\":\"retried\"}").when(engine).analyze(any(), any());
+		assertThat(service.analyze(URL, null)).isEqualTo("{\"summary\":\"retried\"}");
+	}
+
+	private List<Future<String>> startCallers() {
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(callers.submit(() -> service.analyze(URL, null)));
+		}
+		return results;
+	}
+
+	// Every caller but the one that went upstream has joined its call
+	private void awaitCoalesced() throws InterruptedException {
+		for (int i = 0; i < 500 && coalesced() < CALLERS - 1; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(coalesced()).isEqualTo(CALLERS - 1);
+	}
+
+	private double coalesced() {
+		return meterRegistry.get("inctrl.cache.analysis.lookups").tag("result", "coalesced").counter().count();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, ?> inFlight() {
+		return (Map<String, ?>) ReflectionTestUtils.getField(service, "inFlight");
+	}
+}
@@ -0,0 +1,105 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.CachedCommitDiff;
+import com.inctrl.backend.repository.CachedCommitDiffRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs both cache tiers over a stubbed table kept in write order: LRU eviction
+ * by chars in memory, the disk fallback behind it, its bound and the counters.
+ */
+class CommitDiffCacheTests {
+
+	// Insertion order stands in for fetched_at
+	private final Map<String, CachedCommitDiff> table = new LinkedHashMap<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private CachedCommitDiffRepository repository;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(CachedCommitDiffRepository.class);
+		when(repository.save(any(CachedCommitDiff.class))).thenAnswer(invocation -> {
+			CachedCommitDiff row = invocation.getArgument(0);
+			table.put(row.getCacheKey(), row);
+			return row;
+		});
+		when(repository.findById(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+		when(repository.existsById(anyString()))
+				.thenAnswer(invocation -> table.containsKey(invocation.<String>getArgument(0)));
+		when(repository.sumSizeChars())
+				.thenAnswer(invocation -> table.values().stream().mapToLong(CachedCommitDiff::getSizeChars).sum());
+		when(repository.findOldestKeysAndSizes(any())).thenAnswer(invocation -> {
+			List<Object[]> rows = new ArrayList<>();
+			table.values().forEach(row -> rows.add(new Object[] { row.getCacheKey(), row.getSizeChars() }));
+			return rows;
+		});
+		when(repository.deleteByCacheKeys(any())).thenAnswer(invocation -> {
+			Collection<String> keys = invocation.getArgument(0);
+			keys.forEach(table::remove);
+			return keys.size();
+		});
+	}
+
+	@Test
+	void memoryEvictsLeastRecentlyUsedByChars() {
+		CommitDiffCache cache = new CommitDiffCache(repository, 10, 1_000, meterRegistry);
+		cache.put("a", "aaaa");
+		cache.put("b", "bbbb");
+		cache.get("a");
+		cache.put("c", "cccc");
+
+		Map<String, Object> stats = cache.getStats();
+		assertThat(stats).containsEntry("memoryEntries", 2).containsEntry("memoryChars", 8L)
+				.containsEntry("evictions", 1L);
+
+		// "b" was the least recently used; it comes back from disk and is promoted
+		assertThat(cache.get("b")).contains("bbbb");
+		assertThat(cache.get("b")).contains("bbbb");
+		assertThat(cache.get("missing")).isEmpty();
+
+		assertThat(cache.getStats()).containsEntry("memoryHits", 2L).containsEntry("diskHits", 1L)
+				.containsEntry("misses", 1L);
+		assertThat(meterRegistry.get("inctrl.cache.diff.lookups").tag("result", "disk_hit").functionCounter()
+				.count()).isEqualTo(1);
+	}
+
+	@Test
+	void diskDropsOldestEntriesOnceOverItsCharBound() {
+		CommitDiffCache cache = new CommitDiffCache(repository, 1_000, 10, meterRegistry);
+		cache.put("a", "aaaa");
+		cache.put("b", "bbbb");
+		assertThat(table).hasSize(2);
+
+		cache.put("c", "cccc");
+
+		assertThat(table.keySet()).containsExactly("compact/b", "compact/c");
+		assertThat(cache.getStats()).containsEntry("evictions", 1L);
+	}
+
+	@Test
+	void oversizedBodySkipsMemoryButIsStoredOnDisk() {
+		CommitDiffCache cache = new CommitDiffCache(repository, 3, 1_000, meterRegistry);
+		cache.put("a", "aaaa");
+
+		assertThat(cache.getStats()).containsEntry("memoryEntries", 0);
+		assertThat(cache.contains("a")).isTrue();
+		assertThat(cache.get("a")).contains("aaaa");
+		assertThat(cache.getStats()).containsEntry("diskHits", 1L).containsEntry("misses", 0L);
+	}
+}
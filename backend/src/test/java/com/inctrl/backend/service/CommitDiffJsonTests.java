@@ -0,0 +1,55 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitDiff;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommitDiffJsonTests {
+
+	private static final String GITHUB_COMMIT = """
+			{
+			  "sha": "abc123",
+			  "node_id": "C_kwDO",
+			  "commit": {
+			    "author": {"name": "Dev", "email": "dev@example.com", "date": "2026-10-18T07:48:40Z"},
+			    "message": "Fix cursor decoding",
+			    "tree": {"sha": "t1", "url": "https://api.github.com/tree"},
+			    "verification": {"verified": true, "reason": "valid", "signature": "-----BEGIN PGP-----", "payload": "tree t1"}
+			  },
+			  "author": {"login": "dev", "avatar_url": "https://avatars.githubusercontent.com/u/1"},
+			  "parents": [{"sha": "p1", "url": "https://api.github.com/p1"}],
+			  "stats": {"total": 3, "additions": 2, "deletions": 1},
+			  "files": [
+			    {"sha": "f1", "filename": "src/A.java", "status": "modified", "additions": 2, "deletions": 1,
+			     "changes": 3, "blob_url": "https://github.com/blob", "raw_url": "https://github.com/raw",
+			     "patch": "@@ -1 +1,2 @@\\n-old\\n+new\\n+more"},
+			    {"filename": "img/logo.png", "previous_filename": "logo.png", "status": "renamed",
+			     "additions": 0, "deletions": 0}
+			  ]
+			}
+			""";
+
+	@Test
+	void readsOnlyTheFieldsTheAnalysisUses() {
+		CommitDiff diff = CommitDiffJson.read(GITHUB_COMMIT);
+
+		assertThat(diff.getSha()).isEqualTo("abc123");
+		assertThat(diff.getMessage()).isEqualTo("Fix cursor decoding");
+		assertThat(diff.getAuthorName()).isEqualTo("Dev");
+		assertThat(diff.getDate()).isEqualTo("2026-10-18T07:48:40Z");
+		assertThat(diff.getFiles()).hasSize(2);
+		assertThat(diff.getFiles().get(0).getPatch()).isEqualTo("@@ -1 +1,2 @@\n-old\n+new\n+more");
+		assertThat(diff.getFiles().get(1).getPreviousFilename()).isEqualTo("logo.png");
+		assertThat(diff.getFiles().get(1).getPatch()).isNull();
+	}
+
+	@Test
+	void compactFormReadsBackAndDropsUnusedFields() {
+		String compact = CommitDiffJson.write(CommitDiffJson.read(GITHUB_COMMIT));
+
+		assertThat(compact).doesNotContain("avatar_url", "verification", "blob_url", "parents", "node_id");
+		assertThat(compact.length()).isLessThan(GITHUB_COMMIT.length() / 2);
+		assertThat(CommitDiffJson.write(CommitDiffJson.read(compact))).isEqualTo(compact);
+	}
+}
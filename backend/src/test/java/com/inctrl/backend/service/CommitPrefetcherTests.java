@@ -0,0 +1,77 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CommitPrefetcherTests {
+
+	private static final String REPO_URL = "https://github.com/owner/repo";
+
+	private final CommitSources commitSources = mock(CommitSources.class);
+	private final CommitDiffCache diffCache = mock(CommitDiffCache.class);
+	private final GitHubRateLimiter rateLimiter = mock(GitHubRateLimiter.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ExecutorService executor;
+	private CommitPrefetcher prefetcher;
+
+	@BeforeEach
+	void setUp() {
+		executor = Executors.newSingleThreadExecutor();
+		prefetcher = new CommitPrefetcher(commitSources, diffCache, rateLimiter, executor, true, meterRegistry);
+		when(commitSources.resolveCommitKey(anyString())).thenAnswer(call -> call.getArgument(0));
+		when(rateLimiter.hasSpareBudget()).thenReturn(true);
+	}
+
+	@Test
+	void fetchesUncachedDiffsAndTheNextPageOfAFullPage() throws Exception {
+		when(diffCache.contains(REPO_URL + "/commit/aaa")).thenReturn(true);
+
+		prefetcher.afterPageServed(REPO_URL + "/", 1, 2, List.of(commit("aaa"), commit("bbb")));
+		drain();
+
+		verify(commitSources, never()).fetchCommitDetails(REPO_URL + "/commit/aaa");
+		verify(commitSources).fetchCommitDetails(REPO_URL + "/commit/bbb");
+		verify(commitSources).fetchCommitList(REPO_URL + "/", 2, 2, null, null, null);
+		assertThat(meterRegistry.get("inctrl.prefetch.tasks").tag("type", "diff").tag("outcome", "fetched")
+				.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void skipsWorkWithoutSpareBudgetAndForLocalClones() throws Exception {
+		when(rateLimiter.hasSpareBudget()).thenReturn(false);
+		prefetcher.afterPageServed(REPO_URL, 1, 10, List.of(commit("aaa")));
+		drain();
+		verify(commitSources, never()).fetchCommitDetails(anyString());
+		verify(commitSources, never()).fetchCommitList(anyString(), anyInt(), anyInt(), any(), any(), any());
+
+		when(commitSources.isLocal("file:///srv/git/repo")).thenReturn(true);
+		prefetcher.afterPageServed("file:///srv/git/repo", 1, 10, List.of(commit("ccc")));
+		verifyNoInteractions(diffCache);
+	}
+
+	private void drain() throws InterruptedException {
+		executor.shutdown();
+		assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private static CommitInfo commit(String sha) {
+		return new CommitInfo(sha, "message", "author", "2024-01-01T00:00:00Z");
+	}
+}
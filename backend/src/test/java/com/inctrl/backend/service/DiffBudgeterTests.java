@@ -0,0 +1,58 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.FileChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks which files the budgeting stage sends whole, cuts or stubs, and in what order.
+ */
+class DiffBudgeterTests {
+
+	private final DiffBudgeter budgeter = new DiffBudgeter("**/package-lock.json,**/*.min.js,**/dist/**", 1_000,
+			500, 4, new SimpleMeterRegistry());
+
+	@Test
+	void stubsIgnoredAndGeneratedFilesAndCutsOversizedPatches() {
+		List<FileChange> files = List.of(
+				file("frontend/package-lock.json", "+\"lodash\": \"4.17.21\""),
+				file("src/api_pb.ts", "@@ -0,0 +1,2 @@\n+// Code generated by protoc-gen-ts. DO NOT EDIT.\n+export {}"),
+				file("src/Service.java", "+int x = 1;\n".repeat(150)),
+				file("src/Small.java", "+int a;"));
+
+		DiffBudgeter.Budgeted budgeted = budgeter.apply(files);
+
+		assertThat(budgeted.files()).extracting(FileChange::getFilename)
+				.containsExactly("frontend/package-lock.json", "src/api_pb.ts", "src/Service.java", "src/Small.java");
+		assertThat(budgeted.files().get(0).getPatch()).startsWith("[patch omitted (ignored)");
+		assertThat(budgeted.files().get(2).getPatch()).hasSizeLessThan(1_100).contains("[patch truncated");
+		assertThat(budgeted.files().get(3).getPatch()).isEqualTo("+int a;");
+		assertThat(budgeted.pruned()).extracting(DiffBudgeter.PrunedFile::reason)
+				.containsExactly("ignored", "generated", "truncated");
+	}
+
+	@Test
+	void fillsTheBudgetWithSourceBeforeTestsAndDocs() {
+		// 500 tokens at 4 chars each leaves room for two of these three patches
+		String patch = "+" + "y".repeat(900);
+		List<FileChange> files = List.of(
+				file("README.md", patch),
+				file("src/test/java/FooTest.java", patch),
+				file("src/main/java/Foo.java", patch));
+
+		DiffBudgeter.Budgeted budgeted = budgeter.apply(files);
+
+		assertThat(budgeted.pruned()).extracting(DiffBudgeter.PrunedFile::filename).containsExactly("README.md");
+		assertThat(budgeted.pruned().get(0).reason()).isEqualTo("over_budget");
+		assertThat(DiffBudgeter.category("web/app.spec.ts")).isEqualTo(1);
+		assertThat(DiffBudgeter.category("web/latest.ts")).isZero();
+	}
+
+	private static FileChange file(String filename, String patch) {
+		return new FileChange(filename, "modified", 10, 2, patch);
+	}
+}
@@ -0,0 +1,150 @@
+package com.inctrl.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.FileChange;
+import com.inctrl.backend.model.CachedFileInsight;
+import com.inctrl.backend.repository.CachedFileInsightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a file change seen under one SHA is not sent to Gemini again when it
+ * reappears under another, e.g. after a cherry-pick onto a different base, and
+ * that the table stays within its bound.
+ */
+class FileInsightStoreTests {
+
+	private static final String PATCH = "@@ -10,3 +10,4 @@ class Foo\n int a = 1;\n+int b = 2;\n int c = 3;";
+	private static final String CHERRY_PICKED = "@@ -42,3 +42,4 @@ class Foo\n int a = 1;   \n+int b = 2;\n int c = 3;";
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	// Insertion order stands in for created_at
+	private final Map<String, CachedFileInsight> table = Collections.synchronizedMap(new LinkedHashMap<>());
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final GeminiService geminiService = mock(GeminiService.class);
+	private final ExecutorService mapExecutor = Executors.newSingleThreadExecutor();
+	private final CachedFileInsightRepository repository = mock(CachedFileInsightRepository.class);
+	private CommitAnalysisEngine engine;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+			List<CachedFileInsight> found = new ArrayList<>();
+			for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+				if (table.containsKey(id)) {
+					found.add(table.get(id));
+				}
+			}
+			return found;
+		});
+		when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+			for (Object saved : (Iterable<?>) invocation.getArgument(0)) {
+				table.put(((CachedFileInsight) saved).getPatchHash(), (CachedFileInsight) saved);
+			}
+			return List.of();
+		});
+		when(repository.count()).thenAnswer(invocation -> (long) table.size());
+		when(repository.findOldestHashes(any())).thenAnswer(invocation -> table.keySet().stream()
+				.limit(invocation.<Pageable>getArgument(0).getPageSize()).toList());
+		when(repository.deleteByPatchHashes(any())).thenAnswer(invocation -> {
+			Collection<String> hashes = invocation.getArgument(0);
+			hashes.forEach(table::remove);
+			return hashes.size();
+		});
+		engine = new CommitAnalysisEngine(geminiService, new FileInsightStore(repository, 100, meterRegistry),
+				new DiffBudgeter("", 20_000, 100_000, 4, new SimpleMeterRegistry()), mapExecutor, 60_000, 30_000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		mapExecutor.shutdownNow();
+	}
+
+	@Test
+	void patchHashIgnoresLineNumbersAndTrailingWhitespace() {
+		String original = FileInsightStore.patchHash(new FileChange("src/Foo.java", "modified", 1, 0, PATCH));
+		String picked = FileInsightStore.patchHash(new FileChange("src/Foo.java", "modified", 1, 0, CHERRY_PICKED));
+		String changed = FileInsightStore.patchHash(
+				new FileChange("src/Foo.java", "modified", 1, 0, PATCH.replace("b = 2", "b = 3")));
+
+		assertThat(picked).isEqualTo(original);
+		assertThat(changed).isNotEqualTo(original);
+		assertThat(FileInsightStore.patchHash(new FileChange("logo.png", "added", 0, 0, null))).isNull();
+	}
+
+	@Test
+	void cherryPickedCommitOnlyPaysForTheReduce() {
+		when(geminiService.analyzeCommit(anyString(), any())).thenReturn(
+				"{\"summary\":\"adds b\",\"files\":[{\"filename\":\"src/Foo.java\",\"summary\":\"adds b\","
+						+ "\"technologies\":[\"Java\"],\"faults\":[]}]}");
+		when(geminiService.reduceFileAnalyses(anyString(), anyString(), any())).thenReturn("{\"summary\":\"merged\"}");
+
+		engine.analyze(commit("aaa111", PATCH), null);
+		String picked = engine.analyze(commit("bbb222", CHERRY_PICKED), "Backported to release/1.2");
+
+		verify(geminiService, never()).analyzeFileGroup(anyString(), anyString());
+		verify(geminiService).reduceFileAnalyses(anyString(), anyString(), any());
+		assertThat(picked).contains("\"summary\":\"merged\"").contains("\"filename\":\"src/Foo.java\"");
+	}
+
+	@Test
+	void singlePassWithDeveloperContextIsNotReused() {
+		when(geminiService.analyzeCommit(anyString(), any())).thenReturn(
+				"{\"summary\":\"adds b\",\"files\":[{\"filename\":\"src/Foo.java\",\"summary\":\"adds b\"}]}");
+
+		engine.analyze(commit("aaa111", PATCH), "Part of the billing rewrite");
+		assertThat(table).isEmpty();
+
+		engine.analyze(commit("bbb222", CHERRY_PICKED), null);
+		verify(geminiService, times(2)).analyzeCommit(anyString(), any());
+		assertThat(table).hasSize(1);
+	}
+
+	@Test
+	void oldestInsightsAreDroppedOnceOverTheBound() {
+		FileInsightStore store = new FileInsightStore(repository, 2, meterRegistry);
+		List<FileChange> files = new ArrayList<>();
+		for (String value : List.of("1", "2", "3")) {
+			FileChange file = new FileChange("src/Foo.java", "modified", 1, 0, PATCH.replace("b = 2", "b = " + value));
+			files.add(file);
+			store.store(List.of(file), MAPPER.createArrayNode()
+					.add(MAPPER.createObjectNode().put("filename", "src/Foo.java").put("summary", value)));
+		}
+
+		assertThat(table.keySet()).containsExactly(FileInsightStore.patchHash(files.get(1)),
+				FileInsightStore.patchHash(files.get(2)));
+		assertThat(meterRegistry.get("inctrl.cache.file_insights.evictions").counter().count()).isEqualTo(1);
+		assertThat(store.lookup(files)).containsOnlyKeys(1, 2);
+	}
+
+	private static CommitDiff commit(String sha, String patch) {
+		CommitDiff commit = new CommitDiff();
+		commit.setSha(sha);
+		commit.setMessage("Add b");
+		commit.setFiles(List.of(new FileChange("src/Foo.java", "modified", 1, 0, patch)));
+		return commit;
+	}
+}
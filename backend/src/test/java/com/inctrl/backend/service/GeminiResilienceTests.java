@@ -0,0 +1,201 @@
+package com.inctrl.backend.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives GeminiService against a local stub that injects per-model delays and
+ * error statuses, checking hedging, retries onto a fallback model and the breaker.
+ */
+class GeminiResilienceTests {
+
+	private static final ExecutorService CALLS = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "gemini-call-test");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private HttpServer server;
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Map<String, Integer> statusByModel = new ConcurrentHashMap<>();
+	private final Map<String, Long> delayByModel = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> requestsByModel = new ConcurrentHashMap<>();
+
+	/**
+	 * Resilience with hedging off and short backoffs, for tests that only need a working GeminiService.
+	 */
+	static GeminiResilience resilience(String model, String fallbackModels) {
+		return resilience(model, fallbackModels, Duration.ZERO, 5, new SimpleMeterRegistry());
+	}
+
+	static GeminiResilience resilience(String model, String fallbackModels, Duration hedgeAfter,
+			int failureThreshold, MeterRegistry meterRegistry) {
+		GeminiModelRouter router = new GeminiModelRouter(model, fallbackModels, failureThreshold,
+				Duration.ofSeconds(30), 2.0, meterRegistry);
+		return new GeminiResilience(router, CALLS, meterRegistry, hedgeAfter, 3, Duration.ofMillis(10),
+				Duration.ofMillis(50));
+	}
+
+	@BeforeEach
+	void startStub() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/v1beta/models/", this::handle);
+		server.start();
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void hedgesSlowPrimaryOntoFallbackModel() {
+		delayByModel.put("primary", 3000L);
+		GeminiService geminiService = service(resilience("primary", "fallback", Duration.ofMillis(100), 5,
+				meterRegistry));
+
+		long start = System.nanoTime();
+		String answer = geminiService.analyzeCommit("{}", null);
+
+		assertThat(answer).isEqualTo("answer from fallback");
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(2000));
+		assertThat(meterRegistry.get("inctrl.gemini.hedges").tag("result", "sent").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("inctrl.gemini.hedges").tag("result", "won").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void retriesServerErrorOnFallbackModel() {
+		statusByModel.put("primary", 503);
+		GeminiService geminiService = service(resilience("primary", "fallback", Duration.ZERO, 5, meterRegistry));
+
+		String answer = geminiService.analyzeCommit("{}", null);
+
+		assertThat(answer).isEqualTo("answer from fallback");
+		assertThat(requests("primary")).isEqualTo(1);
+		assertThat(meterRegistry.get("inctrl.gemini.retries").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("inctrl.gemini.requests").tag("model", "primary").tag("outcome", "error")
+				.timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void clientErrorsAreNotRetried() {
+		statusByModel.put("primary", 400);
+		GeminiService geminiService = service(resilience("primary", "fallback", Duration.ZERO, 5, meterRegistry));
+
+		assertThatThrownBy(() -> geminiService.analyzeCommit("{}", null)).isInstanceOf(RuntimeException.class);
+		assertThat(requests("primary")).isEqualTo(1);
+		assertThat(requests("fallback")).isZero();
+	}
+
+	@Test
+	void openCircuitFailsFastWithoutCallingUpstream() {
+		statusByModel.put("primary", 500);
+		GeminiService geminiService = service(resilience("primary", "", Duration.ZERO, 2, meterRegistry));
+
+		// Two failed attempts open the breaker; the third attempt is refused before it is sent
+		assertThatThrownBy(() -> geminiService.analyzeCommit("{}", null))
+				.hasRootCauseInstanceOf(UpstreamUnavailableException.class);
+		assertThat(requests("primary")).isEqualTo(2);
+
+		assertThatThrownBy(() -> geminiService.analyzeCommit("{}", null))
+				.hasRootCauseInstanceOf(UpstreamUnavailableException.class);
+		assertThat(requests("primary")).isEqualTo(2);
+	}
+
+	@Test
+	void halfOpenTrialIsReservedOnlyForTheDispatchedModel() throws Exception {
+		GeminiModelRouter router = new GeminiModelRouter("primary", "fallback", 1, Duration.ofMillis(300), 2.0,
+				meterRegistry);
+		router.recordFailure("primary", 10);
+		router.recordFailure("fallback", 10);
+		Thread.sleep(350);
+
+		List<String> routed = router.route(null);
+		assertThat(routed).containsExactly("primary", "fallback");
+		assertThat(router.acquire(routed)).isEqualTo("primary");
+
+		// The fallback was routed but not called, so its trial is still free
+		assertThat(router.route(null)).containsExactly("fallback");
+		assertThat(router.acquire(List.of("primary", "fallback"))).isEqualTo("fallback");
+		assertThatThrownBy(() -> router.acquire(List.of("primary", "fallback")))
+				.isInstanceOf(UpstreamUnavailableException.class);
+	}
+
+	@Test
+	void halfOpenTrialIsNotHedged() throws Exception {
+		GeminiModelRouter router = new GeminiModelRouter("primary", "fallback", 1, Duration.ofMillis(300), 2.0,
+				meterRegistry);
+		router.recordFailure("primary", 10);
+		Thread.sleep(350);
+		delayByModel.put("primary", 400L);
+		GeminiService geminiService = service(new GeminiResilience(router, CALLS, meterRegistry,
+				Duration.ofMillis(100), 3, Duration.ofMillis(10), Duration.ofMillis(50)));
+
+		// The healthy fallback would answer first, but the primary's trial is left to finish alone
+		assertThat(geminiService.analyzeCommit("{}", null)).isEqualTo("answer from primary");
+		assertThat(requests("primary")).isEqualTo(1);
+		assertThat(requests("fallback")).isZero();
+		assertThat(meterRegistry.get("inctrl.gemini.hedges").tag("result", "sent").counter().count()).isZero();
+		assertThat(router.state("primary")).isEqualTo(GeminiModelRouter.State.CLOSED);
+	}
+
+	private GeminiService service(GeminiResilience resilience) {
+		GeminiService geminiService = new GeminiService(new RestTemplate(), resilience, meterRegistry);
+		ReflectionTestUtils.setField(geminiService, "geminiApiKey", "test-key");
+		ReflectionTestUtils.setField(geminiService, "baseUrl",
+				"http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta");
+		return geminiService;
+	}
+
+	private int requests(String model) {
+		return requestsByModel.computeIfAbsent(model, m -> new AtomicInteger()).get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		exchange.getRequestBody().readAllBytes();
+		String path = exchange.getRequestURI().getPath();
+		String model = path.substring(path.lastIndexOf('/') + 1, path.indexOf(':'));
+		requestsByModel.computeIfAbsent(model, m -> new AtomicInteger()).incrementAndGet();
+		try {
+			Thread.sleep(delayByModel.getOrDefault(model, 0L));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		int status = statusByModel.getOrDefault(model, 200);
+		String body = status == 200
+				? "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"answer from " + model + "\"}]}}]}"
+				: "{\"error\":{\"code\":" + status + "}}";
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		} catch (IOException e) {
+			// The client hung up on a hedged loser
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.inctrl.backend.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs streamChatWithCommit against a local stub that streams canned SSE chunks.
+ */
+class GeminiServiceStreamingTests {
+
+	private HttpServer server;
+	private GeminiService geminiService;
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final CountDownLatch firstChunkReceived = new CountDownLatch(1);
+	private final AtomicBoolean clientSawChunkBeforeStreamEnded = new AtomicBoolean();
+	private final AtomicReference<String> requestedPath = new AtomicReference<>();
+
+	@BeforeEach
+	void startStub() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			requestedPath.set(exchange.getRequestURI().toString());
+			exchange.getRequestBody().readAllBytes();
+			exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(sseChunk("Hello").getBytes(StandardCharsets.UTF_8));
+				out.flush();
+				// Hold the rest back until the client has seen the first fragment
+				clientSawChunkBeforeStreamEnded.set(firstChunkReceived.await(5, TimeUnit.SECONDS));
+				out.write(sseChunk(", world").getBytes(StandardCharsets.UTF_8));
+				out.write(("data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"!\"}]}}],"
+						+ "\"usageMetadata\":{\"promptTokenCount\":30,\"candidatesTokenCount\":12,\"totalTokenCount\":42}}"
+						+ "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		server.start();
+
+		geminiService = new GeminiService(new RestTemplate(), GeminiResilienceTests.resilience("gemini-test", ""),
+				meterRegistry);
+		ReflectionTestUtils.setField(geminiService, "geminiApiKey", "test-key");
+		ReflectionTestUtils.setField(geminiService, "baseUrl",
+				"http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta");
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void streamsChunksAsTheyArrive() {
+		List<String> chunks = new CopyOnWriteArrayList<>();
+
+		String answer = geminiService.streamChatWithCommit("{}", null, "What changed?", chunk -> {
+			chunks.add(chunk);
+			firstChunkReceived.countDown();
+		});
+
+		assertThat(chunks).containsExactly("Hello", ", world", "!");
+		assertThat(answer).isEqualTo("Hello, world!");
+		assertThat(clientSawChunkBeforeStreamEnded).isTrue();
+		assertThat(requestedPath.get())
+				.isEqualTo("/v1beta/models/gemini-test:streamGenerateContent?alt=sse&key=test-key");
+		assertThat(meterRegistry.get("inctrl.gemini.tokens").tag("type", "total").counter().count()).isEqualTo(42);
+		assertThat(meterRegistry.get("inctrl.gemini.requests").tag("outcome", "success").timer().count()).isEqualTo(1);
+	}
+
+	private static String sseChunk(String text) {
+		return "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + text
+				+ "\"}],\"role\":\"model\"}}]}\r\n\r\n";
+	}
+}
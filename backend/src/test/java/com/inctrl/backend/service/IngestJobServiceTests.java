@@ -0,0 +1,118 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.IngestJob;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.repository.IngestJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the status transitions of ingest jobs, the refusal of jobs when the queue
+ * is full, and the resume of pending jobs on start.
+ */
+class IngestJobServiceTests {
+
+	private static final String URL = "https://github.com/o/r/commit/abc123";
+
+	private final Map<String, IngestJob> table = new ConcurrentHashMap<>();
+	private final List<IngestJob.Status> savedStatuses = new CopyOnWriteArrayList<>();
+	private final List<Runnable> queue = new ArrayList<>();
+	private final IngestJobRepository repository = mock(IngestJobRepository.class);
+	private final CommitAnalysisService analysisService = mock(CommitAnalysisService.class);
+	private final ExecutorService executor = mock(ExecutorService.class);
+	private IngestJobService service;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.save(any(IngestJob.class))).thenAnswer(invocation -> {
+			IngestJob job = invocation.getArgument(0);
+			savedStatuses.add(job.getStatus());
+			table.put(job.getJobId(), job);
+			return job;
+		});
+		when(repository.findById(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+		doAnswer(invocation -> table.remove(invocation.<String>getArgument(0))).when(repository).deleteById(anyString());
+		doAnswer(invocation -> queue.add(invocation.getArgument(0))).when(executor).execute(any(Runnable.class));
+
+		service = new IngestJobService(repository, analysisService, mock(CommitSources.class), executor,
+				mock(AuditedCommitRepository.class), mock(SearchIndexService.class), Duration.ofDays(7));
+	}
+
+	@Test
+	void jobGoesFromQueuedThroughRunningToSucceeded() {
+		when(analysisService.analyze(URL, "log")).thenReturn("{\"summary\":\"s\"}");
+
+		IngestJob job = service.submit(URL, "log");
+		assertThat(service.find(job.getJobId())).get().extracting(IngestJob::getStatus)
+				.isEqualTo(IngestJob.Status.QUEUED);
+
+		runQueued();
+
+		IngestJob done = service.find(job.getJobId()).orElseThrow();
+		assertThat(savedStatuses).containsExactly(IngestJob.Status.QUEUED, IngestJob.Status.RUNNING,
+				IngestJob.Status.SUCCEEDED);
+		assertThat(done.getAnalysisJson()).isEqualTo("{\"summary\":\"s\"}");
+	}
+
+	@Test
+	void failedAnalysisLeavesTheErrorOnTheJob() {
+		when(analysisService.analyze(URL, null)).thenThrow(new RuntimeException("Gemini said no"));
+
+		IngestJob job = service.submit(URL, null);
+		runQueued();
+
+		IngestJob failed = service.find(job.getJobId()).orElseThrow();
+		assertThat(failed.getStatus()).isEqualTo(IngestJob.Status.FAILED);
+		assertThat(failed.getErrorMessage()).isEqualTo("Gemini said no");
+	}
+
+	@Test
+	void fullQueueRefusesTheJobWithoutKeepingIt() {
+		doThrow(new RejectedExecutionException("full")).when(executor).execute(any(Runnable.class));
+
+		assertThatThrownBy(() -> service.submit(URL, null)).isInstanceOf(RejectedExecutionException.class);
+		assertThat(table).isEmpty();
+	}
+
+	@Test
+	void resumesPendingJobsAndPurgesOldOnes() {
+		IngestJob pending = new IngestJob("job-1", URL, null);
+		table.put(pending.getJobId(), pending);
+		when(repository.findByStatusInOrderByCreatedAtAsc(anyCollection())).thenReturn(List.of(pending));
+		when(analysisService.analyze(URL, null)).thenReturn("{}");
+
+		service.resumePendingJobs();
+		runQueued();
+
+		verify(repository).deleteFinishedBefore(anyCollection(), any());
+		assertThat(table.get("job-1").getStatus()).isEqualTo(IngestJob.Status.SUCCEEDED);
+	}
+
+	private void runQueued() {
+		List<Runnable> tasks = new ArrayList<>(queue);
+		queue.clear();
+		tasks.forEach(Runnable::run);
+	}
+}
@@ -0,0 +1,124 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.CommitDiff;
+import com.inctrl.backend.dto.CommitInfo;
+import com.inctrl.backend.dto.FileChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Builds a small repository on disk and reads it back through LocalGitCommitSource.
+ */
+class LocalGitCommitSourceTests {
+
+	private static final String REPO_URL = "https://github.com/acme/internal";
+
+	@TempDir
+	Path root;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private Path clone;
+	private LocalGitCommitSource source;
+	private RevCommit first;
+	private RevCommit second;
+
+	@BeforeEach
+	void createRepository() throws Exception {
+		clone = root.resolve("internal");
+		try (Git git = Git.init().setDirectory(clone.toFile()).setInitialBranch("main").call()) {
+			Files.writeString(clone.resolve("App.java"), "class App {\n}\n");
+			Files.writeString(clone.resolve("old.txt"), "one\ntwo\nthree\nfour\nfive\n");
+			git.add().addFilepattern(".").call();
+			first = commit(git, "Initial commit", 1_700_000_000L);
+
+			Files.writeString(clone.resolve("App.java"), "class App {\n    void run() {}\n}\n");
+			Files.move(clone.resolve("old.txt"), clone.resolve("new.txt"));
+			git.add().addFilepattern(".").call();
+			git.rm().addFilepattern("old.txt").call();
+			second = commit(git, "Add run and rename notes", 1_700_100_000L);
+		}
+		source = new LocalGitCommitSource(REPO_URL + "=" + clone, root.toString(), meterRegistry);
+	}
+
+	@AfterEach
+	void closeRepositories() {
+		source.close();
+	}
+
+	@Test
+	void listsCommitsNewestFirstWithPagingAndDateWindow() {
+		List<CommitInfo> all = source.fetchCommitList(REPO_URL, 1, 10, null, null, null);
+		assertThat(all).extracting(CommitInfo::getSha).containsExactly(second.getName(), first.getName());
+		assertThat(all.get(0).getAuthorName()).isEqualTo("Dev");
+		assertThat(all.get(0).getDate()).isEqualTo("2023-11-16T02:00:00Z");
+
+		assertThat(source.fetchCommitList(REPO_URL, 2, 1, "main", null, null))
+				.extracting(CommitInfo::getSha).containsExactly(first.getName());
+		assertThat(source.fetchCommitList(REPO_URL, 1, 10, null, "2023-11-15T00:00:00Z", null))
+				.extracting(CommitInfo::getSha).containsExactly(second.getName());
+	}
+
+	@Test
+	void plainDatesBoundTheWindowAtMidnightUtc() {
+		assertThat(source.fetchCommitList(REPO_URL, 1, 10, null, "2023-11-15", null))
+				.extracting(CommitInfo::getSha).containsExactly(second.getName());
+		assertThat(source.fetchCommitList(REPO_URL, 1, 10, null, null, "2023-11-15"))
+				.extracting(CommitInfo::getSha).containsExactly(first.getName());
+
+		assertThatThrownBy(() -> source.fetchCommitList(REPO_URL, 1, 10, null, "15/11/2023", null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("15/11/2023");
+		assertThat(meterRegistry.get("inctrl.git.local.requests").tag("outcome", "error").timer().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void diffsMatchGitHubFileFields() {
+		CommitDiff diff = source.fetchCommitDiff(REPO_URL + "/commit/" + second.getName());
+
+		assertThat(diff.getMessage()).isEqualTo("Add run and rename notes");
+		assertThat(diff.getFiles()).extracting(FileChange::getFilename).containsExactlyInAnyOrder("App.java", "new.txt");
+		FileChange app = diff.getFiles().stream().filter(f -> f.getFilename().equals("App.java")).findFirst().orElseThrow();
+		assertThat(app.getStatus()).isEqualTo("modified");
+		assertThat(app.getAdditions()).isEqualTo(1);
+		assertThat(app.getDeletions()).isZero();
+		assertThat(app.getPatch()).startsWith("@@ ").contains("+    void run() {}");
+		FileChange renamed = diff.getFiles().stream().filter(f -> f.getFilename().equals("new.txt")).findFirst().orElseThrow();
+		assertThat(renamed.getStatus()).isEqualTo("renamed");
+		assertThat(renamed.getPreviousFilename()).isEqualTo("old.txt");
+
+		CommitDiff initial = source.fetchCommitDiff(REPO_URL + "/commit/" + first.getName().substring(0, 10));
+		assertThat(initial.getFiles()).allSatisfy(f -> assertThat(f.getStatus()).isEqualTo("added"));
+	}
+
+	@Test
+	void routesMappedAndFileUrlsOnly() {
+		String commitUrl = REPO_URL + "/commit/" + second.getName();
+		assertThat(source.supports(commitUrl)).isTrue();
+		assertThat(source.resolveCommitKey(commitUrl)).isEqualTo("acme/internal/" + second.getName());
+		assertThat(source.supports("https://github.com/acme/public")).isFalse();
+
+		assertThat(source.supports(clone.toUri().toString())).isTrue();
+		assertThat(source.fetchCommitList(clone.toUri().toString(), 1, 10, null, null, null)).hasSize(2);
+		assertThat(source.supports(root.getParent().toUri().toString())).isFalse();
+	}
+
+	private static RevCommit commit(Git git, String message, long epochSecond) throws Exception {
+		PersonIdent dev = new PersonIdent("Dev", "dev@example.com", Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+		return git.commit().setMessage(message).setAuthor(dev).setCommitter(dev).call();
+	}
+}
@@ -0,0 +1,198 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.NoteEdit;
+import com.inctrl.backend.model.Note;
+import com.inctrl.backend.repository.NoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that rapid saves of a note coalesce into one write, that an edit based on
+ * an outdated version is rejected before and after the write, that a batch of
+ * sections is written all-or-nothing, that a write-through conflict reaches the
+ * editor and that commits do not wait on each other.
+ */
+class NoteWriteBufferTests {
+
+	// The notes table, versioned the way Hibernate does it on flush
+	private final Map<String, Note> table = new ConcurrentHashMap<>();
+	private final AtomicInteger writes = new AtomicInteger();
+	private final SearchIndexService searchIndexService = mock(SearchIndexService.class);
+	private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+	private final NoteRepository repository = mock(NoteRepository.class);
+	// Writes of commit "slow" wait here until released
+	private final CountDownLatch slowWriteStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseSlowWrite = new CountDownLatch(1);
+	private NoteWriteBuffer buffer;
+
+	@BeforeEach
+	void setUp() {
+		AtomicLong ids = new AtomicLong();
+		when(repository.findAllByCommitSha(anyString())).thenAnswer(invocation -> stored(invocation.getArgument(0)));
+		when(repository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+			if (((Note) invocation.<List<?>>getArgument(0).get(0)).getCommitSha().equals("slow")) {
+				slowWriteStarted.countDown();
+				releaseSlowWrite.await(5, TimeUnit.SECONDS);
+			}
+			writes.incrementAndGet();
+			List<Note> saved = new ArrayList<>();
+			for (Object o : (List<?>) invocation.getArgument(0)) {
+				Note note = (Note) o;
+				if (note.getId() == null) {
+					note.setId(ids.incrementAndGet());
+				} else {
+					note.setVersion(note.getVersion() + 1);
+				}
+				table.put(note.getCommitSha() + "/" + note.getSection(), copy(note));
+				saved.add(note);
+			}
+			return saved;
+		});
+		buffer = new NoteWriteBuffer(new NoteStore(repository), searchIndexService, scheduler,
+				new SimpleMeterRegistry(), Duration.ofSeconds(2));
+	}
+
+	@Test
+	void coalescesRapidSavesIntoOneWrite() {
+		Note first = buffer.submit("abc", new NoteEdit("summary", "a", null));
+		Note second = buffer.submit("abc", new NoteEdit("summary", "ab", first.getVersion()));
+		buffer.submit("abc", new NoteEdit("summary", "abc", second.getVersion()));
+
+		verify(scheduler, times(1)).schedule(any(Runnable.class), eq(2000L), eq(TimeUnit.MILLISECONDS));
+		assertThat(buffer.read("abc", "summary")).get().extracting(Note::getContent).isEqualTo("abc");
+		assertThat(table).isEmpty();
+
+		buffer.flush("abc");
+
+		assertThat(writes).hasValue(1);
+		assertThat(table.get("abc/summary").getContent()).isEqualTo("abc");
+		assertThat(table.get("abc/summary").getVersion()).isEqualTo(second.getVersion());
+		verify(searchIndexService, times(1)).indexCommit("abc");
+	}
+
+	@Test
+	void rejectsEditsBasedOnAnOutdatedVersion() {
+		buffer.submit("abc", new NoteEdit("summary", "v0", null));
+		buffer.flush("abc");
+		Note pending = buffer.submit("abc", new NoteEdit("summary", "v1", 0L));
+		assertThat(pending.getVersion()).isEqualTo(1);
+
+		// A second editor still holding version 0 must not overwrite the pending edit
+		assertThatThrownBy(() -> buffer.submit("abc", new NoteEdit("summary", "lost", 0L)))
+				.isInstanceOf(NoteConflictException.class);
+
+		buffer.flush("abc");
+		assertThat(table.get("abc/summary").getVersion()).isEqualTo(1);
+		assertThatThrownBy(() -> buffer.writeAll("abc", List.of(new NoteEdit("summary", "lost", 0L))))
+				.isInstanceOf(NoteConflictException.class);
+		assertThat(table.get("abc/summary").getContent()).isEqualTo("v1");
+	}
+
+	@Test
+	void batchWritesAllSectionsOrNone() {
+		Map<String, Note> notes = buffer.writeAll("abc", List.of(
+				new NoteEdit("summary", "s", null),
+				new NoteEdit("faults", "f", null)));
+		assertThat(notes).containsOnlyKeys("summary", "faults");
+		assertThat(writes).hasValue(1);
+
+		assertThatThrownBy(() -> buffer.writeAll("abc", List.of(
+				new NoteEdit("summary", "s2", 0L),
+				new NoteEdit("faults", "f2", 7L))))
+				.isInstanceOf(NoteConflictException.class)
+				.extracting(e -> ((NoteConflictException) e).getSections()).isEqualTo(List.of("faults"));
+		assertThat(table.get("abc/summary").getContent()).isEqualTo("s");
+		assertThat(buffer.readAll("abc")).containsOnlyKeys("summary", "faults");
+		verify(scheduler, times(0)).schedule(any(Runnable.class), anyLong(), any());
+	}
+
+	@Test
+	void writeThroughConflictReachesTheEditor() {
+		NoteWriteBuffer writeThrough = writeThrough();
+		writeThrough.submit("abc", new NoteEdit("summary", "v0", null));
+
+		// Another instance saves the note after this one checked the version but before it writes
+		AtomicInteger reads = new AtomicInteger();
+		doAnswer(invocation -> {
+			if (reads.incrementAndGet() == 2) {
+				table.get("abc/summary").setVersion(3);
+			}
+			return stored("abc");
+		}).when(repository).findAllByCommitSha("abc");
+
+		assertThatThrownBy(() -> writeThrough.submit("abc", new NoteEdit("summary", "v1", 0L)))
+				.isInstanceOf(NoteConflictException.class);
+		assertThat(table.get("abc/summary").getContent()).isEqualTo("v0");
+		assertThat(writeThrough.read("abc", "summary")).get().extracting(Note::getVersion).isEqualTo(3L);
+		verify(searchIndexService, times(1)).indexCommit("abc");
+	}
+
+	@Test
+	void slowWriteOnlyHoldsUpItsOwnCommit() throws Exception {
+		NoteWriteBuffer writeThrough = writeThrough();
+		ExecutorService editor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Note> slow = editor.submit(() -> writeThrough.submit("slow", new NoteEdit("summary", "s", null)));
+			assertThat(slowWriteStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+			writeThrough.submit("fast", new NoteEdit("summary", "f", null));
+			assertThat(writeThrough.readAll("fast")).extractingByKey("summary").extracting(Note::getContent)
+					.isEqualTo("f");
+			assertThat(slow).isNotDone();
+
+			releaseSlowWrite.countDown();
+			assertThat(slow.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("s");
+			assertThat(table).containsKeys("slow/summary", "fast/summary");
+		} finally {
+			releaseSlowWrite.countDown();
+			editor.shutdownNow();
+		}
+	}
+
+	private NoteWriteBuffer writeThrough() {
+		return new NoteWriteBuffer(new NoteStore(repository), searchIndexService, scheduler, new SimpleMeterRegistry(),
+				Duration.ZERO);
+	}
+
+	private List<Note> stored(String commitSha) {
+		return table.values().stream()
+				.filter(note -> note.getCommitSha().equals(commitSha))
+				.map(NoteWriteBufferTests::copy)
+				.toList();
+	}
+
+	private static Note copy(Note note) {
+		Note copy = new Note(note.getCommitSha(), note.getSection(), note.getContent());
+		copy.setId(note.getId());
+		copy.setVersion(note.getVersion());
+		return copy;
+	}
+}
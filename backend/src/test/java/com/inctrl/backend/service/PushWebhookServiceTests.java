@@ -0,0 +1,79 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.IngestJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.LIST;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays the recorded push delivery in src/test/resources/webhooks.
+ */
+class PushWebhookServiceTests {
+
+	private static final String REPO = "https://github.com/acme/payments/commit/";
+	private static final String FIRST = "1481a2de7b2a7d8c2bd7f18e2a1b8f8d2c6e4a17";
+	private static final String HEAD = "0d1a26e67d8f5eaf1f6ba5c57fc3c7d91ac0fd1c";
+
+	private final IngestJobService ingestJobService = mock(IngestJobService.class);
+
+	@Test
+	void verifiesSignaturesLikeGitHub() {
+		// Test vector from GitHub's "Validating webhook deliveries" documentation
+		PushWebhookService service = service("It's a Secret to Everybody", "");
+		byte[] body = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+
+		assertThat(service.verifySignature(body,
+				"sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17")).isTrue();
+		assertThat(service.verifySignature(body,
+				"sha256=857107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17")).isFalse();
+		assertThat(service.verifySignature(body, "sha1=abc")).isFalse();
+		assertThat(service.verifySignature(body, null)).isFalse();
+		assertThat(service("", "").verifySignature(body, "sha256=")).isFalse();
+	}
+
+	@Test
+	void queuesDistinctPushedCommitsThatAreNotAuditedYet() throws Exception {
+		PushWebhookService service = service("secret", "");
+		byte[] body = fixture();
+		assertThat(service.verifySignature(body, "sha256=" + HexFormat.of().formatHex(service.sign(body)))).isTrue();
+		when(ingestJobService.submitPrecompute(REPO + FIRST)).thenReturn(new IngestJob("job-1", REPO + FIRST, null));
+		// Already audited: the service returns no job
+
+		Map<String, Object> result = service.handlePush(body);
+
+		assertThat(result.get("repository")).isEqualTo("https://github.com/acme/payments");
+		assertThat(result.get("queued")).asInstanceOf(LIST).containsExactly(FIRST);
+		assertThat(result.get("skipped")).asInstanceOf(LIST).containsExactly(HEAD);
+		verify(ingestJobService).submitPrecompute(REPO + HEAD);
+	}
+
+	@Test
+	void ignoresBranchesOutsideTheAllowList() throws Exception {
+		Map<String, Object> result = service("secret", "release, production").handlePush(fixture());
+
+		assertThat(result.get("branch")).isEqualTo("main");
+		assertThat(result.get("queued")).asInstanceOf(LIST).isEmpty();
+		verifyNoInteractions(ingestJobService);
+	}
+
+	private PushWebhookService service(String secret, String branches) {
+		return new PushWebhookService(ingestJobService, secret, branches, 20, new SimpleMeterRegistry());
+	}
+
+	private static byte[] fixture() throws Exception {
+		try (InputStream in = PushWebhookServiceTests.class.getResourceAsStream("/webhooks/github-push.json")) {
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.dto.SearchHit;
+import com.inctrl.backend.dto.SearchResponse;
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import com.inctrl.backend.repository.NoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Indexes audited commits into a temporary Lucene directory and checks ranked
+ * search, facet counts and that a re-indexed tag replaces the old one.
+ */
+class SearchIndexServiceTests {
+
+	private static final String REPO = "https://github.com/o/r";
+
+	@TempDir
+	Path indexDir;
+
+	private final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+	private SearchIndexService service;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		service = open();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		service.close();
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void indexedCommitsAreSearchableAndCounted() {
+		service.indexCommits(List.of(
+				commit("a1", "{\"summary\":\"Adds Redis caching\",\"technologies\":[\"Redis\",\"Spring\"]}", "perf", 1),
+				commit("a2", "{\"summary\":\"Fixes login redirect\",\"technologies\":[\"spring\"]}", "bug", 2),
+				commit("a3", "{\"summary\":\"Caches user lookups\",\"files\":[{\"technologies\":[\"redis\"]}]}",
+						"perf", 3)));
+
+		SearchResponse redis = service.search("redis", null, null, null, 10);
+		assertThat(redis.getHits()).extracting(SearchHit::getCommitSha).containsExactlyInAnyOrder("a1", "a3");
+		assertThat(redis.getFacets().get("tag")).containsEntry("perf", 2).doesNotContainKey("bug");
+
+		SearchResponse browse = service.search("", null, null, null, 10);
+		assertThat(browse.getTotal()).isEqualTo(3);
+		assertThat(browse.getHits()).extracting(SearchHit::getCommitSha).containsExactly("a3", "a2", "a1");
+		assertThat(browse.getFacets().get("technology")).containsEntry("redis", 2).containsEntry("spring", 2);
+		assertThat(browse.getFacets().get("repo")).containsEntry(REPO, 3);
+
+		SearchResponse drilled = service.search("", null, null, "Spring", 10);
+		assertThat(drilled.getHits()).extracting(SearchHit::getCommitSha).containsExactlyInAnyOrder("a1", "a2");
+	}
+
+	@Test
+	void retaggedCommitReplacesItsDocument() {
+		AuditedCommit commit = commit("b1", "{\"summary\":\"Adds rate limiting\"}", "todo", 1);
+		service.indexCommits(List.of(commit));
+		assertThat(service.search("", "todo", null, null, 10).getTotal()).isEqualTo(1);
+
+		commit.setTag("reviewed");
+		service.indexCommits(List.of(commit));
+
+		assertThat(service.search("", "todo", null, null, 10).getTotal()).isZero();
+		SearchResponse reviewed = service.search("rate limiting", "reviewed", null, null, 10);
+		assertThat(reviewed.getHits()).extracting(SearchHit::getTag).containsExactly("reviewed");
+		assertThat(reviewed.getFacets().get("tag")).containsOnlyKeys("reviewed");
+	}
+
+	@Test
+	void closeCommitsWhatWasOnlyRefreshed() throws Exception {
+		service.indexCommits(List.of(commit("c1", "{\"summary\":\"Bumps Lucene\"}", null, 1)));
+		service.close();
+
+		service = open();
+		assertThat(service.search("lucene", null, null, null, 10).getHits())
+				.extracting(SearchHit::getCommitSha).containsExactly("c1");
+	}
+
+	private SearchIndexService open() throws Exception {
+		NoteRepository notes = mock(NoteRepository.class);
+		when(notes.findAllByCommitSha(anyString())).thenReturn(List.of());
+		return new SearchIndexService(mock(AuditedCommitRepository.class), notes, indexDir.toString(), scheduler,
+				Duration.ofHours(1));
+	}
+
+	private static AuditedCommit commit(String sha, String analysisJson, String tag, int day) {
+		AuditedCommit commit = new AuditedCommit(sha, REPO, analysisJson, tag);
+		commit.setCreatedAt(LocalDateTime.of(2026, 1, day, 12, 0));
+		return commit;
+	}
+}
@@ -0,0 +1,99 @@
+package com.inctrl.backend.service;
+
+import com.inctrl.backend.model.AuditedCommit;
+import com.inctrl.backend.model.CompressedTextConverter;
+import com.inctrl.backend.repository.AuditedCommitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the CLOB-to-gzip column rewrite against an in-memory H2 table shaped like
+ * the pre-compression schema, including one left half-migrated by an earlier run.
+ */
+class StorageMigrationServiceTests {
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createLegacyTable() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:migration-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+		jdbcTemplate.execute("CREATE TABLE notes (id BIGINT PRIMARY KEY, content CLOB NOT NULL, content_gz BLOB)");
+		jdbcTemplate.update("INSERT INTO notes (id, content) VALUES (1, ?)", "first note ".repeat(50));
+		jdbcTemplate.update("INSERT INTO notes (id, content) VALUES (2, ?)", "second note");
+		// Copied by a run that stopped before it could drop the column
+		jdbcTemplate.update("INSERT INTO notes (id, content, content_gz) VALUES (3, ?, ?)", "third note",
+				CompressedTextConverter.compress("third note"));
+	}
+
+	@Test
+	void copiesEveryRowThenDropsTheLegacyColumn() {
+		migration(true).compressColumn("notes", "id", "content", "content_gz");
+
+		assertThat(compressed(1)).isEqualTo("first note ".repeat(50));
+		assertThat(compressed(2)).isEqualTo("second note");
+		assertThat(compressed(3)).isEqualTo("third note");
+		assertThat(legacyColumnExists()).isFalse();
+
+		// A second start finds nothing left to do
+		migration(true).compressColumn("notes", "id", "content", "content_gz");
+	}
+
+	@Test
+	void keepsTheLegacyColumnNullableWhenDroppingIsOff() {
+		migration(false).compressColumn("notes", "id", "content", "content_gz");
+
+		assertThat(compressed(2)).isEqualTo("second note");
+		assertThat(legacyColumnExists()).isTrue();
+		jdbcTemplate.update("INSERT INTO notes (id, content_gz) VALUES (4, ?)", CompressedTextConverter.compress("new"));
+		assertThat(compressed(4)).isEqualTo("new");
+	}
+
+	@Test
+	void jobsWithoutAResultNeedNoCopy() {
+		// Queued and failed ingest jobs have no analysis yet
+		jdbcTemplate.execute("CREATE TABLE ingest_jobs (job_id VARCHAR(64) PRIMARY KEY, analysis_json CLOB, "
+				+ "analysis_json_gz BLOB)");
+		jdbcTemplate.update("INSERT INTO ingest_jobs (job_id, analysis_json) VALUES ('done', ?)", "{\"summary\":\"s\"}");
+		jdbcTemplate.update("INSERT INTO ingest_jobs (job_id) VALUES ('queued')");
+
+		migration(true).compressColumn("ingest_jobs", "job_id", "analysis_json", "analysis_json_gz");
+
+		byte[] stored = jdbcTemplate.queryForObject("SELECT analysis_json_gz FROM ingest_jobs WHERE job_id = 'done'",
+				byte[].class);
+		assertThat(CompressedTextConverter.decompress(stored)).isEqualTo("{\"summary\":\"s\"}");
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ingest_jobs WHERE analysis_json_gz IS NULL",
+				Integer.class)).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+				+ "WHERE TABLE_NAME = 'INGEST_JOBS' AND COLUMN_NAME = 'ANALYSIS_JSON'", Integer.class)).isZero();
+	}
+
+	@Test
+	void unparseableAnalysisGetsAnEmptyPreview() {
+		assertThat(AuditedCommit.previewOf("not json")).isEmpty();
+		assertThat(AuditedCommit.previewOf(null)).isEmpty();
+		assertThat(AuditedCommit.previewOf("{\"summary\":\"Adds caching\"}")).isEqualTo("Adds caching");
+	}
+
+	private StorageMigrationService migration(boolean dropLegacyColumns) {
+		return new StorageMigrationService(mock(AuditedCommitRepository.class), jdbcTemplate, dropLegacyColumns);
+	}
+
+	private String compressed(long id) {
+		byte[] stored = jdbcTemplate.queryForObject("SELECT content_gz FROM notes WHERE id = ?", byte[].class, id);
+		return CompressedTextConverter.decompress(stored);
+	}
+
+	private boolean legacyColumnExists() {
+		Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+				+ "WHERE TABLE_NAME = 'NOTES' AND COLUMN_NAME = 'CONTENT'", Integer.class);
+		return count != null && count > 0;
+	}
+}
@@ -4,7 +4,7 @@ import { FormsModule } from '@angular/forms';
 import { Router, RouterModule } from '@angular/router';
 import { DomSanitizer, SafeHtml } from '@angular/platform-browser';
 import { AnalysisStateService } from '../../services/analysis-state.service';
-import { AiAnalysis, ChatMessage, ApiService, ChatRequest } from '../../services/api';
+import { AiAnalysis, ChatMessage, ApiService, ChatRequest, Note } from '../../services/api';
 import { marked } from 'marked';
 
 @Component({
@@ -32,6 +32,8 @@ export class AnalysisComponent implements OnInit {
     chatMessages: ChatMessage[] = [];
     currentQuestion: string = '';
     isChatLoading: boolean = false;
+    isChatStreaming: boolean = false;
+    chatSessionId?: string;
 
     // --- Notes State (Commit F) ---
     parsedNotes: { title?: string, content: string }[] = [];
@@ -43,6 +45,8 @@ export class AnalysisComponent implements OnInit {
     commitNotes: string = '';
     isNotesSaving: boolean = false;
     notesSavedMessage: string = '';
+    // Every section's note, fetched once per commit; tab switches read from here
+    private notesBySection: Record<string, Note> = {};
 
     // --- History Tagging ---
     commitTag: string = '';
@@ -90,14 +94,14 @@ export class AnalysisComponent implements OnInit {
     setActiveTab(tab: 'summary' | 'alternatives' | 'faults') {
         this.activeTab = tab;
 
-        // Auto-load notes for the specific section when switching tabs
-        this.loadNotes(tab);
+        // Show the notes for the specific section when switching tabs
+        this.showNotes(tab);
     }
 
     // --- Chat Methods (Commit D & E) ---
     sendChatMessage() {
         const question = this.currentQuestion.trim();
-        if (!question || this.isChatLoading) return;
+        if (!question || this.isChatLoading || this.isChatStreaming) return;
 
         // Add user message to chat
         this.chatMessages.push({ role: 'user', content: question });
@@ -112,15 +116,32 @@ export class AnalysisComponent implements OnInit {
             githubUrl: this.commitUrl,
             commitSha: this.commitSha,
             question: question,
-            aiChatLog: '' // Keep empty to avoid JSON parse errors from embedded special chars
+            aiChatLog: '', // Keep empty to avoid JSON parse errors from embedded special chars
+            sessionId: this.chatSessionId
         };
 
-        this.apiService.chatAboutCommit(request).subscribe({
-            next: (response) => {
-                const rawHtml = marked.parse(response.answer) as string;
+        // Render the answer progressively as fragments stream in
+        let answerMarkdown = '';
+        let answerMessage: ChatMessage | null = null;
+
+        this.apiService.chatAboutCommit(request, id => this.chatSessionId = id).subscribe({
+            next: (fragment) => {
+                answerMarkdown += fragment;
+                const rawHtml = marked.parse(answerMarkdown) as string;
                 const safeHtml = this.sanitizer.bypassSecurityTrustHtml(rawHtml);
-                this.chatMessages.push({ role: 'ai', content: safeHtml as string });
+                if (!answerMessage) {
+                    answerMessage = { role: 'ai', content: safeHtml as string };
+                    this.chatMessages.push(answerMessage);
+                    this.isChatLoading = false;
+                    this.isChatStreaming = true;
+                } else {
+                    answerMessage.content = safeHtml as string;
+                }
+                this.cdr.detectChanges();
+            },
+            complete: () => {
                 this.isChatLoading = false;
+                this.isChatStreaming = false;
                 this.cdr.detectChanges();
             },
             error: (err: any) => {
@@ -129,6 +150,7 @@ export class AnalysisComponent implements OnInit {
                     content: `<p style="color: #f87171;">⚠️ Failed to get a response. Please try again.</p>`
                 });
                 this.isChatLoading = false;
+                this.isChatStreaming = false;
                 this.cdr.detectChanges();
             }
         });
@@ -144,30 +166,35 @@ export class AnalysisComponent implements OnInit {
     // --- Notes Methods (Commit F) ---
     loadNotes(section: string = 'summary') {
         if (!this.commitSha) return;
-        this.apiService.getNote(this.commitSha, section).subscribe({
-            next: (note) => {
-                const rawContent = note?.content || '';
-                this.commitNotes = rawContent;
-                try {
-                    this.parsedNotes = JSON.parse(rawContent) || [];
-                } catch (e) {
-                    // Backwards compatibility for plain text notes
-                    if (rawContent.trim()) {
-                        this.parsedNotes = [{ content: rawContent }];
-                    } else {
-                        this.parsedNotes = [];
-                    }
-                }
-                this.cdr.detectChanges();
+        this.apiService.getNotes(this.commitSha).subscribe({
+            next: (notes) => {
+                this.notesBySection = notes || {};
+                this.showNotes(section);
             },
             error: (err: any) => {
-                this.parsedNotes = [];
-                this.cdr.detectChanges();
-                console.log("loadNotes error (expected if new note):", err);
+                this.notesBySection = {};
+                this.showNotes(section);
+                console.log("loadNotes error:", err);
             }
         });
     }
 
+    showNotes(section: string) {
+        const rawContent = this.notesBySection[section]?.content || '';
+        this.commitNotes = rawContent;
+        try {
+            this.parsedNotes = JSON.parse(rawContent) || [];
+        } catch (e) {
+            // Backwards compatibility for plain text notes
+            if (rawContent.trim()) {
+                this.parsedNotes = [{ content: rawContent }];
+            } else {
+                this.parsedNotes = [];
+            }
+        }
+        this.cdr.detectChanges();
+    }
+
     saveNotes(section: string = 'summary') {
         if (!this.commitSha) {
             this.notesSavedMessage = '⚠️ Error: Missing Commit SHA';
@@ -183,8 +210,10 @@ export class AnalysisComponent implements OnInit {
             this.notesSavedMessage = 'Saving...';
             this.cdr.detectChanges();
 
-            this.apiService.saveNote(this.commitSha, this.commitNotes, section).subscribe({
+            const version = this.notesBySection[section]?.version;
+            this.apiService.saveNote(this.commitSha, this.commitNotes, section, version).subscribe({
                 next: (res) => {
+                    this.notesBySection[section] = res;
                     this.isNotesSaving = false;
                     this.notesSavedMessage = 'Saved';
                     this.cdr.detectChanges();
@@ -195,6 +224,14 @@ export class AnalysisComponent implements OnInit {
                 },
                 error: (err: any) => {
                     this.isNotesSaving = false;
+                    if (err.status === 409 && err.error?.notes) {
+                        // Someone else saved this section first: show their version instead of overwriting it
+                        this.notesBySection = err.error.notes;
+                        this.showNotes(section);
+                        this.notesSavedMessage = '⚠️ Notes were changed elsewhere and have been reloaded';
+                        this.cdr.detectChanges();
+                        return;
+                    }
                     this.notesSavedMessage = '⚠️ Failed: ' + (err.message || JSON.stringify(err));
                     this.cdr.detectChanges();
                 }
@@ -2,7 +2,7 @@ import { Component, OnInit, ChangeDetectorRef } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { Router, RouterModule } from '@angular/router';
 import { FormsModule } from '@angular/forms';
-import { ApiService, AuditedCommit, AiAnalysis } from '../../services/api';
+import { ApiService, HistoryItem, AiAnalysis } from '../../services/api';
 import { AnalysisStateService } from '../../services/analysis-state.service';
 
 @Component({
@@ -13,7 +13,9 @@ import { AnalysisStateService } from '../../services/analysis-state.service';
     styleUrls: ['./history.css']
 })
 export class HistoryComponent implements OnInit {
-    auditedCommits: AuditedCommit[] = [];
+    auditedCommits: HistoryItem[] = [];
+    nextCursor: string | null = null;
+    isLoadingMore: boolean = false;
     repositories: string[] = [];
     searchQuery: string = '';
     selectedRepo: string = 'All';
@@ -36,8 +38,9 @@ export class HistoryComponent implements OnInit {
         this.errorMessage = '';
 
         this.apiService.getHistory().subscribe({
-            next: (commits) => {
-                this.auditedCommits = commits;
+            next: (page) => {
+                this.auditedCommits = page.items;
+                this.nextCursor = page.nextCursor;
                 this.extractRepositories();
                 this.isLoading = false;
                 this.cdr.detectChanges(); // Force UI update
@@ -51,6 +54,30 @@ export class HistoryComponent implements OnInit {
         });
     }
 
+    /**
+     * Appends the next page of history using the cursor from the previous page
+     */
+    loadMore(): void {
+        if (!this.nextCursor || this.isLoadingMore) return;
+        this.isLoadingMore = true;
+
+        this.apiService.getHistory(this.nextCursor).subscribe({
+            next: (page) => {
+                this.auditedCommits = [...this.auditedCommits, ...page.items];
+                this.nextCursor = page.nextCursor;
+                this.extractRepositories();
+                this.isLoadingMore = false;
+                this.cdr.detectChanges();
+            },
+            error: (err: any) => {
+                this.errorMessage = 'Failed to load more history.';
+                this.isLoadingMore = false;
+                this.cdr.detectChanges();
+                console.error(err);
+            }
+        });
+    }
+
     /**
      * Extracts unique repository URLs to populate the filter dropdown
      */
@@ -63,7 +90,7 @@ export class HistoryComponent implements OnInit {
     /**
      * Dynamically filters the commits based on the selected repo and search query
      */
-    get filteredCommits(): AuditedCommit[] {
+    get filteredCommits(): HistoryItem[] {
         let filtered = this.auditedCommits;
 
         // Filter by Repository
@@ -77,7 +104,7 @@ export class HistoryComponent implements OnInit {
             filtered = filtered.filter(c => {
                 const matchSha = c.commitSha.toLowerCase().includes(lowerQuery);
                 const matchTag = c.tag && c.tag.toLowerCase().includes(lowerQuery);
-                const matchSummary = this.getPreviewSummary(c.analysisJson).toLowerCase().includes(lowerQuery);
+                const matchSummary = this.getPreviewSummary(c.summary).toLowerCase().includes(lowerQuery);
                 return matchSha || matchTag || matchSummary;
             });
         }
@@ -86,16 +113,11 @@ export class HistoryComponent implements OnInit {
     }
 
     /**
-     * Parses the JSON summary from the raw analysis string just for the card preview
+     * Shortens the server-provided summary preview for the card
      */
-    getPreviewSummary(jsonString: string): string {
-        try {
-            const parsed = JSON.parse(jsonString) as AiAnalysis;
-            const text = parsed.summary || 'No summary available.';
-            return text.length > 120 ? text.substring(0, 120) + '...' : text;
-        } catch (e) {
-            return 'Encrypted or invalid analysis format.';
-        }
+    getPreviewSummary(summary?: string): string {
+        const text = summary || 'No summary available.';
+        return text.length > 120 ? text.substring(0, 120) + '...' : text;
     }
 
     /**
@@ -110,6 +132,10 @@ export class HistoryComponent implements OnInit {
     /**
      * Extract the repo name from the full URL
      */
+    getExportUrl(format: 'markdown' | 'jsonl'): string {
+        return this.apiService.getReportExportUrl(this.selectedRepo, format);
+    }
+
     getRepoName(url: string): string {
         if (!url) return 'Unknown Repo';
         return url.replace('https://github.com/', '').replace(/\.git$/, '');
@@ -118,19 +144,31 @@ export class HistoryComponent implements OnInit {
     /**
      * Loads the saved analysis into state and navigates to the results page
      */
-    openCommit(commit: AuditedCommit): void {
-        try {
-            const parsedAnalysis = JSON.parse(commit.analysisJson) as AiAnalysis;
-
-            this.stateService.setAnalysis({
-                parsedData: parsedAnalysis,
-                commitUrl: `${commit.repoUrl}/commit/${commit.commitSha}`,
-                repoUrl: commit.repoUrl
-            });
-
-            this.router.navigate(['/results']);
-        } catch (e) {
-            this.errorMessage = "Failed to parse the saved analysis data.";
-        }
+    openCommit(commit: HistoryItem): void {
+        // The list only carries previews; fetch the full analysis on demand
+        this.apiService.getHistoryBySha(commit.commitSha).subscribe({
+            next: (full) => {
+                try {
+                    const parsedAnalysis = JSON.parse(full.analysisJson) as AiAnalysis;
+
+                    this.stateService.setAnalysis({
+                        parsedData: parsedAnalysis,
+                        rawJson: full.analysisJson,
+                        commitUrl: `${full.repoUrl}/commit/${full.commitSha}`,
+                        repoUrl: full.repoUrl
+                    });
+
+                    this.router.navigate(['/results']);
+                } catch (e) {
+                    this.errorMessage = "Failed to parse the saved analysis data.";
+                    this.cdr.detectChanges();
+                }
+            },
+            error: (err: any) => {
+                this.errorMessage = "Failed to load the saved analysis.";
+                this.cdr.detectChanges();
+                console.error(err);
+            }
+        });
     }
 }
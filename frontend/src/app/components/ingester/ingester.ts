@@ -2,7 +2,7 @@ import { Component, ChangeDetectorRef, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { Router, RouterModule } from '@angular/router';
-import { ApiService, IngestRequest, AiAnalysis, CommitInfo } from '../../services/api';
+import { ApiService, IngestRequest, AiAnalysis, CommitInfo, COMMIT_PAGE_SIZE } from '../../services/api';
 import { AnalysisStateService } from '../../services/analysis-state.service';
 
 @Component({
@@ -120,7 +120,7 @@ export class IngesterComponent implements OnInit {
       next: (commits) => {
         this.isFetchingCommits = false;
 
-        if (commits.length < 10) {
+        if (commits.length < COMMIT_PAGE_SIZE) {
           this.hasMoreCommits = false;
         } else {
           this.hasMoreCommits = true;
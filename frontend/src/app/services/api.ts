@@ -1,6 +1,10 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, Subscriber, timer } from 'rxjs';
+import { exhaustMap, first, map, switchMap } from 'rxjs/operators';
+
+// Commits per ingester page; the backend caps this at GitHub's maximum of 100
+export const COMMIT_PAGE_SIZE = 30;
 
 /**
  * Interface representing the data we send to the Spring Boot backend
@@ -27,11 +31,34 @@ export interface AiAlternative {
   justification: string;
 }
 
+export interface AiFileInsight {
+  filename: string;
+  summary: string;
+  technologies?: string[];
+  faults?: AiFault[];
+}
+
+// A file the backend summarized as a stub or cut short instead of sending it whole
+export interface AiPrunedFile {
+  filename: string;
+  reason: string; // ignored | generated | truncated | over_budget
+  patchChars: number;
+}
+
 export interface AiAnalysis {
   summary: string;
   technologies: string[];
   alternatives: AiAlternative[];
   faults: AiFault[];
+  files?: AiFileInsight[];
+  prunedFiles?: AiPrunedFile[];
+}
+
+export interface IngestJobResponse {
+  jobId: string;
+  status: string; // queued | running | success | error
+  message?: string;
+  analysis?: string;
 }
 
 export interface AuditResponse {
@@ -46,6 +73,8 @@ export interface ChatRequest {
   commitSha: string;
   question: string;
   aiChatLog: string;
+  // Returned by the first streamed answer; lets follow-ups reuse the server-side session
+  sessionId?: string;
 }
 
 export interface ChatResponse {
@@ -63,7 +92,15 @@ export interface ChatMessage {
 export interface Note {
   id?: number;
   commitSha: string;
+  section?: string;
+  content: string;
+  version?: number;
+}
+
+export interface NoteEdit {
+  section: string;
   content: string;
+  version?: number;
 }
 
 // --- History Interface ---
@@ -76,6 +113,19 @@ export interface AuditedCommit {
   tag?: string;
 }
 
+export interface HistoryItem {
+  commitSha: string;
+  repoUrl: string;
+  createdAt: string;
+  tag?: string;
+  summary?: string;
+}
+
+export interface HistoryPage {
+  items: HistoryItem[];
+  nextCursor: string | null;
+}
+
 @Injectable({
   providedIn: 'root'
 })
@@ -88,24 +138,106 @@ export class ApiService {
   /**
    * Fetches the latest commits from a GitHub repository with pagination.
    */
-  fetchCommits(repoUrl: string, page: number = 1): Observable<CommitInfo[]> {
+  fetchCommits(repoUrl: string, page: number = 1, perPage: number = COMMIT_PAGE_SIZE): Observable<CommitInfo[]> {
     return this.http.get<CommitInfo[]>(`${this.baseUrl}/audit/commits`, {
-      params: { repoUrl, page: page.toString() }
+      params: { repoUrl, page: page.toString(), perPage: perPage.toString() }
     });
   }
 
   /**
    * Sends the GitHub URL and AI Chat log to the backend for ingestion.
+   * The backend queues the work as a job; this polls the job until it finishes
+   * and emits the same response shape as a synchronous ingest.
    */
   ingestCommit(request: IngestRequest): Observable<any> {
-    return this.http.post(`${this.baseUrl}/audit/ingest`, request);
+    return this.http.post<IngestJobResponse>(`${this.baseUrl}/audit/ingest`, request, {
+      params: { async: 'true' }
+    }).pipe(
+      switchMap(queued => timer(0, 1500).pipe(
+        exhaustMap(() => this.http.get<IngestJobResponse>(`${this.baseUrl}/audit/jobs/${queued.jobId}`)),
+        first(job => job.status === 'success' || job.status === 'error')
+      )),
+      map(job => {
+        if (job.status === 'error') {
+          // Same shape as an HttpErrorResponse so callers can read error.error.message
+          throw { error: job };
+        }
+        return job;
+      })
+    );
   }
 
   /**
    * Sends a question about a commit to the backend for AI-powered Q&A.
+   * The answer is streamed over Server-Sent Events; each emission is the next
+   * Markdown fragment, so the caller can render tokens as they arrive.
+   * HttpClient buffers whole responses, so this reads the stream with fetch().
+   * onSession receives the chat session id before the first fragment.
    */
-  chatAboutCommit(request: ChatRequest): Observable<ChatResponse> {
-    return this.http.post<ChatResponse>(`${this.baseUrl}/audit/chat`, request);
+  chatAboutCommit(request: ChatRequest, onSession?: (sessionId: string) => void): Observable<string> {
+    return new Observable<string>(subscriber => {
+      const controller = new AbortController();
+
+      fetch(`${this.baseUrl}/audit/chat/stream`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json', 'Accept': 'text/event-stream' },
+        body: JSON.stringify(request),
+        signal: controller.signal
+      }).then(async response => {
+        if (!response.ok || !response.body) {
+          throw new Error(`Chat request failed with status ${response.status}`);
+        }
+
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+
+        while (true) {
+          const { done, value } = await reader.read();
+          if (done) break;
+          buffer += decoder.decode(value, { stream: true });
+
+          // SSE events are separated by a blank line
+          let boundary = buffer.search(/\r?\n\r?\n/);
+          while (boundary !== -1) {
+            const rawEvent = buffer.substring(0, boundary);
+            buffer = buffer.substring(boundary).replace(/^\r?\n\r?\n/, '');
+            this.dispatchChatEvent(rawEvent, subscriber, onSession);
+            boundary = buffer.search(/\r?\n\r?\n/);
+          }
+        }
+        subscriber.complete();
+      }).catch(err => {
+        if (!controller.signal.aborted) {
+          subscriber.error(err);
+        }
+      });
+
+      return () => controller.abort();
+    });
+  }
+
+  private dispatchChatEvent(rawEvent: string, subscriber: Subscriber<string>,
+                            onSession?: (sessionId: string) => void) {
+    let eventName = 'message';
+    const dataLines: string[] = [];
+    for (const line of rawEvent.split(/\r?\n/)) {
+      if (line.startsWith('event:')) {
+        eventName = line.substring(6).trim();
+      } else if (line.startsWith('data:')) {
+        dataLines.push(line.substring(5));
+      }
+    }
+    if (dataLines.length === 0) return;
+
+    const payload = JSON.parse(dataLines.join('\n'));
+    if (eventName === 'session') {
+      onSession?.(payload.sessionId);
+    } else if (eventName === 'chunk') {
+      subscriber.next(payload.text);
+    } else if (eventName === 'error') {
+      subscriber.next(payload.message);
+    }
   }
 
   /**
@@ -118,15 +250,48 @@ export class ApiService {
   /**
    * Saves (or updates) a developer note for a commit SHA and section.
    */
-  saveNote(commitSha: string, content: string, section: string = 'summary'): Observable<Note> {
-    return this.http.post<Note>(`${this.baseUrl}/notes`, { commitSha, content, section });
+  saveNote(commitSha: string, content: string, section: string = 'summary', version?: number): Observable<Note> {
+    return this.http.post<Note>(`${this.baseUrl}/notes`, { commitSha, content, section, version });
+  }
+
+  /**
+   * Fetches every section's note for a commit in one request, keyed by section.
+   */
+  getNotes(commitSha: string): Observable<Record<string, Note>> {
+    return this.http.get<Record<string, Note>>(`${this.baseUrl}/notes/${commitSha}/sections`);
+  }
+
+  /**
+   * Saves several sections of a commit's notes together; all are written or none.
+   * A 409 response carries the current notes when any edit was based on an older version.
+   */
+  saveNotes(commitSha: string, edits: NoteEdit[]): Observable<Record<string, Note>> {
+    return this.http.put<Record<string, Note>>(`${this.baseUrl}/notes/${commitSha}`, edits);
+  }
+
+  /**
+   * Fetches one page of saved analyses (newest first) without their analysis JSON.
+   * Pass the previous page's nextCursor to continue.
+   */
+  getHistory(cursor?: string): Observable<HistoryPage> {
+    const params: Record<string, string> = cursor ? { cursor } : {};
+    return this.http.get<HistoryPage>(`${this.baseUrl}/history`, { params });
+  }
+
+  /**
+   * URL of the streamed Knowledge Ownership Report for a whole repository.
+   * Used as a plain download link so the browser writes the file as it arrives.
+   */
+  getReportExportUrl(repoUrl: string, format: 'markdown' | 'jsonl' = 'markdown', gzip: boolean = false): string {
+    const params = new URLSearchParams({ repoUrl, format, gzip: String(gzip) });
+    return `${this.baseUrl}/history/export?${params}`;
   }
 
   /**
-   * Fetches all saved AI analyses from the database history.
+   * Fetches a single saved analysis including its full analysis JSON.
    */
-  getHistory(): Observable<AuditedCommit[]> {
-    return this.http.get<AuditedCommit[]>(`${this.baseUrl}/history`);
+  getHistoryBySha(commitSha: string): Observable<AuditedCommit> {
+    return this.http.get<AuditedCommit>(`${this.baseUrl}/history/${commitSha}`);
   }
 
   /**